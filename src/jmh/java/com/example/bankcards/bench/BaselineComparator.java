@@ -0,0 +1,91 @@
+package com.example.bankcards.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Сравнивает результаты JMH ({@code -rf json}) с сохранённым baseline.
+ * <p>
+ * Бенчмарк считается ухудшившимся, если его score хуже baseline больше чем на порог
+ * (для {@code thrpt} — меньше, для остальных режимов — больше). При ухудшении процесс
+ * завершается с кодом 1, сборка падает. Бенчмарки, которых нет в одном из файлов, пропускаются.
+ * <p>
+ * Аргументы: {@code <results.json> <baseline.json> <порог, %>}.
+ */
+public final class BaselineComparator {
+
+    private BaselineComparator() { }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: BaselineComparator <results.json> <baseline.json> <threshold-percent>");
+            System.exit(2);
+        }
+        Path results = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+
+        if (!Files.exists(baseline)) {
+            System.out.printf("No baseline at %s, comparison skipped. To create it: cp %s %s%n",
+                    baseline, results, baseline);
+            return;
+        }
+
+        Map<String, JsonNode> current = read(results);
+        Map<String, JsonNode> base = read(baseline);
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> e : current.entrySet()) {
+            JsonNode was = base.get(e.getKey());
+            if (was == null) {
+                System.out.printf("%-70s %14s%n", e.getKey(), "(new)");
+                continue;
+            }
+            JsonNode now = e.getValue();
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            if (!unit.equals(was.path("primaryMetric").path("scoreUnit").asText())) {
+                System.out.printf("%-70s %14s%n", e.getKey(), "(unit changed)");
+                continue;
+            }
+            double before = was.path("primaryMetric").path("score").asDouble();
+            double after = now.path("primaryMetric").path("score").asDouble();
+            double change = (after - before) / before * 100;
+            double worse = "thrpt".equals(now.path("mode").asText()) ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %s%s%n", e.getKey(), before, after, change, unit,
+                    regressed ? "  REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed by more than %.1f%% against %s%n",
+                    regressions, threshold, baseline);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return результаты по ключу «имя бенчмарка + параметры»
+     */
+    private static Map<String, JsonNode> read(Path file) throws IOException {
+        Map<String, JsonNode> result = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            JsonNode params = run.path("params");
+            for (Map.Entry<String, JsonNode> p : params.properties()) {
+                key.append(':').append(p.getKey()).append('=').append(p.getValue().asText());
+            }
+            result.put(key.toString(), run);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.bankcards.bench;
+
+import com.example.bankcards.util.CardNumberCheck;
+import com.example.bankcards.util.NumEncryptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Шифрование, HMAC и проверка номера карты: выполняются на каждом создании карты и поиске по номеру.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CryptoBenchmark {
+
+    private NumEncryptor encryptor;
+    private CardNumberCheck cardNumberCheck;
+    private String encrypted;
+
+    @Setup
+    public void setup() {
+        encryptor = Fixtures.encryptor();
+        cardNumberCheck = new CardNumberCheck(encryptor);
+        ReflectionTestUtils.setField(cardNumberCheck, "cardNumberLength", 16);
+        encrypted = encryptor.encryptPan(Fixtures.PAN);
+    }
+
+    @Benchmark
+    public String encryptPan() {
+        return encryptor.encryptPan(Fixtures.PAN);
+    }
+
+    @Benchmark
+    public String decryptPan() throws Exception {
+        return encryptor.decryptPan(encrypted);
+    }
+
+    @Benchmark
+    public String hmacPan() {
+        return encryptor.hmacPan(Fixtures.PAN);
+    }
+
+    @Benchmark
+    public String cardNumberCheck() {
+        return cardNumberCheck.check("2200 7000 0000 1234");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.bankcards.bench;
+
+import com.example.bankcards.entity.BaseCard;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.StandardCard;
+import com.example.bankcards.entity.StandardUser;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.util.BankMetrics;
+import com.example.bankcards.util.NumEncryptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Общие объекты для бенчмарков: собираются вручную, без контекста Spring.
+ */
+final class Fixtures {
+
+    static final String PAN = "2200700000001234";
+
+    private Fixtures() { }
+
+    static BankMetrics metrics() {
+        return new BankMetrics(new SimpleMeterRegistry(), Tracer.NOOP);
+    }
+
+    static NumEncryptor encryptor() {
+        return new NumEncryptor(new SecretKeySpec(randomBytes(32), "AES"),
+                new SecretKeySpec(randomBytes(32), "HmacSHA256"), metrics());
+    }
+
+    static String randomKeyBase64() {
+        return Base64.getEncoder().encodeToString(randomBytes(32));
+    }
+
+    static StandardCard card(long id, StandardUser owner) {
+        StandardCard card = new StandardCard();
+        card.setId(id);
+        card.setNumEncrypted("encrypted");
+        card.setCardNumberLast4(String.format("%04d", id % 10000));
+        card.setNumHmac("hmac-" + id);
+        card.setUser(owner);
+        card.setExpiration(LocalDateTime.now().plusYears(4));
+        card.setCardStatus(CardStatus.ACTIVE);
+        card.setBalance(new BigDecimal("1000.00"));
+        card.setCreatedAt(LocalDateTime.now());
+        card.setModifiedAt(LocalDateTime.now());
+        return card;
+    }
+
+    /**
+     * @param cards число карт пользователя
+     */
+    static StandardUser user(int cards) {
+        StandardUser user = new StandardUser();
+        user.setId(1L);
+        user.setName("bench");
+        user.setEmail("bench@bank.local");
+        user.setRole(UserRole.USER);
+        user.setActive(true);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setModifiedAt(LocalDateTime.now());
+        List<BaseCard> list = new ArrayList<>(cards);
+        for (int i = 1; i <= cards; i++) {
+            list.add(card(i, user));
+        }
+        user.setCards(list);
+        return user;
+    }
+
+    private static byte[] randomBytes(int len) {
+        byte[] bytes = new byte[len];
+        new SecureRandom().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bankcards.bench;
+
+import com.example.bankcards.config.props.JwtProps;
+import com.example.bankcards.security.AppUserPrincipal;
+import com.example.bankcards.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выпуск и разбор JWT: разбор выполняется на каждом аутентифицированном запросе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtBenchmark {
+
+    private JwtService jwtService;
+    private AppUserPrincipal principal;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService(new JwtProps(Fixtures.randomKeyBase64(), 60));
+        principal = new AppUserPrincipal(1L, "bench@bank.local", "", true,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = jwtService.generateToken(principal);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtService.generateToken(principal);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return jwtService.isValid(token, principal);
+    }
+}
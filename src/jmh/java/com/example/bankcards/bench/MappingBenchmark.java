@@ -0,0 +1,67 @@
+package com.example.bankcards.bench;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.FieldSelection;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.entity.StandardCard;
+import com.example.bankcards.entity.StandardUser;
+import com.example.bankcards.mapper.BankMapper;
+import com.example.bankcards.mapper.BankMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг сущностей в DTO (MapStruct): выполняется для каждой карты в ответах со списками.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class MappingBenchmark {
+
+    /**
+     * Число карт у пользователя для {@link #userToUserDto()} ({@code expand=cards}).
+     */
+    @Param({"1", "20"})
+    public int cards;
+
+    private static final FieldSelection EXPAND_CARDS = FieldSelection.of(null, "cards");
+
+    private final BankMapper mapper = new BankMapperImpl();
+    private StandardCard card;
+    private StandardUser user;
+
+    @Setup
+    public void setup() {
+        user = Fixtures.user(cards);
+        card = Fixtures.card(42, user);
+    }
+
+    @Benchmark
+    public CardDto cardToCardDto() {
+        return mapper.cardToCardDto(card);
+    }
+
+    @Benchmark
+    public UserDto userToUserDto() {
+        return mapper.userToUserDTO(user, EXPAND_CARDS);
+    }
+
+    @Benchmark
+    public UserDto userToUserDtoWithoutCards() {
+        return mapper.userToUserDTO(user, FieldSelection.DEFAULT);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.bench;
+
+import com.example.bankcards.util.NumGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборка номера карты с контрольной цифрой Луна. Последовательность БД подменена счётчиком,
+ * так что измеряется только форматирование и расчёт контрольной цифры.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class NumGeneratorBenchmark {
+
+    private final NumGenerator generator = new NumGenerator(new SequenceStub());
+
+    @Benchmark
+    public String generateNum() {
+        return generator.generateNum();
+    }
+
+    private static final class SequenceStub extends JdbcTemplate {
+
+        private long next;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return (T) Long.valueOf(++next % 1_000_000_000L);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bankcards.bench;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.PageResponse;
+import com.example.bankcards.entity.StandardUser;
+import com.example.bankcards.mapper.BankMapper;
+import com.example.bankcards.mapper.BankMapperImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация страницы из 100 карт: {@link PageImpl} напрямую против {@link PageResponse},
+ * с фильтром полей {@code ?fields=id,balance} и без; Jackson без модулей и с Blackbird.
+ * <p>
+ * Размер ответа в байтах печатается при старте форка; аллокации на операцию — через {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class PageSerializationBenchmark {
+
+    private static final int ITEMS = 100;
+
+    /**
+     * {@code plain} — ObjectMapper без модулей, {@code blackbird} — с генерацией аксессоров через LambdaMetafactory.
+     */
+    @Param({"plain", "blackbird"})
+    public String jackson;
+
+    private ObjectWriter all;
+    private ObjectWriter idBalance;
+    private Page<CardDto> page;
+    private PageResponse<CardDto> response;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        ObjectMapper mapper = new ObjectMapper();
+        if ("blackbird".equals(jackson)) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+        SimpleFilterProvider serializeAll = new SimpleFilterProvider()
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+        all = mapper.writer(serializeAll);
+        idBalance = mapper.writer(new SimpleFilterProvider()
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll())
+                .addFilter("CardDto", SimpleBeanPropertyFilter.filterOutAllExcept("id", "balance")));
+
+        BankMapper bankMapper = new BankMapperImpl();
+        StandardUser user = Fixtures.user(ITEMS);
+        List<CardDto> cards = user.getCards().stream().map(bankMapper::cardToCardDto).toList();
+        page = new PageImpl<>(cards, PageRequest.of(0, ITEMS, Sort.by(Sort.Direction.DESC, "createdAt")), 10_000);
+        response = PageResponse.of(page);
+
+        System.out.printf("%nbytes/response (%s): pageImpl=%d, pageResponse=%d, pageResponse?fields=id,balance=%d%n",
+                jackson, pageImpl().length, pageResponse().length, pageResponseFields().length);
+    }
+
+    @Benchmark
+    public byte[] pageImpl() throws JsonProcessingException {
+        return all.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] pageResponse() throws JsonProcessingException {
+        return all.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] pageResponseFields() throws JsonProcessingException {
+        return idBalance.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.bankcards.bench;
+
+import com.example.bankcards.util.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничитель частоты на горячем пути: допущенный запрос, отклонённый запрос, много ключей
+ * и конкуренция потоков за одну корзину. Цель — меньше микросекунды на запрос.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 100_000;
+
+    private TokenBucketRateLimiter unlimited;
+    private TokenBucketRateLimiter exhausted;
+    private Long[] keys;
+
+    @Setup
+    public void setup() {
+        unlimited = new TokenBucketRateLimiter(Integer.MAX_VALUE, 1e9);
+        exhausted = new TokenBucketRateLimiter(1, 1e-3);
+        exhausted.tryAcquire(1L);
+        keys = new Long[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = (long) i + 1_000;
+            unlimited.tryAcquire(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public long allowed() {
+        return unlimited.tryAcquire(keys[0]);
+    }
+
+    @Benchmark
+    public long rejected() {
+        return exhausted.tryAcquire(1L);
+    }
+
+    @Benchmark
+    public long allowedManyKeys() {
+        return unlimited.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long allowedContendedKey() {
+        return unlimited.tryAcquire(keys[0]);
+    }
+}
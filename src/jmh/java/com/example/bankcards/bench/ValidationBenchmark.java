@@ -0,0 +1,50 @@
+package com.example.bankcards.bench;
+
+import com.example.bankcards.dto.CardSearchRequestDto;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.util.CardsSearchFilterPolicy;
+import com.example.bankcards.util.PageableBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор параметров поиска: пагинация с сортировкой и проверка фильтра карт.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ValidationBenchmark {
+
+    private final CardsSearchFilterPolicy policy = new CardsSearchFilterPolicy();
+
+    private final CardSearchRequestDto fullFilter = new CardSearchRequestDto(0, 20, "createdAt,desc", 1L, "1234",
+            CardStatus.ACTIVE, LocalDateTime.now(), LocalDateTime.now().plusYears(5),
+            BigDecimal.ZERO, new BigDecimal("100000"), LocalDateTime.now().minusYears(1), LocalDateTime.now());
+
+    @Benchmark
+    public Pageable pageableBuild() {
+        return PageableBuilder.build(2, 50, "createdAt,desc");
+    }
+
+    @Benchmark
+    public void checkFilter(Blackhole bh) {
+        policy.checkFilter(fullFilter);
+        bh.consume(fullFilter);
+    }
+}
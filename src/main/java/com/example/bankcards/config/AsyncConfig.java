@@ -0,0 +1,19 @@
+package com.example.bankcards.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включение {@code @Async} и {@code @Scheduled}.
+ * <p>
+ * Исполнители не объявляются вручную: используются автоконфигурированные Spring Boot
+ * {@code applicationTaskExecutor} и {@code taskScheduler}. При {@code spring.threads.virtual.enabled=true}
+ * (переменная {@code VIRTUAL_THREADS_ENABLED}) они, как и обработчики запросов Tomcat, работают
+ * на виртуальных потоках.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+}
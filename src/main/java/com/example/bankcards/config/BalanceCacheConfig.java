@@ -0,0 +1,25 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.BalanceCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Межузловая инвалидация кэша балансов ({@code balance.cache.notify-enabled=true}).
+ * <p>
+ * Подписка идёт к основной БД ({@code spring.datasource.*}): уведомления рассылает только она.
+ */
+@Configuration
+@ConditionalOnExpression("${balance.cache.enabled:false} and ${balance.cache.notify-enabled:false}")
+public class BalanceCacheConfig {
+
+    @Bean
+    public PgNotifyBalanceChannel balanceCacheChannel(JdbcTemplate jdbc,
+                                                      DataSourceProperties dataSourceProperties,
+                                                      BalanceCache balanceCache) {
+        return new PgNotifyBalanceChannel(jdbc, dataSourceProperties, balanceCache);
+    }
+}
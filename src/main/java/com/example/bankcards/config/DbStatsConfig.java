@@ -0,0 +1,74 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.props.DbStatsProps;
+import com.example.bankcards.util.BankMetrics;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+
+/**
+ * Учёт SQL-выражений на HTTP-запрос (datasource-proxy).
+ * <p>
+ * Включается свойством {@code datasource.stats.enabled=true}:
+ * <ul>
+ *   <li>бин {@code dataSource} (в том числе маршрутизирующий из {@link ReplicaRoutingConfig})
+ *   оборачивается в прокси с {@link DbStatsListener};</li>
+ *   <li>{@link DbStatsFilter} считает выражения и время JDBC каждого запроса, включая загрузку
+ *   пользователя в {@code JwtAuthFilter}.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.stats", name = "enabled", havingValue = "true")
+public class DbStatsConfig {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    /**
+     * Оборачивает основной {@code dataSource}; внутренние пулы маршрутизации не оборачиваются,
+     * чтобы выражения не учитывались дважды.
+     *
+     * @param props   настройки {@code datasource.stats}
+     * @param metrics провайдер метрик
+     * @return пост-процессор бинов
+     */
+    @Bean
+    static BeanPostProcessor dbStatsDataSourcePostProcessor(ObjectProvider<DbStatsProps> props,
+                                                            ObjectProvider<BankMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || !DATA_SOURCE_BEAN.equals(beanName)) {
+                    return bean;
+                }
+                DbStatsProps p = props.getObject();
+                long slowNanos = p.slowThreshold() == null ? Long.MAX_VALUE : p.slowThreshold().toNanos();
+                return ProxyDataSourceBuilder.create(DATA_SOURCE_BEAN, dataSource)
+                        .listener(new DbStatsListener(slowNanos, SingletonSupplier.of(metrics::getObject)))
+                        .build();
+            }
+        };
+    }
+
+    /**
+     * Фильтр учёта выполняется сразу после фильтра наблюдений Spring Boot, до Spring Security.
+     *
+     * @param props   настройки {@code datasource.stats}
+     * @param metrics метрики
+     * @return регистрация фильтра
+     */
+    @Bean
+    FilterRegistrationBean<DbStatsFilter> dbStatsFilter(DbStatsProps props, BankMetrics metrics) {
+        FilterRegistrationBean<DbStatsFilter> registration =
+                new FilterRegistrationBean<>(new DbStatsFilter(metrics, props.header()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.BankMetrics;
+import com.example.bankcards.util.DbStats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Открывает учёт {@link DbStats} на время запроса и публикует итог в метрики
+ * {@code bank.db.statements} / {@code bank.db.time} с тегами {@code method} и {@code uri} (шаблон маршрута).
+ * <p>
+ * При {@code datasource.stats.header=true} добавляет заголовок {@code X-DB-Stats} в момент фиксации ответа,
+ * то есть с учётом выражений, выполненных до начала записи тела.
+ */
+class DbStatsFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "X-DB-Stats";
+
+    private final BankMetrics metrics;
+    private final boolean header;
+
+    DbStatsFilter(BankMetrics metrics, boolean header) {
+        this.metrics = metrics;
+        this.header = header;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        DbStats stats = DbStats.begin();
+        HttpServletResponse target = header ? new StatsHeaderResponse(response, stats) : response;
+        try {
+            chain.doFilter(request, target);
+        } finally {
+            DbStats.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            metrics.dbRequest(request.getMethod(), pattern == null ? "UNKNOWN" : pattern.toString(), stats);
+        }
+    }
+
+    private static class StatsHeaderResponse extends OnCommittedResponseWrapper {
+        private final DbStats stats;
+
+        StatsHeaderResponse(HttpServletResponse response, DbStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            setHeader(HEADER, stats.toHeaderValue());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.BankMetrics;
+import com.example.bankcards.util.DbStats;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Слушатель datasource-proxy: время каждого выполнения SQL, учёт в {@link DbStats} текущего запроса
+ * и выделение медленных выражений.
+ * <p>
+ * В лог пишется только текст SQL с {@code ?}; значения параметров (номера карт, суммы) не логируются.
+ */
+@Slf4j
+class DbStatsListener implements QueryExecutionListener {
+
+    private static final String START_NANOS = DbStatsListener.class.getName() + ".start";
+
+    private final long slowNanos;
+    private final Supplier<BankMetrics> metrics;
+
+    /**
+     * @param slowNanos порог медленного выражения; {@link Long#MAX_VALUE} — не выделять
+     * @param metrics   источник метрик (разрешается лениво: прокси создаётся раньше реестра метрик)
+     */
+    DbStatsListener(long slowNanos, Supplier<BankMetrics> metrics) {
+        this.slowNanos = slowNanos;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        long nanos = start == null ? 0 : System.nanoTime() - start;
+        boolean slow = nanos >= slowNanos;
+
+        DbStats stats = DbStats.current();
+        if (stats != null) {
+            stats.record(nanos, slow);
+        }
+        if (slow) {
+            metrics.get().slowStatement();
+            log.warn("Slow SQL: {} ms, batch={}, sql={}", nanos / 1_000_000, execInfo.getBatchSize(),
+                    queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; ")));
+        }
+    }
+}
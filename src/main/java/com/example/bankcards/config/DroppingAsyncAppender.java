@@ -0,0 +1,66 @@
+package com.example.bankcards.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AsyncAppender} со счётчиком отброшенных событий.
+ * <p>
+ * Политика та же, что у {@link AsyncAppender}:
+ * <ul>
+ *   <li>пока в очереди свободно не меньше {@code discardingThreshold} мест, принимаются все события</li>
+ *   <li>когда свободных мест меньше, TRACE/DEBUG/INFO отбрасываются, и каждое такое событие учитывается</li>
+ *   <li>WARN/ERROR не отбрасываются никогда: при полной очереди поток запроса ждёт место
+ *   ({@code neverBlock} должен оставаться {@code false})</li>
+ * </ul>
+ * Запущенные экземпляры регистрируются по имени, чтобы {@link LoggingMetricsConfig} мог опубликовать
+ * их счётчики: logback настраивается раньше, чем создаётся контекст Spring.
+ */
+public class DroppingAsyncAppender extends AsyncAppender {
+
+    private static final Map<String, DroppingAsyncAppender> STARTED = new ConcurrentHashMap<>();
+
+    private final LongAdder dropped = new LongAdder();
+
+    @Override
+    public void start() {
+        super.start();
+        if (isStarted()) {
+            STARTED.put(getName(), this);
+        }
+    }
+
+    @Override
+    public void stop() {
+        STARTED.remove(getName(), this);
+        super.stop();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (getRemainingCapacity() < getDiscardingThreshold() && isDiscardable(event)) {
+            dropped.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    /**
+     * @return число событий, отброшенных из-за заполненной очереди
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return запущенные экземпляры
+     */
+    static Collection<DroppingAsyncAppender> started() {
+        return STARTED.values();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.dto.FieldSelection;
+import com.example.bankcards.dto.PageResponse;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Общая фильтрация полей JSON-ответов по параметрам {@code ?fields=id,balance} и {@code ?expand=cards}
+ * (см. {@link FieldSelection#rendered()}).
+ * <p>
+ * Фильтр применяется к элементу ответа: к самому DTO или к элементам {@link PageResponse}.
+ * Поля обёртки страницы и вложенные объекты не фильтруются. Фильтруются только DTO с {@link JsonFilter};
+ * неизвестные имена полей игнорируются. Без {@code fields} ответ сериализуется целиком.
+ * <p>
+ * Провайдер фильтров выставляется для каждого JSON-ответа контроллеров, поэтому DTO с {@link JsonFilter}
+ * должны сериализоваться только через контроллеры (или через ObjectMapper со своим провайдером).
+ */
+@RestControllerAdvice
+public class FieldsFilterAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    private static final FilterProvider ALL =
+            new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue container, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        FieldSelection select = FieldSelection.DEFAULT;
+        if (request instanceof ServletServerHttpRequest servlet) {
+            HttpServletRequest r = servlet.getServletRequest();
+            select = FieldSelection.of(r.getParameter("fields"), r.getParameter("expand"));
+        }
+        container.setFilters(filters(container.getValue(), select));
+    }
+
+    /**
+     * Строит провайдер фильтров для тела ответа.
+     *
+     * @param body   тело ответа
+     * @param select запрошенные поля
+     * @return провайдер, оставляющий у элемента только перечисленные поля
+     */
+    static FilterProvider filters(Object body, FieldSelection select) {
+        Set<String> names = select.rendered();
+        Class<?> item = itemType(body);
+        JsonFilter filter = item == null ? null : item.getAnnotation(JsonFilter.class);
+        if (names.isEmpty() || filter == null) {
+            return ALL;
+        }
+        return new SimpleFilterProvider()
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll())
+                .addFilter(filter.value(), SimpleBeanPropertyFilter.filterOutAllExcept(names));
+    }
+
+    private static Class<?> itemType(Object body) {
+        List<?> content = body instanceof PageResponse<?> page ? page.content() : null;
+        if (content == null) {
+            return body == null ? null : body.getClass();
+        }
+        return content.isEmpty() || content.get(0) == null ? null : content.get(0).getClass();
+    }
+}
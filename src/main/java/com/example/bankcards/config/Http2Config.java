@@ -0,0 +1,41 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.props.Http2Props;
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Настройка HTTP/2 (h2c) коннектора Tomcat.
+ * <p>
+ * Включается вместе с {@code server.http2.enabled=true}. Spring Boot сам добавляет {@link Http2Protocol}
+ * и переносит на него сжатие ({@code server.compression}); здесь задаются число потоков на соединение
+ * и keep-alive из {@link Http2Props}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "server.http2", name = "enabled", havingValue = "true")
+public class Http2Config {
+
+    /**
+     * @param props настройки {@code network.http2}
+     * @return настройка коннектора; выполняется после добавления {@link Http2Protocol}
+     */
+    @Bean
+    TomcatConnectorCustomizer http2ConnectorCustomizer(Http2Props props) {
+        return connector -> {
+            for (UpgradeProtocol protocol : connector.findUpgradeProtocols()) {
+                if (protocol instanceof Http2Protocol http2) {
+                    if (props.maxConcurrentStreams() > 0) {
+                        http2.setMaxConcurrentStreams(props.maxConcurrentStreams());
+                    }
+                    if (props.keepAliveTimeout() != null) {
+                        http2.setKeepAliveTimeout(props.keepAliveTimeout().toMillis());
+                    }
+                }
+            }
+        };
+    }
+}
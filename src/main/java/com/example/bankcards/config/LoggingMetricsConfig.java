@@ -0,0 +1,32 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Метрики асинхронного логирования ({@link DroppingAsyncAppender}).
+ * <ul>
+ *   <li>{@code logback.async.dropped} — отброшенные под нагрузкой события TRACE/DEBUG/INFO</li>
+ *   <li>{@code logback.async.queue.remaining} — свободные места в очереди</li>
+ * </ul>
+ * Тег {@code appender} — имя аппендера из {@code logback-spring.xml}.
+ */
+@Configuration
+public class LoggingMetricsConfig {
+
+    @Bean
+    MeterBinder asyncLoggingMetrics() {
+        return registry -> DroppingAsyncAppender.started().forEach(appender -> {
+            FunctionCounter.builder("logback.async.dropped", appender, DroppingAsyncAppender::getDroppedCount)
+                    .tag("appender", appender.getName())
+                    .description("Log events discarded because the async queue was nearly full")
+                    .register(registry);
+            Gauge.builder("logback.async.queue.remaining", appender, DroppingAsyncAppender::getRemainingCapacity)
+                    .tag("appender", appender.getName())
+                    .register(registry);
+        });
+    }
+}
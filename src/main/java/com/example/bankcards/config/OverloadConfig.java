@@ -0,0 +1,51 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.props.OverloadProps;
+import com.example.bankcards.util.AdaptiveLimiter;
+import com.example.bankcards.util.BankMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Защита от перегрузки (см. {@link OverloadFilter}).
+ * <p>
+ * Включается свойством {@code overload.enabled=true}; лимиты классов эндпоинтов — {@code overload.endpoints}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "overload", name = "enabled", havingValue = "true")
+public class OverloadConfig {
+
+    /**
+     * Фильтр выполняется после фильтров наблюдений и учёта SQL (отказы видны в {@code http.server.requests}),
+     * но до Spring Security: отклонённый запрос не загружает пользователя из БД.
+     *
+     * @param props   настройки {@code overload}
+     * @param metrics метрики
+     * @param mapper  сериализация тела ответа 503
+     * @return регистрация фильтра
+     */
+    @Bean
+    FilterRegistrationBean<OverloadFilter> overloadFilter(OverloadProps props, BankMetrics metrics, ObjectMapper mapper) {
+        Map<String, OverloadFilter.Endpoint> endpoints = new LinkedHashMap<>();
+        if (props.endpoints() != null) {
+            props.endpoints().forEach((name, l) -> {
+                AdaptiveLimiter limiter = new AdaptiveLimiter(l.initialLimit(), l.minLimit(), l.maxLimit(),
+                        l.tolerance(), l.longWindow());
+                metrics.overloadGauges(name, limiter);
+                endpoints.put(name, new OverloadFilter.Endpoint(name, l.priority(), limiter));
+            });
+        }
+        long retryAfter = props.retryAfter() == null ? 1 : (props.retryAfter().toMillis() + 999) / 1000;
+        FilterRegistrationBean<OverloadFilter> registration = new FilterRegistrationBean<>(
+                new OverloadFilter(endpoints, props.saturation(), retryAfter, metrics, mapper));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+}
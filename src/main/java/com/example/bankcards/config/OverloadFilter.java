@@ -0,0 +1,146 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.dto.ErrorResponseDto;
+import com.example.bankcards.util.AdaptiveLimiter;
+import com.example.bankcards.util.BankMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Сброс нагрузки: запрос сверх адаптивного лимита своего класса сразу получает 503 с {@code Retry-After},
+ * не занимая поток в ожидании соединения или блокировки.
+ * <p>
+ * Классы эндпоинтов (см. {@link #classify}):
+ * <ul>
+ *   <li>{@code transfer} — {@code POST /api/v1/transaction}</li>
+ *   <li>{@code balance} — {@code GET /api/v1/transaction/{cardId}}</li>
+ *   <li>{@code login} — {@code POST /api/v1/auth/login}</li>
+ *   <li>{@code search} — списки {@code GET /api/v1/card} и {@code GET /api/v1/user}</li>
+ * </ul>
+ * Остальные запросы (выгрузки, SSE, актуатор) не ограничиваются.
+ * <p>
+ * Приоритет: пока класс с меньшим {@code priority} занят (в работе не меньше {@code saturation} от его лимита),
+ * запросы менее приоритетных классов отклоняются. Медленные поиски снижают лимит переводов через общую БД,
+ * и поиски начинают отклоняться раньше, чем переводы.
+ * <p>
+ * Ответы 423 (таймаут блокировки) и 5xx считаются сбросом и снижают лимит класса.
+ */
+@Slf4j
+class OverloadFilter extends OncePerRequestFilter {
+
+    /**
+     * Класс эндпоинтов с лимитом.
+     *
+     * @param name     имя класса (тег метрик)
+     * @param priority приоритет, {@code 0} — наивысший
+     * @param limiter  адаптивный лимит
+     */
+    record Endpoint(String name, int priority, AdaptiveLimiter limiter) { }
+
+    private final Map<String, Endpoint> endpoints;
+    private final double saturation;
+    private final long retryAfterSeconds;
+    private final BankMetrics metrics;
+    private final ObjectMapper mapper;
+
+    OverloadFilter(Map<String, Endpoint> endpoints, double saturation, long retryAfterSeconds,
+                   BankMetrics metrics, ObjectMapper mapper) {
+        this.endpoints = endpoints;
+        this.saturation = saturation;
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.metrics = metrics;
+        this.mapper = mapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String name = classify(request.getMethod(), request.getRequestURI());
+        Endpoint endpoint = name == null ? null : endpoints.get(name);
+        if (endpoint == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (preempted(endpoint)) {
+            reject(endpoint, "priority", request, response);
+            return;
+        }
+        if (!endpoint.limiter().tryAcquire()) {
+            reject(endpoint, "limit", request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            chain.doFilter(request, response);
+            int status = response.getStatus();
+            dropped = status == HttpStatus.LOCKED.value() || status >= 500;
+        } finally {
+            endpoint.limiter().release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    /**
+     * @param method HTTP-метод
+     * @param uri    путь запроса
+     * @return класс эндпоинта или {@code null}, если запрос не ограничивается
+     */
+    static String classify(String method, String uri) {
+        if (uri == null) {
+            return null;
+        }
+        String path = uri.endsWith("/") && uri.length() > 1 ? uri.substring(0, uri.length() - 1) : uri;
+        if ("POST".equals(method)) {
+            return switch (path) {
+                case "/api/v1/transaction" -> "transfer";
+                case "/api/v1/auth/login" -> "login";
+                default -> null;
+            };
+        }
+        if (!"GET".equals(method)) {
+            return null;
+        }
+        if (path.equals("/api/v1/card") || path.equals("/api/v1/user")) {
+            return "search";
+        }
+        if (path.startsWith("/api/v1/transaction/")) {
+            String rest = path.substring("/api/v1/transaction/".length());
+            return !rest.isEmpty() && rest.chars().allMatch(Character::isDigit) ? "balance" : null;
+        }
+        return null;
+    }
+
+    private boolean preempted(Endpoint endpoint) {
+        for (Endpoint other : endpoints.values()) {
+            if (other.priority() < endpoint.priority() && other.limiter().saturated(saturation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reject(Endpoint endpoint, String reason, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        metrics.overloadRejected(endpoint.name(), reason);
+        log.debug("Overload: {} rejected ({}), limit={}, inflight={}", endpoint.name(), reason,
+                endpoint.limiter().limit(), endpoint.limiter().inflight());
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(response.getOutputStream(), new ErrorResponseDto(LocalDateTime.now(), status.value(),
+                status.getReasonPhrase(), "Server is overloaded, retry later", request.getRequestURI()));
+    }
+}
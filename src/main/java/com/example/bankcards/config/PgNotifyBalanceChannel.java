@@ -0,0 +1,159 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.BalanceCache;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Канал инвалидаций {@link BalanceCache} между экземплярами приложения через PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * <ul>
+ *   <li>Публикация — {@code pg_notify} через {@link JdbcTemplate} в транзакции, изменившей карты, перед её
+ *       фиксацией: второе соединение из пула не занимается, уведомление доставляется при фиксации и
+ *       отбрасывается при откате. Все карты транзакции (порции) — одним запросом</li>
+ *   <li>Подписка — выделенное соединение вне пула (чтобы не занимать слот Hikari) и фоновый поток,
+ *       ожидающий уведомления</li>
+ *   <li>После разрыва подписки кэш очищается: уведомления за время разрыва потеряны</li>
+ * </ul>
+ * Формат сообщения: {@code <cardId>:<version>[,<cardId>:<version>...]}; сообщение короче
+ * предела {@code NOTIFY} (8000 байт), крупная порция делится на несколько сообщений.
+ */
+@Slf4j
+public class PgNotifyBalanceChannel implements BalanceCache.InvalidationChannel, SmartLifecycle {
+
+    static final String CHANNEL = "balance_cache";
+    static final String NOTIFY_SQL = "select pg_notify('" + CHANNEL + "', p) from unnest(?::text[]) as p";
+    static final int MAX_PAYLOAD_BYTES = 7_900;
+
+    private static final int POLL_TIMEOUT_MS = 1_000;
+    private static final long RECONNECT_DELAY_MS = 2_000;
+
+    private final JdbcTemplate jdbc;
+    private final DataSourceProperties listenProps;
+    private final BalanceCache cache;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public PgNotifyBalanceChannel(JdbcTemplate jdbc, DataSourceProperties listenProps, BalanceCache cache) {
+        this.jdbc = jdbc;
+        this.listenProps = listenProps;
+        this.cache = cache;
+    }
+
+    @Override
+    public void publish(Map<Long, Long> versions) {
+        List<String> payloads = payloads(versions);
+        if (payloads.isEmpty()) {
+            return;
+        }
+        jdbc.query(NOTIFY_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", payloads.toArray())),
+                rs -> null);
+    }
+
+    /**
+     * Делит изменения на сообщения не длиннее {@link #MAX_PAYLOAD_BYTES} (сообщение из цифр и разделителей:
+     * символ — байт).
+     */
+    static List<String> payloads(Map<Long, Long> versions) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        versions.forEach((cardId, version) -> {
+            String item = cardId + ":" + version;
+            if (!current.isEmpty() && current.length() + 1 + item.length() > MAX_PAYLOAD_BYTES) {
+                payloads.add(current.toString());
+                current.setLength(0);
+            }
+            if (!current.isEmpty()) {
+                current.append(',');
+            }
+            current.append(item);
+        });
+        if (!current.isEmpty()) {
+            payloads.add(current.toString());
+        }
+        return payloads;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = Thread.ofPlatform().daemon().name("balance-cache-listener").start(this::listenLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection c = DriverManager.getConnection(
+                    listenProps.determineUrl(), listenProps.determineUsername(), listenProps.determinePassword())) {
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                cache.clear();
+                log.info("Balance cache listener subscribed to channel {}", CHANNEL);
+
+                PGConnection pg = c.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] batch = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (batch != null) {
+                        for (PGNotification n : batch) {
+                            apply(n.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Balance cache listener disconnected, retrying in {} ms: {}", RECONNECT_DELAY_MS, e.getMessage());
+                cache.clear();
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void apply(String payload) {
+        for (String item : payload.split(",")) {
+            int sep = item.indexOf(':');
+            if (sep < 0) {
+                log.warn("Balance cache listener: bad payload item {}", item);
+                continue;
+            }
+            try {
+                cache.invalidate(Long.parseLong(item, 0, sep, 10), Long.parseLong(item, sep + 1, item.length(), 10));
+            } catch (NumberFormatException e) {
+                log.warn("Balance cache listener: bad payload item {}", item);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.props.RateLimitProps;
+import com.example.bankcards.util.BankMetrics;
+import com.example.bankcards.util.TokenBucketRateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ограничение частоты запросов (см. {@link RateLimitInterceptor}).
+ * <p>
+ * Включается свойством {@code rate-limit.enabled=true}; правила — {@code rate-limit.rules}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    /**
+     * @param props   настройки {@code rate-limit}
+     * @param metrics метрики
+     * @return перехватчик с корзинами всех правил
+     */
+    @Bean
+    RateLimitInterceptor rateLimitInterceptor(RateLimitProps props, BankMetrics metrics) {
+        Map<String, RateLimitInterceptor.Rule> byPattern = new HashMap<>();
+        if (props.rules() != null) {
+            props.rules().forEach((name, r) -> {
+                TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(r.capacity(), r.perSecond());
+                metrics.rateLimitBucketsGauge(name, limiter);
+                RateLimitInterceptor.Rule rule = new RateLimitInterceptor.Rule(name,
+                        r.key() == null ? RateLimitProps.Key.USER : r.key(), limiter,
+                        metrics.rateLimitCounter(name, "allowed"), metrics.rateLimitCounter(name, "rejected"));
+                r.paths().forEach(path -> byPattern.put(path, rule));
+            });
+        }
+        return new RateLimitInterceptor(Map.copyOf(byPattern));
+    }
+
+    /**
+     * @param interceptor перехватчик
+     * @return регистрация перехватчика для всех маршрутов; лишние отсекаются по шаблону внутри
+     */
+    @Bean
+    WebMvcConfigurer rateLimitWebMvcConfigurer(RateLimitInterceptor interceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor);
+            }
+        };
+    }
+}
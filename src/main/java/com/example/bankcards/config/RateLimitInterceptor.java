@@ -0,0 +1,102 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.props.RateLimitProps;
+import com.example.bankcards.exception.RateLimitException;
+import com.example.bankcards.security.AppUserPrincipal;
+import com.example.bankcards.util.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты запросов одного клиента по правилам {@code rate-limit.rules}.
+ * <p>
+ * Правило выбирается по шаблону маршрута ({@link HandlerMapping#BEST_MATCHING_PATTERN_ATTRIBUTE}), поэтому
+ * проверка выполняется после аутентификации и до контроллера: лишний запрос не доходит ни до HMAC номера карты,
+ * ни до BCrypt. Превышение — {@link RateLimitException} (429 с {@code Retry-After}).
+ * <p>
+ * Ключ корзины — id пользователя из {@link AppUserPrincipal} или адрес клиента
+ * ({@code request.getRemoteAddr()}; за прокси — с {@code server.forward-headers-strategy}).
+ */
+@Slf4j
+class RateLimitInterceptor implements HandlerInterceptor {
+
+    /**
+     * Правило с ограничителем и счётчиками.
+     *
+     * @param name     имя правила (тег метрик)
+     * @param key      ключ корзины
+     * @param limiter  корзины правила
+     * @param allowed  счётчик допущенных запросов
+     * @param rejected счётчик отклонённых запросов
+     */
+    record Rule(String name, RateLimitProps.Key key, TokenBucketRateLimiter limiter,
+                Counter allowed, Counter rejected) { }
+
+    private final Map<String, Rule> rulesByPattern;
+
+    /**
+     * @param rulesByPattern правила по шаблонам маршрутов
+     */
+    RateLimitInterceptor(Map<String, Rule> rulesByPattern) {
+        this.rulesByPattern = rulesByPattern;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Rule rule = pattern == null ? null : rulesByPattern.get(pattern.toString());
+        if (rule == null) {
+            return true;
+        }
+        long waitNanos = rule.limiter().tryAcquire(keyOf(rule.key(), request));
+        if (waitNanos == 0) {
+            rule.allowed().increment();
+            return true;
+        }
+        rule.rejected().increment();
+        log.debug("Rate limit {} exceeded for {}", rule.name(), request.getRequestURI());
+        throw new RateLimitException("Too many requests, retry later",
+                Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+    }
+
+    /**
+     * Удаляет полные корзины всех правил.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval:1m}")
+    public void evictIdle() {
+        for (Rule rule : rules()) {
+            int evicted = rule.limiter().evictIdle();
+            if (evicted > 0) {
+                log.debug("Rate limit {}: evicted {} idle buckets", rule.name(), evicted);
+            }
+        }
+    }
+
+    /**
+     * @return правила без повторов (одно правило может покрывать несколько маршрутов)
+     */
+    List<Rule> rules() {
+        return rulesByPattern.values().stream().distinct().toList();
+    }
+
+    private static Object keyOf(RateLimitProps.Key key, HttpServletRequest request) {
+        if (key == RateLimitProps.Key.USER) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.getPrincipal() instanceof AppUserPrincipal principal) {
+                return principal.getId();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
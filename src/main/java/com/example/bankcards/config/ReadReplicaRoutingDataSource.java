@@ -0,0 +1,76 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.security.AppUserPrincipal;
+import com.example.bankcards.util.ReadYourWritesTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Маршрутизирующий {@link javax.sql.DataSource}: read-only транзакции — на реплику, остальные — на основной пул.
+ * <p>
+ * Правила выбора пула:
+ * <ul>
+ *   <li>Нет транзакции или транзакция на запись → {@link #PRIMARY}</li>
+ *   <li>{@code @Transactional(readOnly = true)} → {@link #REPLICA}</li>
+ *   <li>Пользователь недавно выполнил перевод ({@link ReadYourWritesTracker}) → {@link #PRIMARY}</li>
+ * </ul>
+ * Ключ вычисляется при фактическом получении соединения, поэтому источник должен быть обёрнут
+ * в {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: иначе JPA берёт
+ * соединение до того, как флаг read-only транзакции выставлен.
+ * <p>
+ * {@link #close()} закрывает пулы-цели, переданные в {@link #closeOnShutdown(List)}.
+ */
+@RequiredArgsConstructor
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ReadYourWritesTracker readYourWrites;
+
+    private List<DataSource> owned = List.of();
+
+    /**
+     * Запоминает пулы, которые нужно закрыть вместе с этим источником.
+     *
+     * @param targets пулы-цели маршрутизации
+     */
+    public void closeOnShutdown(List<DataSource> targets) {
+        this.owned = List.copyOf(targets);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource ds : owned) {
+            if (ds instanceof AutoCloseable c) {
+                c.close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return readYourWrites.isRecentWriter(currentUserId()) ? PRIMARY : REPLICA;
+    }
+
+    /**
+     * ID текущего пользователя без исключений: для анонимных запросов — {@code null}.
+     */
+    private static Long currentUserId() {
+        Authentication a = SecurityContextHolder.getContext().getAuthentication();
+        if (a != null && a.getPrincipal() instanceof AppUserPrincipal me) {
+            return me.getId();
+        }
+        return null;
+    }
+}
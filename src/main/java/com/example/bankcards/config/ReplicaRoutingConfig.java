@@ -0,0 +1,94 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.props.ReplicaProps;
+import com.example.bankcards.util.ReadYourWritesTracker;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Конфигурация чтения с реплики.
+ * <p>
+ * Включается свойством {@code datasource.replica.enabled=true}. Основной пул строится из
+ * {@code spring.datasource.*}, пул реплики — из {@code datasource.replica.*}; оба оборачиваются
+ * в {@link ReadReplicaRoutingDataSource}. Liquibase и все транзакции на запись работают с основным пулом.
+ * <p>
+ * Настройки {@code spring.datasource.hikari.*} (размер пула, таймауты, свойства драйвера)
+ * применяются к обоим пулам.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    /**
+     * Маршрутизирующий источник: основной пул и пул реплики.
+     *
+     * @param primaryProps   настройки основного пула ({@code spring.datasource})
+     * @param replicaProps   настройки реплики ({@code datasource.replica})
+     * @param readYourWrites учёт недавних записей пользователей
+     * @param environment    окружение для привязки {@code spring.datasource.hikari.*}
+     * @return маршрутизирующий источник; пулы закрываются вместе с ним
+     * @throws IllegalStateException если не задан {@code datasource.replica.url}
+     */
+    @Bean
+    public ReadReplicaRoutingDataSource routingDataSource(DataSourceProperties primaryProps,
+                                                          ReplicaProps replicaProps,
+                                                          ReadYourWritesTracker readYourWrites,
+                                                          Environment environment) {
+        if (isBlank(replicaProps.url())) {
+            throw new IllegalStateException("datasource.replica.url must be set when replica routing is enabled");
+        }
+
+        HikariDataSource primary = primaryProps.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder binder = Binder.get(environment);
+        binder.bind(HIKARI_PREFIX, Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        HikariDataSource replica = new HikariDataSource();
+        binder.bind(HIKARI_PREFIX, Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(replicaProps.url());
+        replica.setUsername(isBlank(replicaProps.username()) ? primaryProps.getUsername() : replicaProps.username());
+        replica.setPassword(isBlank(replicaProps.password()) ? primaryProps.getPassword() : replicaProps.password());
+        replica.setReadOnly(true);
+
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(readYourWrites);
+        routing.setTargetDataSources(Map.of(
+                ReadReplicaRoutingDataSource.PRIMARY, primary,
+                ReadReplicaRoutingDataSource.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.closeOnShutdown(List.of(primary, replica));
+        return routing;
+    }
+
+    /**
+     * Источник данных приложения: ленивый прокси над маршрутизирующим источником.
+     * <p>
+     * Соединение берётся только при первом запросе, когда флаг read-only транзакции уже известен.
+     *
+     * @param routing маршрутизирующий источник
+     * @return основной {@link DataSource} для JPA, JdbcTemplate и Liquibase
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static boolean isBlank(String s) { return s == null || s.isBlank(); }
+}
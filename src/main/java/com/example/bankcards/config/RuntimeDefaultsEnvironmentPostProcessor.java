@@ -0,0 +1,52 @@
+package com.example.bankcards.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Добавляет в окружение значения по умолчанию, зависящие от машины, на которой запущено приложение.
+ * <p>
+ * Источник добавляется с наименьшим приоритетом, поэтому любые явно заданные свойства
+ * (yml, переменные окружения, аргументы) его перекрывают.
+ * <ul>
+ *   <li>{@code runtime.cpu-count} — число доступных ядер</li>
+ *   <li>{@code runtime.db-pool-size} — размер пула соединений: {@code cpu * 2 + 1}, не меньше {@value #MIN_POOL_SIZE}</li>
+ * </ul>
+ * Используются в профиле {@code performance} ({@code application-performance.yml}).
+ * <p>
+ * При включённых виртуальных потоках ({@code spring.threads.virtual.enabled=true}) число одновременных
+ * обработчиков запросов больше не ограничено пулом потоков Tomcat, и единственным ограничителем работы с БД
+ * остаётся пул соединений. Поэтому в этом режиме по умолчанию задаются и его параметры:
+ * <ul>
+ *   <li>{@code spring.datasource.hikari.maximum-pool-size} = {@code runtime.db-pool-size}</li>
+ *   <li>{@code spring.datasource.hikari.connection-timeout} = {@value #VIRTUAL_CONNECTION_TIMEOUT_MS} мс —
+ *   запрос быстрее получает отказ, чем копит тысячи ожидающих потоков</li>
+ * </ul>
+ * Выполняется после загрузки {@code application.yml}, так как не реализует {@code Ordered}.
+ */
+public class RuntimeDefaultsEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String SOURCE_NAME = "runtimeDefaults";
+    static final int MIN_POOL_SIZE = 4;
+    static final long VIRTUAL_CONNECTION_TIMEOUT_MS = 2000;
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        int cpu = Runtime.getRuntime().availableProcessors();
+        int poolSize = Math.max(MIN_POOL_SIZE, cpu * 2 + 1);
+
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("runtime.cpu-count", cpu);
+        defaults.put("runtime.db-pool-size", poolSize);
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            defaults.put("spring.datasource.hikari.maximum-pool-size", poolSize);
+            defaults.put("spring.datasource.hikari.connection-timeout", VIRTUAL_CONNECTION_TIMEOUT_MS);
+        }
+        environment.getPropertySources().addLast(new MapPropertySource(SOURCE_NAME, defaults));
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.bankcards.config;
 
 import com.example.bankcards.security.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,6 +19,7 @@ import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 /**
  * Конфигурация Spring Security для REST-приложения.
@@ -25,7 +28,11 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
  * <ul>
  *   <li>Stateless-сессии и отключённый CSRF;</li>
  *   <li>JWT-аутентификация через фильтр в цепочке;</li>
- *   <li>Явные разрешения для Swagger/OpenAPI и auth-эндпоинтов;</li>
+ *   <li>Явные разрешения для Swagger/OpenAPI, auth-эндпоинтов и health/info;</li>
+ *   <li>{@code /actuator/prometheus} без аутентификации — только на порту {@code management.server.port},
+ *       который не публикуется наружу; на остальных портах — только ADMIN;</li>
+ *   <li>ASYNC-диспетчеризация (завершение SSE-потоков) пропускается: исходный запрос уже прошёл
+ *       проверку, а JWT в повторном проходе не разбирается;</li>
  *   <li>Кастомные обработчики 401/403 с JSON-ответом;</li>
  *   <li>Методовая безопасность через @PreAuthorize/@PostAuthorize.</li>
  * </ul>
@@ -35,8 +42,13 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final String PROMETHEUS = "/actuator/prometheus";
+
     private final JwtAuthFilter jwt;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     /**
      * Конфигурирует цепочку фильтров безопасности.
      *
@@ -49,13 +61,18 @@ public class SecurityConfig {
         http.csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(a -> a
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html",
                                 "/api/v1/auth/**",
-                                "/v3/api-docs.yaml"
+                                "/v3/api-docs.yaml",
+                                "/actuator/health/**",
+                                "/actuator/info"
                         ).permitAll()
+                        .requestMatchers(prometheusOnManagementPort()).permitAll()
+                        .requestMatchers(PROMETHEUS).hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(ex -> ex
@@ -66,6 +83,18 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Запрос метрик на порт управления. Порт сравнивается с локальным портом соединения,
+     * поэтому заголовки клиента на результат не влияют.
+     *
+     * @return matcher запроса {@code /actuator/prometheus} на {@code management.server.port}
+     */
+    private RequestMatcher prometheusOnManagementPort() {
+        return request -> managementPort > 0
+                && request.getLocalPort() == managementPort
+                && PROMETHEUS.equals(request.getRequestURI());
+    }
+
     /**
      * Бин кодировщика паролей.
      *
@@ -0,0 +1,84 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.mapper.BankMapper;
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.function.Supplier;
+
+/**
+ * Трассировка запросов (Micrometer Tracing поверх OpenTelemetry).
+ * <p>
+ * Span на HTTP-запрос создаёт Spring Boot ({@code http.server.requests}); идентификаторы
+ * {@code traceId}/{@code spanId} попадают в MDC и в шаблон логов. Здесь добавляются дочерние span'ы:
+ * <ul>
+ *   <li>каждый вызов репозитория Spring Data — {@code <Repository>.<метод>} (в том числе ожидание
+ *   {@code PESSIMISTIC_WRITE} в {@code findByIdAndUserIdForUpdate})</li>
+ *   <li>каждый вызов {@link BankMapper} — {@code BankMapper.<метод>}</li>
+ * </ul>
+ * Span'ы {@code JwtAuthFilter} и операций {@link com.example.bankcards.util.BankMetrics} (в том числе шифрования
+ * номера карты) создаются в самих компонентах.
+ * <p>
+ * Экспорт без коллектора: при {@code tracing.file-export.enabled=true} span'ы пишутся в формате OTLP JSON
+ * в лог {@code io.opentelemetry.exporter.logging.otlp}, который {@code logback-spring.xml} направляет
+ * в {@code logs/spans.jsonl}.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Экспортёр span'ов в лог в формате OTLP JSON (одна строка на пакет span'ов).
+     *
+     * @return экспортёр, подхватываемый автоконфигурацией OpenTelemetry
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "tracing.file-export", name = "enabled", havingValue = "true")
+    SpanExporter otlpJsonLoggingSpanExporter() {
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+
+    /**
+     * Добавляет span'ы вокруг вызовов репозиториев и {@link BankMapper}.
+     * <p>
+     * Static, чтобы не инициализировать конфигурацию раньше пост-процессоров;
+     * {@link Tracer} разрешается при первом вызове.
+     *
+     * @param tracer провайдер трассировщика
+     * @return пост-процессор бинов
+     */
+    @Bean
+    static BeanPostProcessor tracingBeanPostProcessor(ObjectProvider<Tracer> tracer) {
+        Supplier<Tracer> lazyTracer = SingletonSupplier.of(() -> tracer.getIfAvailable(() -> Tracer.NOOP));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, info) -> proxy.addAdvice(new TracingMethodInterceptor(
+                                    lazyTracer, "repository", info.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof BankMapper) {
+                    ProxyFactory proxy = new ProxyFactory(bean);
+                    proxy.setInterfaces(BankMapper.class);
+                    proxy.addAdvice(new TracingMethodInterceptor(lazyTracer, "mapper", BankMapper.class.getSimpleName()));
+                    return proxy.getProxy();
+                }
+                return bean;
+            }
+        };
+    }
+}
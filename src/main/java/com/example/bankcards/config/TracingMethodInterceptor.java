@@ -0,0 +1,49 @@
+package com.example.bankcards.config;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.function.Supplier;
+
+/**
+ * Оборачивает каждый вызов метода в дочерний span {@code <Тип>.<метод>}.
+ * <p>
+ * Имя span'а составлено из имени интерфейса и метода, поэтому набор имён конечен.
+ * Аргументы (идентификаторы, номера карт) в атрибуты не записываются.
+ */
+class TracingMethodInterceptor implements MethodInterceptor {
+
+    private final Supplier<Tracer> tracer;
+    private final String component;
+    private final String typeName;
+
+    /**
+     * @param tracer    источник {@link Tracer} (разрешается лениво, при первом вызове)
+     * @param component значение атрибута {@code bank.component}, например {@code repository}
+     * @param typeName  простое имя проксируемого интерфейса
+     */
+    TracingMethodInterceptor(Supplier<Tracer> tracer, String component, String typeName) {
+        this.tracer = tracer;
+        this.component = component;
+        this.typeName = typeName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Tracer t = tracer.get();
+        Span span = t.nextSpan()
+                .name(typeName + "." + invocation.getMethod().getName())
+                .tag("bank.component", component)
+                .start();
+        try (Tracer.SpanInScope ignored = t.withSpan(span)) {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
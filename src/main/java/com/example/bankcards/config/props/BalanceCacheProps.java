@@ -0,0 +1,33 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша балансов карт.
+ * <p>
+ * Значения берутся из {@code application.yml} / {@code application.properties}
+ * с префиксом {@code balance.cache}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * balance:
+ *   cache:
+ *     enabled: true
+ *     max-size: 100000
+ *     ttl: 30s
+ *     notify-enabled: true
+ * </pre>
+ *
+ * @param enabled       включает кэш; при {@code false} баланс всегда читается из БД
+ * @param maxSize       максимальное число карт в кэше
+ * @param ttl           время жизни записи — верхняя граница устаревания, если сигнал другого узла потерян
+ * @param notifyEnabled рассылать и слушать инвалидации через PostgreSQL {@code LISTEN/NOTIFY}
+ *                      (нужно, когда приложение запущено в нескольких экземплярах)
+ */
+@ConfigurationProperties(prefix = "balance.cache")
+public record BalanceCacheProps(boolean enabled,
+                                int maxSize,
+                                Duration ttl,
+                                boolean notifyEnabled) { }
@@ -0,0 +1,32 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки потока изменений баланса (SSE).
+ * <p>
+ * Значения берутся из {@code application.yml} / {@code application.properties}
+ * с префиксом {@code balance.stream}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * balance:
+ *   stream:
+ *     buffer-size: 16
+ *     max-per-card: 8
+ *     heartbeat: 15s
+ *     timeout: 30m
+ * </pre>
+ *
+ * @param bufferSize неотправленных событий на подписчика; при переполнении подписчик отключается
+ * @param maxPerCard одновременных потоков на одну карту
+ * @param heartbeat  интервал SSE-комментария {@code ping}, по которому обнаруживаются разорванные соединения
+ * @param timeout    время жизни потока, после которого клиент переподключается
+ */
+@ConfigurationProperties(prefix = "balance.stream")
+public record BalanceStreamProps(int bufferSize,
+                                 int maxPerCard,
+                                 Duration heartbeat,
+                                 Duration timeout) { }
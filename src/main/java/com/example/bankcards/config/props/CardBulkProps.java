@@ -0,0 +1,21 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки массовой смены статуса карт.
+ * <p>
+ * Значения берутся из {@code application.yml} / {@code application.properties}
+ * с префиксом {@code card.bulk}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * card:
+ *   bulk:
+ *     chunk-size: 500
+ * </pre>
+ *
+ * @param chunkSize карт в одной транзакции: столько строк блокируется одновременно
+ */
+@ConfigurationProperties(prefix = "card.bulk")
+public record CardBulkProps(int chunkSize) { }
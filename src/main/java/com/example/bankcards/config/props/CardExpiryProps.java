@@ -0,0 +1,35 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки фонового перевода просроченных карт в {@code EXPIRED}.
+ * <p>
+ * Значения берутся из {@code application.yml} / {@code application.properties}
+ * с префиксом {@code card.expiry}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * card:
+ *   expiry:
+ *     enabled: true
+ *     interval: 1h
+ *     chunk-size: 500
+ *     pause: 100ms
+ *     max-chunks: 200
+ * </pre>
+ *
+ * @param enabled   включает задачу
+ * @param interval  пауза между запусками
+ * @param chunkSize карт в одной транзакции
+ * @param pause     пауза между порциями; вместе с {@code chunkSize} задаёт темп (карт в секунду)
+ * @param maxChunks порций за один запуск; остаток обрабатывается следующим запуском
+ */
+@ConfigurationProperties(prefix = "card.expiry")
+public record CardExpiryProps(boolean enabled,
+                              Duration interval,
+                              int chunkSize,
+                              Duration pause,
+                              int maxChunks) { }
@@ -0,0 +1,21 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки потоковой выгрузки карт.
+ * <p>
+ * Значения берутся из {@code application.yml} / {@code application.properties}
+ * с префиксом {@code card.export}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * card:
+ *   export:
+ *     fetch-size: 1000
+ * </pre>
+ *
+ * @param fetchSize строк за одно обращение к курсору БД; с тем же шагом ответ сбрасывается клиенту
+ */
+@ConfigurationProperties(prefix = "card.export")
+public record CardExportProps(int fetchSize) { }
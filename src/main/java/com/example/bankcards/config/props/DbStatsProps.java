@@ -0,0 +1,29 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Учёт SQL-выражений на запрос.
+ * <p>
+ * Значения берутся с префиксом {@code datasource.stats}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * datasource:
+ *   stats:
+ *     enabled: true
+ *     slow-threshold: 200ms
+ *     header: false
+ * </pre>
+ *
+ * @param enabled       оборачивает {@code dataSource} в прокси, считающий выражения и время JDBC
+ * @param slowThreshold выражения не быстрее порога пишутся в лог WARN и в счётчик медленных;
+ *                      {@code null} — медленные не выделяются
+ * @param header        добавлять в ответ заголовок {@code X-DB-Stats} (отладка)
+ */
+@ConfigurationProperties(prefix = "datasource.stats")
+public record DbStatsProps(boolean enabled,
+                           Duration slowThreshold,
+                           boolean header) { }
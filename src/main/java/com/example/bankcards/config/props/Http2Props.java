@@ -0,0 +1,25 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки HTTP/2 (h2c) встроенного Tomcat, которых нет в {@code server.http2}.
+ * <p>
+ * Значения берутся с префиксом {@code network.http2}; задаются в профиле {@code network}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * network:
+ *   http2:
+ *     max-concurrent-streams: 200
+ *     keep-alive-timeout: 60s
+ * </pre>
+ *
+ * @param maxConcurrentStreams параллельных потоков (запросов) в одном соединении; {@code 0} — по умолчанию Tomcat (100)
+ * @param keepAliveTimeout     простой соединения без активных потоков до закрытия; {@code null} — по умолчанию Tomcat (20s)
+ */
+@ConfigurationProperties(prefix = "network.http2")
+public record Http2Props(int maxConcurrentStreams,
+                         Duration keepAliveTimeout) { }
@@ -0,0 +1,32 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки сверки балансов карт с журналом движений.
+ * <p>
+ * Значения берутся из {@code application.yml} / {@code application.properties}
+ * с префиксом {@code ledger.reconciliation}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * ledger:
+ *   reconciliation:
+ *     enabled: true
+ *     interval: 24h
+ *     range-size: 50000
+ *     parallelism: 4
+ * </pre>
+ *
+ * @param enabled     включает задачу
+ * @param interval    пауза между запусками
+ * @param rangeSize   диапазон id карт, проверяемый одним запросом
+ * @param parallelism диапазонов, проверяемых одновременно; каждый занимает соединение с БД
+ */
+@ConfigurationProperties(prefix = "ledger.reconciliation")
+public record LedgerReconciliationProps(boolean enabled,
+                                        Duration interval,
+                                        long rangeSize,
+                                        int parallelism) { }
@@ -0,0 +1,55 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Защита от перегрузки: адаптивные лимиты одновременных запросов по классам эндпоинтов.
+ * <p>
+ * Значения берутся из {@code application.yml} / {@code application.properties}
+ * с префиксом {@code overload}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * overload:
+ *   enabled: true
+ *   retry-after: 1s
+ *   saturation: 0.8
+ *   endpoints:
+ *     transfer:
+ *       initial-limit: 50
+ *       min-limit: 10
+ *       max-limit: 400
+ *       priority: 0
+ * </pre>
+ *
+ * @param enabled    включает фильтр; без него запросы не ограничиваются
+ * @param retryAfter значение заголовка {@code Retry-After} в ответе 503
+ * @param saturation доля лимита, при которой класс считается занятым и запросы менее приоритетных классов
+ *                   отклоняются
+ * @param endpoints  лимиты по классам: {@code transfer}, {@code balance}, {@code login}, {@code search};
+ *                   класс без настроек не ограничивается
+ */
+@ConfigurationProperties(prefix = "overload")
+public record OverloadProps(boolean enabled,
+                            Duration retryAfter,
+                            double saturation,
+                            Map<String, Limit> endpoints) {
+
+    /**
+     * @param initialLimit одновременных запросов до первых замеров
+     * @param minLimit     нижняя граница лимита
+     * @param maxLimit     верхняя граница лимита
+     * @param tolerance    допустимый рост задержки относительно обычной, после которого лимит снижается
+     * @param longWindow   окно обычной задержки в запросах
+     * @param priority     приоритет, {@code 0} — наивысший; класс отклоняется, пока занят более приоритетный
+     */
+    public record Limit(int initialLimit,
+                        int minLimit,
+                        int maxLimit,
+                        double tolerance,
+                        int longWindow,
+                        int priority) { }
+}
@@ -0,0 +1,57 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ограничение частоты запросов одного клиента (token bucket).
+ * <p>
+ * Значения берутся из {@code application.yml} / {@code application.properties}
+ * с префиксом {@code rate-limit}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * rate-limit:
+ *   enabled: true
+ *   eviction-interval: 1m
+ *   rules:
+ *     login:
+ *       paths: /api/v1/auth/login
+ *       key: ip
+ *       capacity: 10
+ *       per-second: 1
+ * </pre>
+ *
+ * @param enabled          включает ограничение
+ * @param evictionInterval период удаления полных (давно не использованных) корзин
+ * @param rules            правила по именам (имя — тег метрик)
+ */
+@ConfigurationProperties(prefix = "rate-limit")
+public record RateLimitProps(boolean enabled,
+                             Duration evictionInterval,
+                             Map<String, Rule> rules) {
+
+    /**
+     * Ключ корзины.
+     */
+    public enum Key {
+        /** id пользователя из {@code AppUserPrincipal}; без аутентификации — IP */
+        USER,
+        /** адрес клиента */
+        IP
+    }
+
+    /**
+     * @param paths     шаблоны маршрутов, как в контроллерах (например, {@code /api/v1/card/number/{cardNumber}})
+     * @param key       ключ корзины
+     * @param capacity  допустимый всплеск запросов
+     * @param perSecond устойчивая частота, запросов в секунду
+     */
+    public record Rule(List<String> paths,
+                       Key key,
+                       int capacity,
+                       double perSecond) { }
+}
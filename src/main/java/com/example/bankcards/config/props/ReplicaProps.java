@@ -0,0 +1,36 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки маршрутизации read-only транзакций на реплику БД.
+ * <p>
+ * Значения берутся из {@code application.yml} / {@code application.properties}
+ * с префиксом {@code datasource.replica}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * datasource:
+ *   replica:
+ *     enabled: true
+ *     url: jdbc:postgresql://replica:5432/bank
+ *     username: bank_ro
+ *     password: secret
+ *     read-your-writes: 2s
+ * </pre>
+ *
+ * @param enabled        включает маршрутизацию; при {@code false} используется только основной пул
+ * @param url            JDBC URL реплики
+ * @param username       пользователь реплики (если пуст — берётся пользователь основного пула)
+ * @param password       пароль реплики (если пуст — берётся пароль основного пула)
+ * @param readYourWrites окно после перевода, в течение которого чтения пользователя идут на основной пул;
+ *                       {@code null} или {@code 0} — окно отключено
+ */
+@ConfigurationProperties(prefix = "datasource.replica")
+public record ReplicaProps(boolean enabled,
+                           String url,
+                           String username,
+                           String password,
+                           Duration readYourWrites) { }
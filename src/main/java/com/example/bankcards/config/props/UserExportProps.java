@@ -0,0 +1,21 @@
+package com.example.bankcards.config.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки потоковой выгрузки пользователей.
+ * <p>
+ * Значения берутся из {@code application.yml} / {@code application.properties}
+ * с префиксом {@code user.export}.
+ *
+ * <pre>
+ * Пример конфигурации:
+ * user:
+ *   export:
+ *     fetch-size: 1000
+ * </pre>
+ *
+ * @param fetchSize строк за одно обращение к курсору БД; с тем же шагом ответ сбрасывается клиенту
+ */
+@ConfigurationProperties(prefix = "user.export")
+public record UserExportProps(int fetchSize) { }
@@ -1,6 +1,7 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.service.JwtService;
+import com.example.bankcards.util.BankMetrics;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -34,6 +35,7 @@ public class AuthController {
     private final AuthenticationManager authManager;
     private final JwtService jwtService;
     private final UserDetailsService uds;
+    private final BankMetrics metrics;
 
     /**
      * DTO для передачи учётных данных пользователя при входе.
@@ -87,9 +89,11 @@ public class AuthController {
             )
             @org.springframework.web.bind.annotation.RequestBody LoginRequest r
     ) {
-        var auth = new UsernamePasswordAuthenticationToken(r.email(), r.password());
-        authManager.authenticate(auth);
-        var user = uds.loadUserByUsername(r.email());
-        return ResponseEntity.ok(new TokenResponse(jwtService.generateToken(user)));
+        return metrics.timed(BankMetrics.LOGIN, () -> {
+            var auth = new UsernamePasswordAuthenticationToken(r.email(), r.password());
+            authManager.authenticate(auth);
+            var user = uds.loadUserByUsername(r.email());
+            return ResponseEntity.ok(new TokenResponse(jwtService.generateToken(user)));
+        });
     }
 }
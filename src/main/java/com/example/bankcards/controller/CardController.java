@@ -1,10 +1,16 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.CardBulkStatusDto;
+import com.example.bankcards.dto.CardBulkStatusResultDto;
 import com.example.bankcards.dto.CardCreateDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardExportFormat;
 import com.example.bankcards.dto.CardSearchRequestDto;
 import com.example.bankcards.dto.CardUpdateDto;
+import com.example.bankcards.dto.FieldSelection;
+import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,11 +22,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springdoc.core.annotations.ParameterObject;
-import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Optional;
 
 /**
  * REST-контроллер для работы с банковскими картами.
@@ -29,8 +41,10 @@ import org.springframework.web.bind.annotation.*;
  * <ul>
  *   <li>Создание карт (администратор)</li>
  *   <li>Получение списка карт с фильтрами и пагинацией</li>
+ *   <li>Потоковая выгрузка карт в NDJSON/CSV (администратор)</li>
  *   <li>Получение карты по ID или номеру</li>
  *   <li>Частичное обновление данных карты</li>
+ *   <li>Массовая смена статуса карт (администратор)</li>
  *   <li>Удаление карты</li>
  * </ul>
  */
@@ -75,30 +89,69 @@ public class CardController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Список карт получен",
                     content = @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = Page.class))),
+                            schema = @Schema(implementation = PageResponse.class))),
             @ApiResponse(responseCode = "400", description = "Некорректные параметры"),
             @ApiResponse(responseCode = "401", description = "Не авторизован"),
             @ApiResponse(responseCode = "403", description = "Нет прав")
     })
-    public ResponseEntity<Page<CardDto>> getAllCards(CardSearchRequestDto request
+    public ResponseEntity<PageResponse<CardDto>> getAllCards(CardSearchRequestDto request,
+            @Parameter(description = "Поля карты в ответе через запятую; по умолчанию — все", example = "id,balance")
+            @RequestParam(required = false) String fields
     ) {
-        Page<CardDto> result = cardService.getCards(request);
+        PageResponse<CardDto> result = PageResponse.of(cardService.getCards(request, FieldSelection.of(fields, null)));
         return ResponseEntity.ok(result);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Выгрузить карты (NDJSON/CSV)",
+            description = "Потоковая выгрузка всех карт по фильтрам списка (userId, last4, status, expirationFrom, "
+                    + "expirationTo, balanceMin, balanceMax, createdFrom, createdTo) одним запросом, по возрастанию ID. "
+                    + "page, size и sort не применяются. format: ndjson (по умолчанию) или csv"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Выгрузка начата",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "400", description = "Некорректные параметры", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Не авторизован", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Нет прав", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            CardSearchRequestDto request,
+            @Parameter(description = "Формат: ndjson или csv", example = "csv")
+            @RequestParam(required = false) String format) {
+        CardExportFormat exportFormat = CardExportFormat.of(format);
+        StreamingResponseBody body = cardService.exportCards(request, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.mediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("cards." + exportFormat.extension()).build().toString())
+                .body(body);
+    }
+
     @GetMapping("{cardId}")
     @PreAuthorize("hasAnyRole('ADMIN','USER')")
-    @Operation(summary = "Получить карту по ID")
+    @Operation(summary = "Получить карту по ID",
+            description = "Ответ содержит ETag; при совпадении If-None-Match возвращается 304 без тела")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Карта найдена",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = CardDto.class))),
+            @ApiResponse(responseCode = "304", description = "Карта не изменилась", content = @Content),
             @ApiResponse(responseCode = "404", description = "Карта не найдена", content = @Content)
     })
     public ResponseEntity<CardDto> getCard(
             @Parameter(description = "ID карты", example = "1001", required = true)
-            @PathVariable Long cardId) {
-        return ResponseEntity.ok(cardService.getCard(cardId));
+            @PathVariable Long cardId,
+            @Parameter(description = "Поля карты в ответе через запятую; по умолчанию — все", example = "id,balance")
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        Optional<Long> version = cardService.findCardVersion(cardId);
+        if (version.isPresent() && webRequest.checkNotModified(ETags.card(cardId, version.get()))) {
+            return null;
+        }
+        return ResponseEntity.ok(cardService.getCard(cardId, FieldSelection.of(fields, null)));
     }
 
     @GetMapping("/number/{cardNumber}")
@@ -135,6 +188,29 @@ public class CardController {
         return ResponseEntity.ok(cardService.updateCard(cardUpdateDto));
     }
 
+    @PatchMapping(value = "/bulk-status", consumes = "application/json", produces = "application/json")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Массово изменить статус карт",
+            description = "Карты задаются списком cardIds (до 10000) или фильтрами списка карт в filter "
+                    + "(page, size и sort не применяются, нужен хотя бы один фильтр). Изменение идёт порциями "
+                    + "в отдельных транзакциях; карты, уже имеющие этот статус, не изменяются")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Статусы изменены",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CardBulkStatusResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "Некорректные данные", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Не авторизован", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Нет прав", content = @Content)
+    })
+    public ResponseEntity<CardBulkStatusResultDto> updateCardStatuses(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Новый статус и карты",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = CardBulkStatusDto.class)))
+            @org.springframework.web.bind.annotation.RequestBody @Valid CardBulkStatusDto dto) {
+        return ResponseEntity.ok(cardService.updateCardStatuses(dto));
+    }
+
     @DeleteMapping("/{cardId}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Удалить карту")
@@ -1,8 +1,10 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BalanceEventDto;
 import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.dto.TransferResultDto;
 import com.example.bankcards.service.TransferService;
+import com.example.bankcards.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -18,12 +20,16 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 
 /**
  * REST-контроллер для операций с транзакциями и балансом карт.
@@ -32,6 +38,7 @@ import java.math.BigDecimal;
  * <ul>
  *   <li>Перевод средств между картами</li>
  *   <li>Запрос текущего баланса по ID/номеру карты</li>
+ *   <li>Поток изменений баланса (SSE)</li>
  * </ul>
  */
 @RestController
@@ -89,21 +96,53 @@ public class TransactionsController {
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
     @Operation(
             summary = "Получение баланса по ID карты",
-            description = "Возвращает текущий баланс карты по её идентификатору"
+            description = "Возвращает текущий баланс карты по её идентификатору. Ответ содержит ETag; "
+                    + "при совпадении If-None-Match возвращается 304 без тела"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Баланс успешно получен",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = BigDecimal.class),
                             examples = @ExampleObject(value = "12345.67"))),
+            @ApiResponse(responseCode = "304", description = "Баланс не изменился"),
             @ApiResponse(responseCode = "404", description = "Карта не найдена")
     })
     public ResponseEntity<BigDecimal> getBalanceByID(
             @Parameter(description = "ID карты", example = "1001", required = true)
-            @PathVariable @Positive(message = "cardId must be > 0") Long cardId) {
+            @PathVariable @Positive(message = "cardId must be > 0") Long cardId,
+            WebRequest webRequest) {
+        Optional<Long> version = transferService.findBalanceVersion(cardId);
+        if (version.isPresent() && webRequest.checkNotModified(ETags.balance(cardId, version.get()))) {
+            return null;
+        }
         return ResponseEntity.ok(transferService.getBalance(cardId));
     }
 
+    /**
+     * Поток изменений баланса карты (Server-Sent Events) вместо периодического опроса.
+     */
+    @GetMapping(value = "/{cardId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    @Operation(
+            summary = "Поток изменений баланса карты",
+            description = "SSE-поток: первое событие balance — текущий баланс, далее — баланс после каждого "
+                    + "перевода по карте. Каждые balance.stream.heartbeat отправляется комментарий ping. "
+                    + "Медленный клиент отключается; после переподключения снова приходит текущий баланс"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Поток открыт",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = BalanceEventDto.class))),
+            @ApiResponse(responseCode = "403", description = "Карта принадлежит другому пользователю"),
+            @ApiResponse(responseCode = "404", description = "Карта не найдена"),
+            @ApiResponse(responseCode = "429", description = "На карту открыто слишком много потоков")
+    })
+    public SseEmitter streamBalance(
+            @Parameter(description = "ID карты", example = "1001", required = true)
+            @PathVariable @Positive(message = "cardId must be > 0") Long cardId) {
+        return transferService.streamBalance(cardId);
+    }
+
     /**
      * Получение текущего баланса по номеру карты.
      */
@@ -1,10 +1,14 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.FieldSelection;
+import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.dto.UserCreateDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.UserSearchRequestDto;
 import com.example.bankcards.dto.UserUpdateDto;
+import com.example.bankcards.repository.UserVersionStamp;
 import com.example.bankcards.service.UserService;
+import com.example.bankcards.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -17,11 +21,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Optional;
 
 /**
  * REST-контроллер для операций с пользователями.
@@ -81,35 +91,52 @@ public class UserController {
     /**
      * Получить пользователя по его ID.
      *
-     * @param userId идентификатор пользователя
+     * @param userId     идентификатор пользователя
+     * @param fields     поля пользователя в ответе (по умолчанию — все)
+     * @param expand     раскрываемые связи: {@code cards}
+     * @param webRequest запрос (для проверки If-None-Match)
      * @return DTO пользователя
      * <p>
      * Возможные ответы:
      * <ul>
      *   <li>200 – пользователь найден</li>
+     *   <li>304 – пользователь и его карты не изменились с версии из If-None-Match</li>
      *   <li>404 – пользователь не найден</li>
      * </ul>
      */
     @GetMapping("/{userId}")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Получить пользователя по ID")
+    @Operation(summary = "Получить пользователя по ID",
+            description = "Ответ содержит ETag; при совпадении If-None-Match возвращается 304 без тела")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Пользователь найден",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = UserDto.class))),
+            @ApiResponse(responseCode = "304", description = "Пользователь и его карты не изменились", content = @Content),
             @ApiResponse(responseCode = "401", description = "Не авторизован", content = @Content),
             @ApiResponse(responseCode = "403", description = "Нет прав", content = @Content),
             @ApiResponse(responseCode = "404", description = "Пользователь не найден", content = @Content)
     })
     public ResponseEntity<UserDto> getUser(
             @Parameter(description = "ID пользователя", required = true)
-            @PathVariable Long userId) {
-        return ResponseEntity.ok(userService.getUser(userId));
+            @PathVariable Long userId,
+            @Parameter(description = "Поля пользователя в ответе через запятую; по умолчанию — все", example = "id,email")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Раскрываемые связи: cards (без него карты не загружаются)", example = "cards")
+            @RequestParam(required = false) String expand,
+            WebRequest webRequest) {
+        Optional<UserVersionStamp> stamp = userService.findUserVersion(userId);
+        if (stamp.isPresent() && webRequest.checkNotModified(ETags.user(userId, stamp.get()))) {
+            return null;
+        }
+        return ResponseEntity.ok(userService.getUser(userId, FieldSelection.of(fields, expand)));
     }
 
     /**
      * Получить список пользователей с фильтрацией, пагинацией и сортировкой.
      *
+     * @param fields поля пользователя в ответе (по умолчанию — все)
+     * @param expand раскрываемые связи: {@code cards}
      * @return страница с пользователями
      * <p>
      * Возможные ответы:
@@ -126,34 +153,76 @@ public class UserController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Список пользователей получен",
                     content = @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = Page.class))),
+                            schema = @Schema(implementation = PageResponse.class))),
             @ApiResponse(responseCode = "401", description = "Не авторизован", content = @Content),
             @ApiResponse(responseCode = "403", description = "Нет прав", content = @Content)
     })
-    public ResponseEntity<Page<UserDto>> getAllUsers(
-            UserSearchRequestDto request
+    public ResponseEntity<PageResponse<UserDto>> getAllUsers(
+            UserSearchRequestDto request,
+            @Parameter(description = "Поля пользователя в ответе через запятую; по умолчанию — все", example = "id,email")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Раскрываемые связи: cards (без него карты не загружаются)", example = "cards")
+            @RequestParam(required = false) String expand
     ) {
-        Page<UserDto> result = userService.getUsers(request);
+        PageResponse<UserDto> result = PageResponse.of(userService.getUsers(request, FieldSelection.of(fields, expand)));
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Выгрузить пользователей с агрегатами по картам (NDJSON).
+     *
+     * @return поток строк NDJSON, по одному пользователю на строку
+     * <p>
+     * Возможные ответы:
+     * <ul>
+     *   <li>200 – выгрузка начата</li>
+     * </ul>
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Выгрузить пользователей (NDJSON)",
+            description = "Потоковая выгрузка всех пользователей по фильтрам name, email, role, isActive одним запросом, "
+                    + "по возрастанию ID. Для каждого пользователя — cardCount, totalBalance, activeCardCount. "
+                    + "page, size и sort не применяются"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Выгрузка начата",
+                    content = @Content(mediaType = "application/x-ndjson")),
+            @ApiResponse(responseCode = "401", description = "Не авторизован", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Нет прав", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportUsers(UserSearchRequestDto request) {
+        StreamingResponseBody body = userService.exportUsers(request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("users.ndjson").build().toString())
+                .body(body);
+    }
+
     /**
      * Удалить пользователя по его ID.
      *
      * @param userId идентификатор пользователя
-     * @return пустой ответ со статусом 204
+     * @return пустой ответ со статусом 204 или 202
      * <p>
      * Возможные ответы:
      * <ul>
-     *   <li>204 – пользователь удалён</li>
+     *   <li>204 – пользователь удалён (карт не было)</li>
+     *   <li>202 – пользователь деактивирован, карты заблокированы; карты будут перенесены в архив,
+     *       а пользователь удалён фоновой задачей</li>
      *   <li>404 – пользователь не найден</li>
      * </ul>
      */
     @DeleteMapping("/{userId}")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Удалить пользователя")
+    @Operation(summary = "Удалить пользователя",
+            description = "Пользователь без карт удаляется сразу (204). Пользователь с картами деактивируется, "
+                    + "его карты блокируются, а архивация карт и удаление выполняются в фоне порциями (202)")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Пользователь удалён"),
+            @ApiResponse(responseCode = "202", description = "Пользователь деактивирован, удаление запланировано"),
             @ApiResponse(responseCode = "401", description = "Не авторизован", content = @Content),
             @ApiResponse(responseCode = "403", description = "Нет прав", content = @Content),
             @ApiResponse(responseCode = "404", description = "Пользователь не найден", content = @Content)
@@ -161,7 +230,37 @@ public class UserController {
     public ResponseEntity<Void> deleteUser(
             @Parameter(description = "ID пользователя", required = true)
             @PathVariable Long userId) {
-        userService.deleteUser(userId);
+        return userService.deleteUser(userId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Деактивировать пользователя и заблокировать его карты.
+     *
+     * @param userId идентификатор пользователя
+     * @return пустой ответ со статусом 204
+     * <p>
+     * Возможные ответы:
+     * <ul>
+     *   <li>204 – пользователь деактивирован, активные карты заблокированы</li>
+     *   <li>404 – пользователь не найден</li>
+     * </ul>
+     */
+    @PostMapping("/{userId}/deactivate")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Деактивировать пользователя",
+            description = "Снимает флаг активности и блокирует все активные карты пользователя в одной транзакции")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Пользователь деактивирован"),
+            @ApiResponse(responseCode = "401", description = "Не авторизован", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Нет прав", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден", content = @Content)
+    })
+    public ResponseEntity<Void> deactivateUser(
+            @Parameter(description = "ID пользователя", required = true)
+            @PathVariable Long userId) {
+        userService.deactivateUser(userId);
         return ResponseEntity.noContent().build();
     }
 
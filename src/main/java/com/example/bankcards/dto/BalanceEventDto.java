@@ -0,0 +1,24 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO — событие потока баланса карты (SSE).
+ * <p>
+ * Первое событие потока — текущий баланс, последующие — баланс после каждого зафиксированного перевода.
+ *
+ * @param cardId  ID карты
+ * @param balance баланс после изменения
+ * @param version версия карты; события с меньшей версией не отправляются
+ */
+@Schema(description = "Изменение баланса карты")
+public record BalanceEventDto(
+        @Schema(description = "ID карты", example = "1001")
+        Long cardId,
+        @Schema(description = "Баланс карты", example = "12345.67")
+        BigDecimal balance,
+        @Schema(description = "Версия карты", example = "7")
+        Long version
+) { }
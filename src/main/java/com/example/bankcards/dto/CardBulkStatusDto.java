@@ -0,0 +1,36 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO массовой смены статуса карт.
+ * <p>
+ * Карты задаются ровно одним способом: списком ID или фильтром списка карт.
+ *
+ * @param status  новый статус
+ * @param cardIds ID карт (не больше {@value #MAX_IDS})
+ * @param filter  фильтры как у {@code GET /api/v1/card}; page, size и sort не применяются,
+ *                нужен хотя бы один фильтр
+ */
+@Schema(description = "Массовая смена статуса карт по списку ID или по фильтру")
+public record CardBulkStatusDto(
+        @Schema(description = "Новый статус", example = "BLOCKED",
+                allowableValues = {"ACTIVE", "BLOCKED", "EXPIRED"})
+        @NotNull
+        CardStatus status,
+
+        @Schema(description = "ID карт; не задаётся вместе с filter", example = "[1001, 1002]")
+        @Size(max = MAX_IDS)
+        List<@NotNull @Positive Long> cardIds,
+
+        @Schema(description = "Фильтры списка карт; не задаётся вместе с cardIds")
+        CardSearchRequestDto filter) {
+
+    public static final int MAX_IDS = 10_000;
+}
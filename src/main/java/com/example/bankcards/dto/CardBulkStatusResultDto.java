@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * DTO — результат массовой смены статуса карт.
+ *
+ * @param status  установленный статус
+ * @param matched сколько карт найдено по ID или фильтру
+ * @param updated сколько карт изменено (карты, уже имевшие этот статус, не изменяются)
+ */
+@Schema(description = "Результат массовой смены статуса карт")
+public record CardBulkStatusResultDto(
+        @Schema(description = "Установленный статус", example = "BLOCKED")
+        CardStatus status,
+        @Schema(description = "Найдено карт", example = "120")
+        long matched,
+        @Schema(description = "Изменено карт", example = "118")
+        long updated
+) { }
@@ -1,6 +1,7 @@
 package com.example.bankcards.dto;
 
 import com.example.bankcards.entity.StandardCard;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.math.BigDecimal;
@@ -15,9 +16,11 @@ import java.math.BigDecimal;
  * @param status     статус карты (например, ACTIVE, BLOCKED, EXPIRED)
  * @param balance    текущий баланс карты
  * @param expiration срок действия карты (строка, например "2025-12-31T00:00")
+ * @see com.example.bankcards.config.FieldsFilterAdvice
  */
 
 @Schema(description = "Карта")
+@JsonFilter("CardDto")
 public record CardDto(Long id,
                       @Schema(description = "ID карты", example = "42")
                       String cardNumber,
@@ -0,0 +1,53 @@
+package com.example.bankcards.dto;
+
+import java.util.Locale;
+
+/**
+ * Формат выгрузки карт.
+ */
+public enum CardExportFormat {
+
+    /**
+     * Одна JSON-строка на карту.
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    /**
+     * CSV с заголовком.
+     */
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    CardExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Разбирает параметр запроса без учёта регистра.
+     *
+     * @param value {@code ndjson} или {@code csv}
+     * @return формат
+     * @throws IllegalArgumentException если формат не поддерживается
+     */
+    public static CardExportFormat of(String value) {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("format must be ndjson or csv");
+        }
+    }
+}
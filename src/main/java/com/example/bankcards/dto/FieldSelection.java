@@ -0,0 +1,87 @@
+package com.example.bankcards.dto;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Запрошенный состав ответа: параметры {@code ?fields=id,balance} и {@code ?expand=cards}.
+ * <p>
+ * Без {@code fields} возвращаются все простые поля; связи (например, карты пользователя)
+ * загружаются и возвращаются только если перечислены в {@code expand}.
+ * Неизвестные имена игнорируются.
+ *
+ * @param fields запрошенные поля; пустое множество — все
+ * @param expand раскрываемые связи
+ */
+public record FieldSelection(Set<String> fields, Set<String> expand) {
+
+    /**
+     * Все простые поля, без связей.
+     */
+    public static final FieldSelection DEFAULT = new FieldSelection(Set.of(), Set.of());
+
+    public FieldSelection {
+        fields = Set.copyOf(fields);
+        expand = Set.copyOf(expand);
+    }
+
+    /**
+     * Разбирает значения параметров запроса (списки через запятую).
+     *
+     * @param fields значение {@code fields} или {@code null}
+     * @param expand значение {@code expand} или {@code null}
+     * @return выбор полей
+     */
+    public static FieldSelection of(String fields, String expand) {
+        Set<String> f = parse(fields);
+        Set<String> e = parse(expand);
+        return f.isEmpty() && e.isEmpty() ? DEFAULT : new FieldSelection(f, e);
+    }
+
+    /**
+     * @return {@code true}, если простое поле нужно вычислить и вернуть
+     */
+    public boolean includes(String field) {
+        return fields.isEmpty() || fields.contains(field);
+    }
+
+    /**
+     * @return {@code true}, если связь нужно загрузить и вернуть
+     */
+    public boolean expands(String association) {
+        return expand.contains(association);
+    }
+
+    /**
+     * @return {@code true}, если запрошены все простые поля
+     */
+    public boolean allFields() {
+        return fields.isEmpty();
+    }
+
+    /**
+     * Имена свойств, остающихся в JSON: запрошенные поля и раскрытые связи.
+     *
+     * @return множество имён; пустое — без фильтрации
+     */
+    public Set<String> rendered() {
+        if (fields.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> names = new HashSet<>(fields);
+        names.addAll(expand);
+        return names;
+    }
+
+    private static Set<String> parse(String value) {
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
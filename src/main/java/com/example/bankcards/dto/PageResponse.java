@@ -0,0 +1,44 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Страница результатов во внешнем API.
+ * <p>
+ * Заменяет сериализацию {@link Page} напрямую: без блоков {@code pageable} и {@code sort},
+ * состав полей не зависит от версии Spring Data.
+ *
+ * @param content       элементы страницы
+ * @param page          номер страницы (начиная с 0)
+ * @param size          размер страницы
+ * @param totalElements всего элементов
+ * @param totalPages    всего страниц
+ * @param <T>           тип элемента
+ */
+@Schema(name = "PageResponse", description = "Страница результатов")
+public record PageResponse<T>(
+        @Schema(description = "Элементы страницы")
+        List<T> content,
+        @Schema(description = "Номер страницы (начиная с 0)", example = "0")
+        int page,
+        @Schema(description = "Размер страницы", example = "20")
+        int size,
+        @Schema(description = "Всего элементов", example = "137")
+        long totalElements,
+        @Schema(description = "Всего страниц", example = "7")
+        int totalPages) {
+
+    /**
+     * Создаёт ответ из страницы Spring Data.
+     *
+     * @param page страница
+     * @return DTO страницы
+     */
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages());
+    }
+}
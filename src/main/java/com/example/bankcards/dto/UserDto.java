@@ -1,6 +1,8 @@
 package com.example.bankcards.dto;
 
 import com.example.bankcards.entity.UserRole;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,10 +14,13 @@ import java.util.List;
 /**
  * DTO для представления пользователя во внешнем API.
  *
- * Содержит основную информацию о пользователе и его картах.
+ * Содержит основную информацию о пользователе; карты — только при {@code expand=cards}.
+ *
+ * @see com.example.bankcards.config.FieldsFilterAdvice
  */
 
 @Schema(description = "Пользователь")
+@JsonFilter("UserDto")
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,7 +33,8 @@ public class UserDto {
     public String name;
     @Schema(description = "Email пользователя", example = "ivan@example.com")
     public String email;
-    @Schema(description = "Привязанные карты пользователя")
+    @Schema(description = "Привязанные карты пользователя (только при expand=cards)")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public List<CardDto> cards;
     @Schema(description = "Роль пользователя", example = "ADMIN")
     public UserRole role;
@@ -7,6 +7,7 @@ import jakarta.persistence.Inheritance;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -35,6 +36,7 @@ public abstract class BaseUser implements User {
     @Column(nullable = false)
     public String email;
     @OneToMany(mappedBy = "user", fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     public List<BaseCard> cards;
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
@@ -51,4 +53,7 @@ public abstract class BaseUser implements User {
     private Long version;
     @Column(name = "password_hash", nullable = false)
     private String passwordHash;
+    /** Момент запроса удаления; пока задан, карты архивирует {@code UserPurgeJob}, затем пользователь удаляется */
+    @Column(name = "purge_requested_at")
+    private LocalDateTime purgeRequestedAt;
 }
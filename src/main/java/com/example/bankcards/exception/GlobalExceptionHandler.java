@@ -2,14 +2,18 @@ package com.example.bankcards.exception;
 
 
 import com.example.bankcards.dto.ErrorResponseDto;
+import com.example.bankcards.util.BankMetrics;
 import jakarta.persistence.LockTimeoutException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
 import org.apache.coyote.BadRequestException;
 import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DeadlockLoserDataAccessException;
 import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
@@ -26,8 +30,11 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import java.time.LocalDateTime;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final BankMetrics metrics;
+
     /**
      * Not found
      */
@@ -101,6 +108,14 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
     }
 
+    /**
+     * Нарушение ограничения БД (внешний ключ, уникальность) → 409, без текста SQL-ошибки
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponseDto> handleConflict(DataIntegrityViolationException ex, HttpServletRequest request) {
+        return buildResponse(HttpStatus.CONFLICT, "Operation conflicts with existing data", request);
+    }
+
     /**
      * Illegal argument
      */
@@ -186,7 +201,7 @@ public class GlobalExceptionHandler {
     }
 
     /**
-     * Exceptions of transactions
+     * Exceptions of transactions (counted in {@value BankMetrics#LOCK_TIMEOUTS})
      */
     @ExceptionHandler({
             LockTimeoutException.class,
@@ -195,9 +210,29 @@ public class GlobalExceptionHandler {
             TransactionTimedOutException.class
     })
     public ResponseEntity<ErrorResponseDto> handTransactionTimeout(RuntimeException ex, HttpServletRequest request) {
+        metrics.lockTimeout(ex);
         return buildResponse(HttpStatus.LOCKED, ex.getMessage(), request);
     }
 
+    /**
+     * Too many balance streams for one card
+     */
+    @ExceptionHandler(StreamLimitException.class)
+    public ResponseEntity<ErrorResponseDto> handleStreamLimitException(StreamLimitException ex, HttpServletRequest request) {
+        return buildResponse(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), request);
+    }
+
+    /**
+     * Too many requests from one client (rate limit)
+     */
+    @ExceptionHandler(RateLimitException.class)
+    public ResponseEntity<ErrorResponseDto> handleRateLimitException(RateLimitException ex, HttpServletRequest request) {
+        ResponseEntity<ErrorResponseDto> response = buildResponse(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), request);
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
     /**
      * Build response (ErrorResponseDto)
      */
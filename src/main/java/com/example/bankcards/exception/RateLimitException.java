@@ -0,0 +1,20 @@
+package com.example.bankcards.exception;
+
+/**
+ * Превышена частота запросов клиента; отвечается 429 с {@code Retry-After}.
+ * <p>
+ * Без стека: бросается на каждый лишний запрос клиента, превысившего лимит.
+ */
+public class RateLimitException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
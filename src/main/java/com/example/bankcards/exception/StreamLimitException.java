@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class StreamLimitException extends RuntimeException {
+    public StreamLimitException(String message) {
+        super(message);
+    }
+}
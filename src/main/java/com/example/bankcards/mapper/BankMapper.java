@@ -1,34 +1,72 @@
 package com.example.bankcards.mapper;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.FieldSelection;
 import com.example.bankcards.dto.UserCreateDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.*;
-import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
-import org.mapstruct.MappingTarget;
 
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @Mapper(componentModel = "spring")
 public interface BankMapper {
 
     DateTimeFormatter MMYY = DateTimeFormatter.ofPattern("MM/yy");
 
-    @Mapping(target = "cardNumber",
-            expression = "java(\"**** **** **** \" + card.getCardNumberLast4())")
+    @Mapping(target = "cardNumber", expression = "java(maskedNumber(card))")
     @Mapping(target = "status", expression = "java(card.getCardStatus().name())")
-    @Mapping(target = "expiration",
-            expression = "java(card.getExpiration().format(MMYY))")
+    @Mapping(target = "expiration", expression = "java(expiration(card))")
     CardDto cardToCardDto(BaseCard card);
 
-    @AfterMapping
-    default void fillEmptyCards(BaseUser src, @MappingTarget UserDto dto) {
-        if (dto.cards == null) dto.cards = java.util.Collections.emptyList();
+    /**
+     * Карта только с запрошенными полями: остальные не вычисляются и остаются {@code null}.
+     */
+    default CardDto cardToCardDto(BaseCard card, FieldSelection select) {
+        if (select.allFields()) {
+            return cardToCardDto(card);
+        }
+        return new CardDto(
+                select.includes("id") ? card.getId() : null,
+                select.includes("cardNumber") ? maskedNumber(card) : null,
+                select.includes("status") ? card.getCardStatus().name() : null,
+                select.includes("balance") ? card.getBalance() : null,
+                select.includes("expiration") ? expiration(card) : null);
     }
 
-
+    /**
+     * Пользователь без карт: коллекция {@code cards} не читается (и не загружается лениво).
+     */
+    @Mapping(target = "cards", ignore = true)
     UserDto userToUserDTO(BaseUser user);
+
+    /**
+     * Пользователь только с запрошенными полями; карты читаются только при {@code expand=cards}.
+     */
+    default UserDto userToUserDTO(BaseUser user, FieldSelection select) {
+        UserDto dto = select.allFields() ? userToUserDTO(user) : UserDto.builder()
+                .id(user.getId())
+                .name(select.includes("name") ? user.getName() : null)
+                .email(select.includes("email") ? user.getEmail() : null)
+                .role(select.includes("role") ? user.getRole() : null)
+                .isActive(user.isActive())
+                .createdAt(select.includes("createdAt") ? user.getCreatedAt() : null)
+                .build();
+        if (select.expands("cards")) {
+            dto.cards = user.getCards() == null ? List.of() : user.getCards().stream().map(this::cardToCardDto).toList();
+        }
+        return dto;
+    }
+
     StandardUser userCreateDtoToUser(UserCreateDto userDto);
+
+    default String maskedNumber(BaseCard card) {
+        return "**** **** **** " + card.getCardNumberLast4();
+    }
+
+    default String expiration(BaseCard card) {
+        return card.getExpiration().format(MMYY);
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.BaseCard;
+import com.example.bankcards.entity.CardStatus;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Массовые изменения карт порциями, без загрузки сущностей.
+ */
+public interface CardBulkRepository {
+
+    /**
+     * Блокирует на запись порцию карт по спецификации в порядке ID, начиная после {@code afterId}.
+     * <p>
+     * Вызывать внутри транзакции. Порядок ID совпадает с порядком блокировок перевода
+     * (меньший ID первым), поэтому взаимоблокировок с переводами нет.
+     *
+     * @param spec    фильтры {@link com.example.bankcards.repository.spec.CardSpecs}
+     * @param afterId ID последней карты предыдущей порции (0 — с начала)
+     * @param limit   размер порции
+     * @return ID заблокированных карт по возрастанию
+     */
+    List<Long> lockIdsAfter(Specification<BaseCard> spec, long afterId, int limit);
+
+    /**
+     * Одним {@code UPDATE} меняет статус карт, у которых он отличается от {@code status};
+     * увеличивает версию и {@code modified_at}.
+     *
+     * @param ids        ID карт
+     * @param status     новый статус
+     * @param modifiedAt время изменения
+     * @return изменённые карты с новыми версиями
+     */
+    List<CardVersionRow> updateStatus(List<Long> ids, CardStatus status, LocalDateTime modifiedAt);
+
+    /**
+     * Одним {@code UPDATE} блокирует все активные карты пользователя;
+     * увеличивает версию и {@code modified_at}. Истёкшие и уже заблокированные карты не изменяются.
+     *
+     * @param userId     ID владельца
+     * @param modifiedAt время изменения
+     * @return заблокированные карты с новыми версиями
+     */
+    List<CardVersionRow> blockByUserId(long userId, LocalDateTime modifiedAt);
+}
@@ -0,0 +1,89 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.BaseCard;
+import com.example.bankcards.entity.CardStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Реализация {@link CardBulkRepository}.
+ * <p>
+ * Выбор порции — Criteria-запрос по спецификации с {@code FOR UPDATE}, изменение — один
+ * {@code UPDATE ... WHERE id = ANY(?) RETURNING} на порцию: текст выражения не зависит от размера порции.
+ */
+class CardBulkRepositoryImpl implements CardBulkRepository {
+
+    static final String UPDATE_STATUS_SQL = """
+            update cards
+               set card_status = ?, version = version + 1, modified_at = ?
+             where id = any(?)
+               and card_status <> ?
+            returning id, version
+            """;
+
+    static final String BLOCK_BY_USER_SQL = """
+            update cards
+               set card_status = 'BLOCKED', version = version + 1, modified_at = ?
+             where user_id = ?
+               and card_status = 'ACTIVE'
+            returning id, version
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final JdbcTemplate jdbc;
+
+    CardBulkRepositoryImpl(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public List<Long> lockIdsAfter(Specification<BaseCard> spec, long afterId, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> q = cb.createQuery(Long.class);
+        Root<BaseCard> c = q.from(BaseCard.class);
+
+        Predicate after = cb.greaterThan(c.get("id"), afterId);
+        Predicate where = spec == null ? null : spec.toPredicate(c, q, cb);
+        q.select(c.get("id"))
+                .where(where == null ? after : cb.and(after, where))
+                .orderBy(cb.asc(c.get("id")));
+
+        return em.createQuery(q)
+                .setMaxResults(limit)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint("jakarta.persistence.lock.timeout", 3000)
+                .getResultList();
+    }
+
+    @Override
+    public List<CardVersionRow> updateStatus(List<Long> ids, CardStatus status, LocalDateTime modifiedAt) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.query(UPDATE_STATUS_SQL, ps -> {
+            ps.setString(1, status.name());
+            ps.setTimestamp(2, Timestamp.valueOf(modifiedAt));
+            ps.setArray(3, ps.getConnection().createArrayOf("bigint", ids.toArray()));
+            ps.setString(4, status.name());
+        }, (rs, i) -> new CardVersionRow(rs.getLong(1), rs.getLong(2)));
+    }
+
+    @Override
+    public List<CardVersionRow> blockByUserId(long userId, LocalDateTime modifiedAt) {
+        return jdbc.query(BLOCK_BY_USER_SQL, (rs, i) -> new CardVersionRow(rs.getLong(1), rs.getLong(2)),
+                Timestamp.valueOf(modifiedAt), userId);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.BaseCard;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+/**
+ * Потоковое чтение карт для выгрузки.
+ */
+public interface CardExportRepository {
+
+    /**
+     * Строки карт по спецификации в порядке ID через однонаправленный курсор.
+     * <p>
+     * Вызывать внутри транзакции (PostgreSQL читает порциями по {@code fetchSize} только
+     * при выключенном autocommit); поток нужно закрыть.
+     *
+     * @param spec      фильтры {@link com.example.bankcards.repository.spec.CardSpecs}
+     * @param fetchSize строк за одно обращение к БД
+     * @return поток строк
+     */
+    Stream<CardExportRow> streamForExport(Specification<BaseCard> spec, int fetchSize);
+}
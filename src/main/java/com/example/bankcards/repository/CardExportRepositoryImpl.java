@@ -0,0 +1,51 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.BaseCard;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+/**
+ * Реализация {@link CardExportRepository}: Criteria-запрос с проекцией {@link CardExportRow}.
+ * <p>
+ * {@code getResultStream()} в Hibernate читает через {@code ScrollableResults} в режиме FORWARD_ONLY,
+ * размер порции задаётся подсказкой fetch size.
+ */
+class CardExportRepositoryImpl implements CardExportRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Stream<CardExportRow> streamForExport(Specification<BaseCard> spec, int fetchSize) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<CardExportRow> q = cb.createQuery(CardExportRow.class);
+        Root<BaseCard> c = q.from(BaseCard.class);
+
+        q.select(cb.construct(CardExportRow.class,
+                c.get("id"),
+                c.get("cardNumberLast4"),
+                c.get("cardStatus"),
+                c.get("balance"),
+                c.get("expiration"),
+                c.get("user").get("id"),
+                c.get("createdAt")));
+        Predicate where = spec == null ? null : spec.toPredicate(c, q, cb);
+        if (where != null) {
+            q.where(where);
+        }
+        q.orderBy(cb.asc(c.get("id")));
+
+        return em.createQuery(q)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
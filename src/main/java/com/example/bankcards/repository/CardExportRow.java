@@ -0,0 +1,29 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка выгрузки карт — проекция без загрузки сущностей.
+ * <p>
+ * Проекция не попадает в контекст персистентности, поэтому при потоковом чтении
+ * память не растёт с числом строк и очищать {@code EntityManager} не нужно.
+ * Зашифрованный номер и HMAC не выбираются.
+ *
+ * @param id         ID карты
+ * @param last4      последние 4 цифры номера
+ * @param status     статус карты
+ * @param balance    баланс
+ * @param expiration срок действия
+ * @param userId     ID владельца
+ * @param createdAt  время создания
+ */
+public record CardExportRow(Long id,
+                            String last4,
+                            CardStatus status,
+                            BigDecimal balance,
+                            LocalDateTime expiration,
+                            Long userId,
+                            LocalDateTime createdAt) { }
@@ -8,12 +8,36 @@ import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
-public interface CardRepository extends JpaRepository<BaseCard, Long>, JpaSpecificationExecutor<BaseCard> {
+public interface CardRepository extends JpaRepository<BaseCard, Long>, JpaSpecificationExecutor<BaseCard>,
+        CardExportRepository, CardBulkRepository {
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select c from BaseCard c where c.id = :id")
     @QueryHints(@QueryHint(name="jakarta.persistence.lock.timeout", value="3000"))
     Optional<BaseCard> findByIdForUpdate(@Param("id") Long id);
 
+    /**
+     * Блокирует карту, только если она принадлежит пользователю: чужие строки не попадают
+     * в выборку и не блокируются.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from BaseCard c where c.id = :id and c.user.id = :userId")
+    @QueryHints(@QueryHint(name="jakarta.persistence.lock.timeout", value="3000"))
+    Optional<BaseCard> findByIdAndUserIdForUpdate(@Param("id") Long id, @Param("userId") Long userId);
+
     Optional<BaseCard> findByNumHmac(String numHmac);
+
+    Optional<BaseCard> findByIdAndUserId(Long id, Long userId);
+
+    /**
+     * Версия карты пользователя (для ETag) без загрузки сущности.
+     */
+    @Query("select c.version from BaseCard c where c.id = :id and c.user.id = :userId")
+    Optional<Long> findVersionByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    Optional<BaseCard> findByNumHmacAndUserId(String numHmac, Long userId);
+
+    boolean existsByNumHmac(String numHmac);
+
+    boolean existsByUserId(Long userId);
 }
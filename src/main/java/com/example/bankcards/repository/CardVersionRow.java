@@ -0,0 +1,9 @@
+package com.example.bankcards.repository;
+
+/**
+ * Карта после массового изменения: ID и новая версия.
+ *
+ * @param id      ID карты
+ * @param version версия карты после изменения
+ */
+public record CardVersionRow(long id, long version) { }
@@ -0,0 +1,24 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.BaseUser;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+/**
+ * Потоковое чтение пользователей с агрегатами по картам для выгрузки.
+ */
+public interface UserExportRepository {
+
+    /**
+     * Строки пользователей по спецификации в порядке ID через однонаправленный курсор.
+     * <p>
+     * Вызывать внутри транзакции (PostgreSQL читает порциями по {@code fetchSize} только
+     * при выключенном autocommit); поток нужно закрыть.
+     *
+     * @param spec      фильтры {@link com.example.bankcards.repository.spec.UserSpecs}
+     * @param fetchSize строк за одно обращение к БД
+     * @return поток строк
+     */
+    Stream<UserExportRow> streamForExport(Specification<BaseUser> spec, int fetchSize);
+}
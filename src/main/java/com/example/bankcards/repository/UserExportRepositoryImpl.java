@@ -0,0 +1,60 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.BaseCard;
+import com.example.bankcards.entity.BaseUser;
+import com.example.bankcards.entity.CardStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+/**
+ * Реализация {@link UserExportRepository}: один запрос {@code users LEFT JOIN cards ... GROUP BY}
+ * с проекцией {@link UserExportRow}, без загрузки коллекций карт.
+ */
+class UserExportRepositoryImpl implements UserExportRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Stream<UserExportRow> streamForExport(Specification<BaseUser> spec, int fetchSize) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<UserExportRow> q = cb.createQuery(UserExportRow.class);
+        Root<BaseUser> u = q.from(BaseUser.class);
+        Join<BaseUser, BaseCard> c = u.join("cards", JoinType.LEFT);
+
+        q.select(cb.construct(UserExportRow.class,
+                u.get("id"),
+                u.get("name"),
+                u.get("email"),
+                u.get("role"),
+                u.get("isActive"),
+                u.get("createdAt"),
+                cb.count(c),
+                cb.coalesce(cb.sum(c.<BigDecimal>get("balance")), BigDecimal.ZERO),
+                cb.sum(cb.<Long>selectCase()
+                        .when(cb.equal(c.get("cardStatus"), CardStatus.ACTIVE), 1L)
+                        .otherwise(0L))));
+        Predicate where = spec == null ? null : spec.toPredicate(u, q, cb);
+        if (where != null) {
+            q.where(where);
+        }
+        q.groupBy(u.get("id"), u.get("name"), u.get("email"), u.get("role"), u.get("isActive"), u.get("createdAt"));
+        q.orderBy(cb.asc(u.get("id")));
+
+        return em.createQuery(q)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.UserRole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка выгрузки пользователей с агрегатами по картам — проекция одного {@code GROUP BY}-запроса.
+ * <p>
+ * Карты не загружаются: по ним считаются только число, сумма балансов и число активных.
+ *
+ * @param id              ID пользователя
+ * @param name            имя
+ * @param email           email
+ * @param role            роль
+ * @param active          активен ли пользователь
+ * @param createdAt       время создания
+ * @param cardCount       число карт
+ * @param totalBalance    сумма балансов карт (0, если карт нет)
+ * @param activeCardCount число карт в статусе ACTIVE
+ */
+public record UserExportRow(Long id,
+                            String name,
+                            String email,
+                            UserRole role,
+                            Boolean active,
+                            LocalDateTime createdAt,
+                            Long cardCount,
+                            BigDecimal totalBalance,
+                            Long activeCardCount) { }
@@ -3,14 +3,26 @@ package com.example.bankcards.repository;
 import com.example.bankcards.entity.BaseUser;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<BaseUser, Long>, JpaSpecificationExecutor<BaseUser> {
+public interface UserRepository extends JpaRepository<BaseUser, Long>, JpaSpecificationExecutor<BaseUser>,
+        UserExportRepository {
     Optional<BaseUser> findByEmail(String email);
 
+    /**
+     * Деактивирует пользователя одним {@code UPDATE} без загрузки сущности.
+     *
+     * @return число изменённых строк (0 — пользователь не найден)
+     */
+    @Modifying
+    @Query("update BaseUser u set u.isActive = false, u.modifiedAt = :now where u.id = :id")
+    int deactivate(@Param("id") Long id, @Param("now") LocalDateTime now);
+
     @Query("""
             select distinct u
             from BaseUser u
@@ -18,4 +30,17 @@ public interface UserRepository extends JpaRepository<BaseUser, Long>, JpaSpecif
             where u.id = :id
             """)
     Optional<BaseUser> findByIdWithCards(@Param("id") Long id);
+
+    /**
+     * Отпечаток версии пользователя и его карт (для ETag): агрегат без загрузки сущностей.
+     */
+    @Query("""
+            select new com.example.bankcards.repository.UserVersionStamp(
+                u.modifiedAt, count(c), max(c.modifiedAt), coalesce(sum(c.version), 0L))
+            from BaseUser u
+            left join u.cards c
+            where u.id = :id
+            group by u.id, u.modifiedAt
+            """)
+    Optional<UserVersionStamp> findVersionStamp(@Param("id") Long id);
 }
@@ -0,0 +1,20 @@
+package com.example.bankcards.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Отпечаток версии пользователя вместе с его картами — для ETag без загрузки сущностей.
+ * <p>
+ * У пользователя нет {@code @Version}, поэтому изменение определяется по времени изменения
+ * пользователя и агрегатам по картам: добавление или удаление карты меняет {@code cardCount},
+ * изменение или перенос карты — {@code cardsModifiedAt} и {@code cardsVersionSum}.
+ *
+ * @param userModifiedAt  время изменения пользователя
+ * @param cardCount       число карт
+ * @param cardsModifiedAt последнее время изменения карт ({@code null}, если карт нет)
+ * @param cardsVersionSum сумма версий карт
+ */
+public record UserVersionStamp(LocalDateTime userModifiedAt,
+                               Long cardCount,
+                               LocalDateTime cardsModifiedAt,
+                               Long cardsVersionSum) { }
@@ -8,10 +8,16 @@ import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class CardSpecs {
 
+    public static Specification<BaseCard> idIn(Collection<Long> ids) {
+        return (root, q, cb) -> ids == null ? null :
+                root.get("id").in(ids);
+    }
+
     public static Specification<BaseCard> userIdEq(Long userId) {
         return (root, q, cb) -> userId == null ? null :
                 cb.equal(root.get("user").get("id"), userId);
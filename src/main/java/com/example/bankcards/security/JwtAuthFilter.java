@@ -1,6 +1,8 @@
 package com.example.bankcards.security;
 
 import com.example.bankcards.service.JwtService;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
@@ -19,6 +21,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService uds;
+    private final Tracer tracer;
 
     /**
      * Определяет, следует ли пропустить фильтрацию для данного запроса.
@@ -46,6 +49,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
      * - В любом случае передает управление дальше по цепочке фильтров.
      *
      * Исключения JWT умышленно игнорируются, чтобы не раскрывать детали ошибок и не блокировать дальнейшую обработку.
+     * Проверка токена выполняется в дочернем span'е {@code JwtAuthFilter.authenticate}; тип исключения JWT
+     * записывается в его атрибут {@code jwt.invalid}.
      *
      * @param req   текущий HTTP-запрос
      * @param res   текущий HTTP-ответ
@@ -62,7 +67,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String h = req.getHeader("Authorization");
         if (h != null && h.startsWith("Bearer ")) {
             String token = h.substring(7);
-            try {
+            Span span = tracer.nextSpan().name("JwtAuthFilter.authenticate").start();
+            try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
                 String email = jwtService.extractUsername(token);
                 if (email != null && org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication() == null) {
                     var user = uds.loadUserByUsername(email);
@@ -73,7 +79,10 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                         org.springframework.security.core.context.SecurityContextHolder.getContext().setAuthentication(auth);
                     }
                 }
-            } catch (io.jsonwebtoken.JwtException ignored) {
+            } catch (io.jsonwebtoken.JwtException e) {
+                span.tag("jwt.invalid", e.getClass().getSimpleName());
+            } finally {
+                span.end();
             }
         }
         chain.doFilter(req, res);
@@ -1,9 +1,13 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CardBulkStatusDto;
+import com.example.bankcards.dto.CardBulkStatusResultDto;
 import com.example.bankcards.dto.CardCreateDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardExportFormat;
 import com.example.bankcards.dto.CardSearchRequestDto;
 import com.example.bankcards.dto.CardUpdateDto;
+import com.example.bankcards.dto.FieldSelection;
 import com.example.bankcards.entity.BaseCard;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.UserNotFoundException;
@@ -14,6 +18,9 @@ import jakarta.validation.constraints.Positive;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Optional;
 
 /**
  * Работа с банковскими картами.
@@ -45,24 +52,39 @@ public interface CardService {
      *
      * <p>Если текущий пользователь не админ, выборка ограничивается его картами.
      *
-     * @param dto параметры поиска (page ≥ 0, 1 ≤ size ≤ 100, last4 = 4 цифры и т.д.)
+     * @param dto    параметры поиска (page ≥ 0, 1 ≤ size ≤ 100, last4 = 4 цифры и т.д.)
+     * @param select запрошенные поля карты; остальные не вычисляются
      * @return страница DTO
      * @throws IllegalArgumentException при некорректных параметрах или {@code dto == null}
      */
-    Page<CardDto> getCards(@Valid CardSearchRequestDto dto);
+    Page<CardDto> getCards(@Valid CardSearchRequestDto dto, @NotNull FieldSelection select);
+
+    /**
+     * Потоковая выгрузка карт по фильтрам без пагинации (NDJSON/CSV).
+     *
+     * <p>Фильтры проверяются при вызове; строки читаются из БД при записи ответа,
+     * память не зависит от числа карт.
+     *
+     * @param dto    фильтры (page/size/sort игнорируются)
+     * @param format формат строк
+     * @return тело ответа
+     * @throws IllegalArgumentException при некорректных фильтрах или {@code dto == null}
+     */
+    StreamingResponseBody exportCards(CardSearchRequestDto dto, @NotNull CardExportFormat format);
 
     /**
      * Получает карту по ID. Доступ — только владельцу или админу.
      *
      * @param cardId ID карты (не null)
+     * @param select запрошенные поля карты; остальные не вычисляются
      * @return DTO карты
      * @throws IllegalArgumentException если {@code cardId} == null
      * @throws CardNotFoundException если карта не найдена
      * @throws org.springframework.security.access.AccessDeniedException если текущий пользователь не владелец
      */
-    CardDto getCard(Long cardId);
+    CardDto getCard(Long cardId, @NotNull FieldSelection select);
 
-    /** См. {@link #getCard(Long)} но возвращает сущность. */
+    /** См. {@link #getCard(Long, FieldSelection)} но возвращает сущность. */
     BaseCard getBaseCard(@NotNull @Positive Long cardId);
 
     /**
@@ -89,6 +111,16 @@ public interface CardService {
      */
     CardDto updateCard(@Valid CardUpdateDto cardUpdateDto);
 
+    CardBulkStatusResultDto updateCardStatuses(@Valid CardBulkStatusDto dto);
+
+    /**
+     * Версия карты текущего пользователя — для проверки ETag без загрузки карты.
+     *
+     * @param cardId ID карты
+     * @return версия или пусто, если карта не найдена или принадлежит другому пользователю
+     */
+    Optional<Long> findCardVersion(@NotNull @Positive Long cardId);
+
     /**
      * Удаляет карту по ID.
      *
@@ -107,6 +139,19 @@ public interface CardService {
      */
     BaseCard findCardByIdForUpdate(@NotNull @Positive Long cardId);
 
+    /**
+     * Находит карту пользователя по ID с блокировкой PESSIMISTIC_WRITE.
+     *
+     * <p>Владелец проверяется в самом запросе: чужая карта не загружается и не блокируется.
+     *
+     * @param cardId ID карты
+     * @param userId ID ожидаемого владельца
+     * @return сущность карты
+     * @throws CardNotFoundException если карта не найдена
+     * @throws com.example.bankcards.exception.TransferAccessException если карта принадлежит другому пользователю
+     */
+    BaseCard findOwnedCardByIdForUpdate(@NotNull @Positive Long cardId, @NotNull Long userId);
+
     /**
      * Находит карту по HMAC номера.
      *
@@ -115,4 +160,15 @@ public interface CardService {
      * @throws CardNotFoundException если не найдена
      */
     BaseCard findByCardNumber(@NotBlank String number);
+
+    /**
+     * Находит карту пользователя по HMAC номера; владелец проверяется в самом запросе.
+     *
+     * @param number HMAC PAN (не сам PAN)
+     * @param userId ID ожидаемого владельца
+     * @return сущность карты
+     * @throws CardNotFoundException если не найдена
+     * @throws com.example.bankcards.exception.TransferAccessException если карта принадлежит другому пользователю
+     */
+    BaseCard findOwnedByCardNumber(@NotBlank String number, @NotNull Long userId);
 }
\ No newline at end of file
@@ -9,8 +9,10 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 
 /**
  * Операции перевода и получения баланса по картам.
@@ -53,6 +55,23 @@ public interface TransferService {
      */
     BigDecimal getBalance(@NotNull @Positive Long cardId);
 
+    /**
+     * Версия карты, от которой зависит баланс, — для проверки ETag.
+     *
+     * @param cardId ID карты (&gt; 0)
+     * @return версия или пусто, если карта не найдена или недоступна текущему пользователю
+     */
+    Optional<Long> findBalanceVersion(@NotNull @Positive Long cardId);
+
+    /**
+     * Поток изменений баланса карты (SSE): текущий баланс, затем баланс после каждого перевода.
+     *
+     * @param cardId ID карты (&gt; 0)
+     * @return SSE-поток
+     * @throws CardNotFoundException если карта не найдена или недоступна текущему пользователю
+     */
+    SseEmitter streamBalance(@NotNull @Positive Long cardId);
+
     /**
      * Текущий баланс по номеру карты (PAN).
      *
@@ -1,16 +1,21 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.FieldSelection;
 import com.example.bankcards.dto.UserCreateDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.UserSearchRequestDto;
 import com.example.bankcards.dto.UserUpdateDto;
 import com.example.bankcards.entity.UserRole;
 import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.repository.UserVersionStamp;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import org.springframework.data.domain.Page;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Optional;
 
 /**
  * Сервис работы с пользователями.
@@ -41,11 +46,20 @@ public interface UserService {
      * Возвращает пользователя по ID.
      *
      * @param userId идентификатор (не {@code null}, &gt; 0)
+     * @param select запрошенные поля; карты загружаются только при {@code expand=cards}
      * @return DTO пользователя
      * @throws IllegalArgumentException если {@code userId} некорректен
      * @throws UserNotFoundException если пользователь не найден
      */
-    UserDto getUser(@NotNull @Positive Long userId);
+    UserDto getUser(@NotNull @Positive Long userId, @NotNull FieldSelection select);
+
+    /**
+     * Отпечаток версии пользователя и его карт — для проверки ETag без загрузки сущностей.
+     *
+     * @param userId идентификатор (не {@code null}, &gt; 0)
+     * @return отпечаток или пусто, если пользователь не найден
+     */
+    Optional<UserVersionStamp> findUserVersion(@NotNull @Positive Long userId);
 
     /**
      * Возвращает страницу пользователей по фильтрам/сортировке.
@@ -58,19 +72,45 @@ public interface UserService {
      * </ul>
      *
      * @param userSearchRequestDto параметры поиска (не {@code null})
+     * @param select               запрошенные поля; карты загружаются только при {@code expand=cards}
      * @return страница пользователей
      * @throws IllegalArgumentException при нарушении правил валидации запроса
      */
-    Page<UserDto> getUsers(@Valid UserSearchRequestDto userSearchRequestDto);
+    Page<UserDto> getUsers(@Valid UserSearchRequestDto userSearchRequestDto, @NotNull FieldSelection select);
+
+    /**
+     * Потоковая выгрузка пользователей по фильтрам без пагинации (NDJSON) с агрегатами по картам:
+     * число карт, сумма балансов, число активных.
+     *
+     * <p>Строки читаются из БД при записи ответа, память не зависит от числа пользователей.
+     *
+     * @param userSearchRequestDto фильтры name/email/role/isActive (page/size/sort игнорируются)
+     * @return тело ответа
+     */
+    StreamingResponseBody exportUsers(@NotNull UserSearchRequestDto userSearchRequestDto);
 
     /**
      * Удаляет пользователя по ID.
+     * <p>
+     * Пользователь без карт удаляется сразу. Пользователь с картами деактивируется, его карты блокируются,
+     * а удаление выполняет фоновая задача {@code UserPurgeJob}: карты переносятся в архив порциями.
      *
      * @param userId идентификатор (не {@code null}, &gt; 0)
+     * @return {@code true}, если пользователь удалён сразу; {@code false}, если удаление запланировано
      * @throws IllegalArgumentException если {@code userId} некорректен
      * @throws UserNotFoundException если пользователь не найден
      */
-    void deleteUser(@NotNull @Positive Long userId);
+    boolean deleteUser(@NotNull @Positive Long userId);
+
+    /**
+     * Деактивирует пользователя и блокирует все его активные карты — в одной транзакции,
+     * двумя {@code UPDATE} без загрузки сущностей.
+     *
+     * @param userId идентификатор (не {@code null}, &gt; 0)
+     * @return число заблокированных карт
+     * @throws UserNotFoundException если пользователь не найден
+     */
+    int deactivateUser(@NotNull @Positive Long userId);
 
     /**
      * Частично обновляет пользователя.
@@ -1,23 +1,35 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.dto.CardBulkStatusDto;
+import com.example.bankcards.dto.CardBulkStatusResultDto;
 import com.example.bankcards.dto.CardCreateDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardExportFormat;
 import com.example.bankcards.dto.CardSearchRequestDto;
 import com.example.bankcards.dto.CardUpdateDto;
+import com.example.bankcards.dto.FieldSelection;
 import com.example.bankcards.entity.BaseCard;
 import com.example.bankcards.entity.BaseUser;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.TransferAccessException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.factory.CardFactory;
 import com.example.bankcards.mapper.BankMapper;
+import com.example.bankcards.config.props.CardBulkProps;
+import com.example.bankcards.config.props.CardExportProps;
+import com.example.bankcards.repository.CardExportRow;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardVersionRow;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.repository.spec.CardSpecs;
 import com.example.bankcards.security.SecurityUtils;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.BalanceCache;
+import com.example.bankcards.util.BalanceStreamHub;
+import com.example.bankcards.util.BankMetrics;
+import com.example.bankcards.util.CardExportWriter;
 import com.example.bankcards.util.CardNumberCheck;
-import com.example.bankcards.util.CardsPolicy;
 import com.example.bankcards.util.CardsSearchFilterPolicy;
 import com.example.bankcards.util.PageableBuilder;
 import jakarta.validation.Valid;
@@ -30,10 +42,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Сервис работы с картами.
@@ -44,7 +64,9 @@ import java.time.LocalDateTime;
  *   <li>Поиск карт с пагинацией/сортировкой и фильтрами; ограничение выборки правами пользователя</li>
  *   <li>Получение карты по ID и по номеру (поиск через HMAC PAN) с проверкой владельца</li>
  *   <li>Частичное обновление статуса/владельца карты под блокировкой строки</li>
+ *   <li>Массовая смена статуса карт по списку ID или фильтру порциями</li>
  *   <li>Удаление карты</li>
+ *   <li>Потоковая выгрузка карт в NDJSON/CSV</li>
  * </ul>
  * Все операции используют транзакции Spring и ведут журнал ошибок/валидации.
  * Зависимости:
@@ -55,6 +77,8 @@ import java.time.LocalDateTime;
  *   <li>{@link BankMapper} — маппинг сущностей в DTO</li>
  *   <li>{@link SecurityUtils} — текущий пользователь и его роли</li>
  *   <li>{@link CardNumberCheck} — валидация PAN и получение HMAC</li>
+ *   <li>{@link BalanceCache} — обновление кэша балансов после изменения и удаления карты</li>
+ *   <li>{@link BalanceStreamHub} — уведомление SSE-потоков баланса об изменении и удалении карты</li>
  * </ul>
  */
 @Service
@@ -69,7 +93,12 @@ public class CardServiceImpl implements CardService {
     private final SecurityUtils securityUtils;
     private final CardNumberCheck cardNumberCheck;
     private final CardsSearchFilterPolicy searchPolicy;
-    private final CardsPolicy cardsPolicy;
+    private final BankMetrics metrics;
+    private final BalanceCache balanceCache;
+    private final BalanceStreamHub balanceStreams;
+    private final CardExportProps exportProps;
+    private final CardBulkProps bulkProps;
+    private final PlatformTransactionManager transactionManager;
 
     /**
      * Создает карту для пользователя.
@@ -85,7 +114,10 @@ public class CardServiceImpl implements CardService {
     @Override
     @Transactional
     public CardDto createCard(CardCreateDto dto) {
+        return metrics.timed(BankMetrics.CARD_CREATE, () -> saveNewCard(dto));
+    }
 
+    private CardDto saveNewCard(CardCreateDto dto) {
         BaseUser user = userRepository.findById(dto.userId())
                 .orElseThrow(() -> {
                     log.warn("User with id {} not found", dto.userId());
@@ -118,13 +150,17 @@ public class CardServiceImpl implements CardService {
      *            page (>= 0), size [1..100], sort, userId (для админа),
      *            last4 (ровно 4 цифры), status, expirationFrom/to,
      *            balanceMin/max, createdFrom/to
+     * @param select запрошенные поля карты; остальные не вычисляются
      * @return страница DTO карт
      * @throws IllegalArgumentException при нарушении правил валидации параметров или если dto == null
      */
     @Override
     @Transactional(readOnly = true)
-    public Page<CardDto> getCards(CardSearchRequestDto dto) {
+    public Page<CardDto> getCards(CardSearchRequestDto dto, FieldSelection select) {
+        return metrics.timed(BankMetrics.CARDS_LIST, () -> searchCards(dto, select));
+    }
 
+    private Page<CardDto> searchCards(CardSearchRequestDto dto, FieldSelection select) {
         if (dto == null) {
             log.warn("Validation failed: dto cannot be null");
             throw new IllegalArgumentException("dto cannot be null");
@@ -139,6 +175,49 @@ public class CardServiceImpl implements CardService {
 
         Pageable pageable = PageableBuilder.build(page, size, sort);
 
+        return cardRepository.findAll(cardSpec(dto), pageable)
+                .map(card -> mapper.cardToCardDto(card, select));
+    }
+
+    /**
+     * Потоковая выгрузка карт по тем же фильтрам, что и {@link #getCards(CardSearchRequestDto, FieldSelection)}, без пагинации.
+     * <p>
+     * Фильтры проверяются и спецификация строится сразу (ошибка — 400 до начала ответа).
+     * Строки читаются при записи ответа: в отдельной read-only транзакции через однонаправленный курсор
+     * порциями {@code card.export.fetch-size}, проекцией {@link CardExportRow} без загрузки сущностей.
+     * Соединение с БД занято на всё время выгрузки.
+     *
+     * @param dto    фильтры; page, size и sort игнорируются, порядок — по ID
+     * @param format формат строк
+     * @return тело ответа
+     * @throws IllegalArgumentException при нарушении правил валидации фильтров или если dto == null
+     */
+    @Override
+    public StreamingResponseBody exportCards(CardSearchRequestDto dto, CardExportFormat format) {
+        if (dto == null) {
+            log.warn("Validation failed: dto cannot be null");
+            throw new IllegalArgumentException("dto cannot be null");
+        }
+        searchPolicy.checkFilter(dto);
+        Specification<BaseCard> spec = cardSpec(dto);
+        int fetchSize = Math.max(1, exportProps.fetchSize());
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        return out -> metrics.timed(BankMetrics.CARDS_EXPORT, format.extension(), () -> readOnly.execute(status -> {
+            try (Stream<CardExportRow> rows = cardRepository.streamForExport(spec, fetchSize)) {
+                long count = CardExportWriter.write(rows, format, out, fetchSize);
+                log.info("Cards exported: format={}, rows={}", format.extension(), count);
+                return count;
+            } catch (IOException e) {
+                log.warn("Card export aborted: {}", e.toString());
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    private Specification<BaseCard> cardSpec(CardSearchRequestDto dto) {
         Specification<BaseCard> spec = Specification.allOf(
                 CardSpecs.userIdEq(dto.userId()),
                 CardSpecs.last4Eq(dto.last4()),
@@ -156,9 +235,7 @@ public class CardServiceImpl implements CardService {
             spec = spec.and(CardSpecs.userIdEq(currentUserId));
 
         }
-
-        return cardRepository.findAll(spec, pageable)
-                .map(mapper::cardToCardDto);
+        return spec;
     }
 
     /**
@@ -167,6 +244,7 @@ public class CardServiceImpl implements CardService {
      * Доступ только владельцу карты.
      *
      * @param cardId ID карты
+     * @param select запрошенные поля карты; остальные не вычисляются
      * @return DTO карты
      * @throws IllegalArgumentException                                  если {@code cardId} равен null
      * @throws CardNotFoundException                                     если карта не найдена
@@ -174,16 +252,8 @@ public class CardServiceImpl implements CardService {
      */
     @Override
     @Transactional(readOnly = true)
-    public CardDto getCard(Long cardId) {
-        BaseCard card = cardRepository.findById(cardId).orElseThrow(() ->
-        {
-            log.warn("Card with id {} not found", cardId);
-            return new CardNotFoundException("Card not found + " + cardId);
-        });
-
-        cardsPolicy.assertOwnedByUser(card);
-
-        return mapper.cardToCardDto(card);
+    public CardDto getCard(Long cardId, FieldSelection select) {
+        return mapper.cardToCardDto(getBaseCard(cardId), select);
     }
 
     @Override
@@ -195,15 +265,10 @@ public class CardServiceImpl implements CardService {
                     "Card id cannot be null");
         }
 
-        BaseCard card = cardRepository.findById(cardId).orElseThrow(() ->
-        {
-            log.warn("Card with id {} not found", cardId);
-            return new CardNotFoundException("Card not found + " + cardId);
-        });
-
-        cardsPolicy.assertOwnedByUser(card);
+        Long currentUserId = securityUtils.currentUserId();
 
-        return card;
+        return cardRepository.findByIdAndUserId(cardId, currentUserId)
+                .orElseThrow(() -> cardNotOwned(cardId));
     }
 
     /**
@@ -229,13 +294,7 @@ public class CardServiceImpl implements CardService {
 
         String numHmac = cardNumberCheck.check(cardNumber);
 
-        BaseCard card = (BaseCard) cardRepository.findByNumHmac(numHmac)
-                .orElseThrow(() -> {
-                    log.warn("Card with number {} not found", cardNumber);
-                    return new CardNotFoundException("Card not found + " + numHmac);
-                });
-
-        cardsPolicy.assertOwnedByUser(card);
+        BaseCard card = findOwnedByCardNumber(numHmac, securityUtils.currentUserId());
 
         return mapper.cardToCardDto(card);
     }
@@ -293,10 +352,99 @@ public class CardServiceImpl implements CardService {
         }
 
         card.setModifiedAt(LocalDateTime.now());
+        balanceCache.updateAfterCommit(card, card.getUser().getId());
+        balanceStreams.publishAfterCommit(card, card.getUser().getId());
 
         return mapper.cardToCardDto(card);
     }
 
+    /**
+     * Меняет статус многих карт — по списку ID или по фильтрам списка карт.
+     * <p>
+     * Карты обрабатываются порциями по {@code card.bulk.chunk-size} в порядке ID, каждая порция — отдельная
+     * короткая транзакция: блокировка порции ({@code SELECT ... ORDER BY id LIMIT n FOR UPDATE}) и один
+     * {@code UPDATE ... RETURNING} без загрузки сущностей. Версия и {@code modified_at} изменённых карт
+     * увеличиваются, кэш балансов получает новые версии после фиксации порции.
+     * <p>
+     * Операция не атомарна: при ошибке уже зафиксированные порции остаются изменены; повтор безопасен,
+     * так как карты с нужным статусом не изменяются.
+     *
+     * @param dto новый статус и ID карт либо фильтры
+     * @return число найденных и изменённых карт
+     * @throws IllegalArgumentException если не задан статус, заданы одновременно (или не заданы) ID и фильтр,
+     *                                  либо фильтр пуст или некорректен
+     */
+    @Override
+    public CardBulkStatusResultDto updateCardStatuses(CardBulkStatusDto dto) {
+        if (dto == null || dto.status() == null) {
+            log.warn("Validation failed: bulk status cannot be null");
+            throw new IllegalArgumentException("status cannot be null");
+        }
+        if ((dto.cardIds() == null) == (dto.filter() == null)) {
+            log.warn("Validation failed: exactly one of cardIds and filter is required");
+            throw new IllegalArgumentException("Exactly one of cardIds and filter is required");
+        }
+        if (dto.filter() != null) {
+            searchPolicy.checkBulkFilter(dto.filter());
+        }
+        return metrics.timed(BankMetrics.CARDS_BULK_STATUS, () -> bulkUpdateStatus(dto));
+    }
+
+    private CardBulkStatusResultDto bulkUpdateStatus(CardBulkStatusDto dto) {
+        int chunkSize = Math.max(1, bulkProps.chunkSize());
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setTimeout(30);
+
+        long matched = 0;
+        long updated = 0;
+        if (dto.cardIds() != null) {
+            List<Long> ids = dto.cardIds().stream().distinct().sorted().toList();
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                Specification<BaseCard> spec = CardSpecs.idIn(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+                BulkChunk chunk = tx.execute(status -> updateChunk(spec, 0, chunkSize, dto.status(), now));
+                matched += chunk.matched();
+                updated += chunk.updated();
+            }
+        } else {
+            Specification<BaseCard> spec = cardSpec(dto.filter());
+            long afterId = 0;
+            BulkChunk chunk;
+            do {
+                long cursor = afterId;
+                chunk = tx.execute(status -> updateChunk(spec, cursor, chunkSize, dto.status(), now));
+                matched += chunk.matched();
+                updated += chunk.updated();
+                afterId = chunk.lastId();
+            } while (chunk.matched() == chunkSize);
+        }
+        log.info("Card statuses changed in bulk: status={}, matched={}, updated={}", dto.status(), matched, updated);
+        return new CardBulkStatusResultDto(dto.status(), matched, updated);
+    }
+
+    /**
+     * Итог одной порции массового изменения.
+     *
+     * @param matched заблокировано карт
+     * @param updated изменено карт
+     * @param lastId  ID последней карты порции — начало следующей
+     */
+    private record BulkChunk(int matched, int updated, long lastId) { }
+
+    private BulkChunk updateChunk(Specification<BaseCard> spec, long afterId, int limit,
+                              CardStatus status, LocalDateTime now) {
+        List<Long> ids = cardRepository.lockIdsAfter(spec, afterId, limit);
+        List<CardVersionRow> rows = cardRepository.updateStatus(ids, status, now);
+        rows.forEach(r -> balanceCache.invalidateAfterCommit(r.id(), r.version()));
+        return new BulkChunk(ids.size(), rows.size(), ids.isEmpty() ? afterId : ids.getLast());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> findCardVersion(Long cardId) {
+        return cardRepository.findVersionByIdAndUserId(cardId, securityUtils.currentUserId());
+    }
+
     /**
      * Удаляет карту по ID.
      *
@@ -319,6 +467,8 @@ public class CardServiceImpl implements CardService {
                     return new CardNotFoundException("Card not found + " + cardId);
                 });
         cardRepository.delete(card);
+        balanceCache.evictAfterCommit(cardId);
+        balanceStreams.closeAfterCommit(cardId);
     }
 
     /**
@@ -337,6 +487,23 @@ public class CardServiceImpl implements CardService {
                 });
     }
 
+    /**
+     * Найти карту пользователя по ID. PESSIMISTIC_WRITE
+     * <p>
+     * Владелец проверяется в запросе, поэтому чужие карты не блокируются.
+     *
+     * @param cardId ID карты
+     * @param userId ID ожидаемого владельца
+     * @throws CardNotFoundException   если карта не найдена
+     * @throws TransferAccessException если карта принадлежит другому пользователю
+     */
+    @Transactional
+    @Override
+    public BaseCard findOwnedCardByIdForUpdate(Long cardId, Long userId) {
+        return cardRepository.findByIdAndUserIdForUpdate(cardId, userId)
+                .orElseThrow(() -> cardNotOwned(cardId));
+    }
+
     @Override
     public BaseCard findByCardNumber(String number) {
         return (BaseCard) cardRepository.findByNumHmac(number).orElseThrow(() -> {
@@ -344,4 +511,36 @@ public class CardServiceImpl implements CardService {
             return new CardNotFoundException("Card not found + " + number);
         });
     }
+
+    @Override
+    public BaseCard findOwnedByCardNumber(String number, Long userId) {
+        return cardRepository.findByNumHmacAndUserId(number, userId).orElseThrow(() -> {
+            if (cardRepository.existsByNumHmac(number)) {
+                log.warn("Access denied: card with number {} belongs to another user", number);
+                metrics.policyRejected("not_owner");
+                return new TransferAccessException("Access denied: operation only for card owner");
+            }
+            log.warn("Card with number {} not found", number);
+            return new CardNotFoundException("Card not found + " + number);
+        });
+    }
+
+    /**
+     * Определяет причину промаха запроса "карта по ID и владельцу".
+     * <p>
+     * Сущность не загружается: проверяется только существование строки. Отказ по владельцу учитывается
+     * в {@value BankMetrics#POLICY_REJECTIONS} с причиной {@code not_owner}.
+     *
+     * @param cardId ID карты
+     * @return {@link TransferAccessException}, если карта есть, но чужая, иначе {@link CardNotFoundException}
+     */
+    private RuntimeException cardNotOwned(Long cardId) {
+        if (cardRepository.existsById(cardId)) {
+            log.warn("Access denied: card {} belongs to another user", cardId);
+            metrics.policyRejected("not_owner");
+            return new TransferAccessException("Access denied: operation only for card owner");
+        }
+        log.warn("Card with id {} not found", cardId);
+        return new CardNotFoundException("Card not found + " + cardId);
+    }
 }
@@ -10,17 +10,24 @@ import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.security.SecurityUtils;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.service.TransferService;
+import com.example.bankcards.util.BalanceCache;
+import com.example.bankcards.util.BalanceStreamHub;
+import com.example.bankcards.util.BankMetrics;
+import com.example.bankcards.util.CardLedger;
 import com.example.bankcards.util.CardNumberCheck;
 import com.example.bankcards.util.CardsPolicy;
+import com.example.bankcards.util.ReadYourWritesTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 /**
  * Сервис переводов и получения баланса.
@@ -38,6 +45,10 @@ import java.math.RoundingMode;
  *   <li>{@link BankMapper} — маппинг сущностей в DTO</li>
  *   <li>{@link CardNumberCheck} — проверка и HMAC номера карты</li>
  *   <li>{@link SecurityUtils} — получение текущего пользователя и его прав</li>
+ *   <li>{@link ReadYourWritesTracker} — чтения после перевода идут на основной пул, а не на реплику</li>
+ *   <li>{@link BalanceCache} — кэш балансов, обновляется после фиксации перевода</li>
+ *   <li>{@link BalanceStreamHub} — рассылка новых балансов в SSE-потоки после фиксации перевода</li>
+ *   <li>{@link CardLedger} — журнал движений по картам, пишется в транзакции перевода</li>
  * </ul>
  */
 
@@ -51,6 +62,11 @@ public class TransferServiceImpl implements TransferService {
     private final SecurityUtils securityUtils;
     private final CardService cardService;
     private final CardsPolicy cardsPolicy;
+    private final ReadYourWritesTracker readYourWrites;
+    private final BankMetrics metrics;
+    private final BalanceCache balanceCache;
+    private final BalanceStreamHub balanceStreams;
+    private final CardLedger ledger;
 
 
     /**
@@ -60,9 +76,11 @@ public class TransferServiceImpl implements TransferService {
      * <ul>
      *   <li>Сумма > 0</li>
      *   <li>Источник и назначение — разные карты</li>
-     *   <li>Обновление карт выполняется под блокировкой (findByIdForUpdate)</li>
-     *   <li>Обе карты принадлежат одному пользователю и это — текущий пользователь</li>
-     *   <li>Обе карты в статусе ACTIVE</li>
+     *   <li>Обновление карт выполняется под блокировкой (findByIdAndUserIdForUpdate)</li>
+     *   <li>Обе карты принадлежат текущему пользователю — проверяется в запросе блокировки,
+     *       чужие карты не загружаются и не блокируются</li>
+     *   <li>Обе карты в статусе ACTIVE и срок не истёк — по заблокированной строке, не дожидаясь
+     *       {@code CardExpirySweeper} и без дополнительных запросов</li>
      *   <li>На исходной карте достаточно средств</li>
      * </ul>
      *
@@ -75,12 +93,15 @@ public class TransferServiceImpl implements TransferService {
      * @throws CardNotFoundException если одна из карт не найдена
      * @throws InsufficientFundsException если недостаточно средств на исходной карте
      * @throws org.springframework.security.access.AccessDeniedException если нарушены права доступа
-     * @throws IllegalStateException если карты не в статусе ACTIVE
+     * @throws com.example.bankcards.exception.CardStatusException если карты не в статусе ACTIVE или срок истёк
      */
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 5)
     public TransferResultDto balanceTransfer(TransferDto transferDto) {
+        return metrics.timed(BankMetrics.TRANSFER, () -> transfer(transferDto));
+    }
 
+    private TransferResultDto transfer(TransferDto transferDto) {
         cardsPolicy.assertNotSameCards(transferDto);
         BigDecimal amount = transferDto.amount().setScale(2, RoundingMode.DOWN);
 
@@ -91,19 +112,26 @@ public class TransferServiceImpl implements TransferService {
         Long minId = Math.min(transferDto.sourceCardId(), transferDto.destinationCardId());
         Long maxId = Math.max(transferDto.sourceCardId(), transferDto.destinationCardId());
 
-        BaseCard firstCard = cardService.findCardByIdForUpdate(minId);
-        BaseCard secondCard = cardService.findCardByIdForUpdate(maxId);
+        BaseCard firstCard = cardService.findOwnedCardByIdForUpdate(minId, currentUserId);
+        BaseCard secondCard = cardService.findOwnedCardByIdForUpdate(maxId, currentUserId);
 
         BaseCard sourceCard = transferDto.sourceCardId().equals(minId) ? firstCard : secondCard;
         BaseCard destinationCard = transferDto.destinationCardId().equals(minId) ? firstCard : secondCard;
 
-        cardsPolicy.assertOwnedByUser(sourceCard, destinationCard);
-        cardsPolicy.assertActive(sourceCard);
-        cardsPolicy.assertActive(destinationCard);
+        LocalDateTime now = LocalDateTime.now();
+        cardsPolicy.assertActive(sourceCard, now);
+        cardsPolicy.assertActive(destinationCard, now);
         cardsPolicy.assertInsufficientFunds(amount, sourceCard);
 
         sourceCard.setBalance(sourceCard.getBalance().subtract(amount));
         destinationCard.setBalance(destinationCard.getBalance().add(amount));
+        ledger.recordTransfer(sourceCard.getId(), destinationCard.getId(), amount, now);
+
+        readYourWrites.markWriteAfterCommit(currentUserId);
+        balanceCache.updateAfterCommit(sourceCard, currentUserId);
+        balanceCache.updateAfterCommit(destinationCard, currentUserId);
+        balanceStreams.publishAfterCommit(sourceCard, currentUserId);
+        balanceStreams.publishAfterCommit(destinationCard, currentUserId);
 
         return new TransferResultDto(
                 mapper.cardToCardDto(sourceCard),
@@ -113,7 +141,9 @@ public class TransferServiceImpl implements TransferService {
     /**
      * Возвращает баланс карты по её идентификатору.
      * <p>
-     * Доступ только владельцу карты. Чтение в рамках read-only транзакции.
+     * Доступ только владельцу карты. Сначала проверяется {@link BalanceCache}; при промахе карта
+     * читается в read-only транзакции {@link CardService#getBaseCard(Long)} и баланс кэшируется.
+     * Собственной транзакции у метода нет, чтобы попадание в кэш не занимало соединение с БД.
      *
      * @param cardId идентификатор карты
      * @return баланс карты
@@ -122,18 +152,51 @@ public class TransferServiceImpl implements TransferService {
      * @throws org.springframework.security.access.AccessDeniedException если текущий пользователь не владелец
      */
     @Override
-    @Transactional(readOnly = true)
     public BigDecimal getBalance(Long cardId) {
-        if (cardId == null) {
-            log.warn("Validation failed: cardId is null");
-            throw new IllegalArgumentException("Card id cannot be null");
-        }
-
-        BaseCard card = cardService.getBaseCard(cardId);
+        return metrics.timed(BankMetrics.BALANCE, "id", () -> {
+            if (cardId == null) {
+                log.warn("Validation failed: cardId is null");
+                throw new IllegalArgumentException("Card id cannot be null");
+            }
+
+            Long currentUserId = securityUtils.currentUserId();
+            return balanceCache.find(cardId, currentUserId).orElseGet(() -> {
+                BaseCard card = cardService.getBaseCard(cardId);
+                balanceCache.cacheRead(card, currentUserId);
+                return card.getBalance();
+            });
+        });
+    }
+    /**
+     * Версия карты для ETag баланса: из {@link BalanceCache}, при промахе — проекцией без загрузки карты.
+     *
+     * @param cardId идентификатор карты
+     * @return версия или пусто, если карта не найдена или не принадлежит текущему пользователю
+     */
+    @Override
+    public Optional<Long> findBalanceVersion(Long cardId) {
+        Optional<Long> cached = balanceCache.findVersion(cardId, securityUtils.currentUserId());
+        return cached.isPresent() ? cached : cardService.findCardVersion(cardId);
+    }
 
-        cardsPolicy.assertOwnedByUser(card);
-        return card.getBalance();
+    /**
+     * Открывает SSE-поток баланса карты.
+     * <p>
+     * Подписчик регистрируется до чтения карты, поэтому перевод, зафиксированный между чтением
+     * и подпиской, не теряется. Карта читается запросом с проверкой владельца
+     * ({@link CardService#getBaseCard(Long)}); чужая карта — {@link com.example.bankcards.exception.TransferAccessException}.
+     * Соединение с БД занято только на время этого чтения.
+     *
+     * @param cardId идентификатор карты
+     * @return поток событий {@code balance}
+     * @throws CardNotFoundException если карта не найдена
+     * @throws com.example.bankcards.exception.StreamLimitException если на карту открыто слишком много потоков
+     */
+    @Override
+    public SseEmitter streamBalance(Long cardId) {
+        return balanceStreams.open(cardId, securityUtils.currentUserId(), () -> cardService.getBaseCard(cardId));
     }
+
     /**
      * Возвращает баланс карты по её номеру.
      * <p>
@@ -149,17 +212,13 @@ public class TransferServiceImpl implements TransferService {
     @Override
     @Transactional(readOnly = true)
     public BigDecimal getBalance(String cardNumber) {
-        Long currentUserId = securityUtils.currentUserId();
-
-        String numHmac = cardNumberCheck.check(cardNumber);
+        return metrics.timed(BankMetrics.BALANCE, "number", () -> {
+            Long currentUserId = securityUtils.currentUserId();
 
-        BaseCard card = cardService.findByCardNumber(numHmac);
+            String numHmac = cardNumberCheck.check(cardNumber);
 
-        if (card.getUser().getId() != currentUserId) {
-            log.warn("Access denied: operation only for card {} owner", cardNumber);
-            throw new AccessDeniedException("Access denied");
-        }
-        return card.getBalance();
+            return cardService.findOwnedByCardNumber(numHmac, currentUserId).getBalance();
+        });
     }
 
 }
@@ -1,5 +1,7 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.config.props.UserExportProps;
+import com.example.bankcards.dto.FieldSelection;
 import com.example.bankcards.dto.UserCreateDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.UserSearchRequestDto;
@@ -9,10 +11,17 @@ import com.example.bankcards.exception.DuplicateUserException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.factory.UserFactory;
 import com.example.bankcards.mapper.BankMapper;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardVersionRow;
+import com.example.bankcards.repository.UserExportRow;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.UserVersionStamp;
 import com.example.bankcards.repository.spec.UserSpecs;
 import com.example.bankcards.service.UserService;
+import com.example.bankcards.util.BalanceCache;
+import com.example.bankcards.util.BankMetrics;
 import com.example.bankcards.util.PageableBuilder;
+import com.example.bankcards.util.UserExportWriter;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -23,10 +32,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Сервис управления пользователями.
@@ -37,12 +54,15 @@ import java.time.LocalDateTime;
  *   <li>Получение пользователя по ID (включая связанные карты)</li>
  *   <li>Поиск пользователей с пагинацией/сортировкой и фильтрами (имя, email, роль, активность)</li>
  *   <li>Частичное обновление данных пользователя</li>
- *   <li>Удаление пользователя</li>
+ *   <li>Деактивация пользователя с блокировкой карт; удаление (с картами — отложенное, через {@code UserPurgeJob})</li>
+ *   <li>Потоковая выгрузка пользователей с агрегатами по картам (NDJSON)</li>
  * </ul>
  * Все методы используют транзакции Spring и логируют нарушения валидации/ошибки.
  * Зависимости:
  * <ul>
  *   <li>{@link UserRepository} — доступ к данным пользователей</li>
+ *   <li>{@link CardRepository} — блокировка карт пользователя одним запросом</li>
+ *   <li>{@link BalanceCache} — новые версии заблокированных карт после фиксации</li>
  *   <li>{@link BankMapper} — маппинг сущностей в DTO</li>
  *   <li>{@link UserFactory} — фабрика создания доменной сущности из DTO</li>
  * </ul>
@@ -54,8 +74,13 @@ import java.time.LocalDateTime;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final CardRepository cardRepository;
+    private final BalanceCache balanceCache;
     private final BankMapper mapper;
     private final UserFactory userFactory;
+    private final UserExportProps exportProps;
+    private final PlatformTransactionManager transactionManager;
+    private final BankMetrics metrics;
 
     /**
      * Создает нового пользователя.
@@ -93,25 +118,37 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Возвращает пользователя по ID вместе с его картами.
+     * Возвращает пользователя по ID.
+     * <p>
+     * Карты выбираются тем же запросом (join fetch) только при {@code expand=cards}, иначе не читаются.
      *
      * @param userId идентификатор пользователя
+     * @param select запрошенные поля и связи
      * @return DTO пользователя
      * @throws java.util.NoSuchElementException если пользователь не найден
      */
     @Override
     @Transactional(readOnly = true)
-    public UserDto getUser(Long userId) {
+    public UserDto getUser(Long userId, FieldSelection select) {
         if (userId == null) {
             log.warn("Validation failed: userID must not be null");
             throw new IllegalArgumentException("userID must not be null");
         }
 
-        BaseUser user = userRepository.findByIdWithCards(userId).orElseThrow(() -> {
+        Optional<BaseUser> found = select.expands("cards")
+                ? userRepository.findByIdWithCards(userId)
+                : userRepository.findById(userId);
+        BaseUser user = found.orElseThrow(() -> {
             log.warn("User with id {} not found", userId);
             return new UserNotFoundException("User not found");
         });
-        return mapper.userToUserDTO(user);
+        return mapper.userToUserDTO(user, select);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<UserVersionStamp> findUserVersion(Long userId) {
+        return userRepository.findVersionStamp(userId);
     }
 
     /**
@@ -126,14 +163,16 @@ public class UserServiceImpl implements UserService {
      *   <li>sort — формат совместим с Pageable (например: {@code field,asc|desc})</li>
      * </ul>
      *
-     * @param dto параметры поиска и пагинации:
-     *            page, size, sort, name, email, role, isActive
+     * @param dto    параметры поиска и пагинации:
+     *               page, size, sort, name, email, role, isActive
+     * @param select запрошенные поля; при {@code expand=cards} карты страницы догружаются пачкой
+     *               ({@code @BatchSize} на {@link BaseUser#cards}), иначе не читаются
      * @return страница DTO пользователей
      * @throws IllegalArgumentException при некорректных значениях page/size или ошибке парсинга сортировки
      */
     @Override
     @Transactional(readOnly = true)
-    public Page<UserDto> getUsers(UserSearchRequestDto dto) {
+    public Page<UserDto> getUsers(UserSearchRequestDto dto, FieldSelection select) {
 
         if (dto.size() > 100) {
             log.warn("Validation failed: size must be in [1,100]");
@@ -147,25 +186,70 @@ public class UserServiceImpl implements UserService {
             throw new IllegalArgumentException("Wrong filter parameters");
         }
 
-        Specification<BaseUser> spec = Specification.allOf(
+        return userRepository.findAll(userSpec(dto), pageable).map(user -> mapper.userToUserDTO(user, select));
+    }
+
+    /**
+     * Потоковая выгрузка пользователей по фильтрам {@link #getUsers(UserSearchRequestDto, FieldSelection)} без пагинации.
+     * <p>
+     * Карты пользователей не загружаются: число карт, сумма балансов и число активных карт считаются
+     * одним запросом {@code LEFT JOIN ... GROUP BY} ({@link UserExportRow}). Строки читаются при записи
+     * ответа в отдельной read-only транзакции через однонаправленный курсор порциями
+     * {@code user.export.fetch-size}. Соединение с БД занято на всё время выгрузки.
+     *
+     * @param dto фильтры name/email/role/isActive; page, size и sort игнорируются, порядок — по ID
+     * @return тело ответа
+     * @throws IllegalArgumentException если dto == null
+     */
+    @Override
+    public StreamingResponseBody exportUsers(UserSearchRequestDto dto) {
+        if (dto == null) {
+            log.warn("Validation failed: dto cannot be null");
+            throw new IllegalArgumentException("dto cannot be null");
+        }
+        Specification<BaseUser> spec = userSpec(dto);
+        int fetchSize = Math.max(1, exportProps.fetchSize());
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        return out -> metrics.timed(BankMetrics.USERS_EXPORT, () -> readOnly.execute(status -> {
+            try (Stream<UserExportRow> rows = userRepository.streamForExport(spec, fetchSize)) {
+                long count = UserExportWriter.write(rows, out, fetchSize);
+                log.info("Users exported: rows={}", count);
+                return count;
+            } catch (IOException e) {
+                log.warn("User export aborted: {}", e.toString());
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    private static Specification<BaseUser> userSpec(UserSearchRequestDto dto) {
+        return Specification.allOf(
                 UserSpecs.nameContains(dto.name()),
                 UserSpecs.emailContains(dto.email()),
                 UserSpecs.roleEq(dto.role()),
                 UserSpecs.isActiveEq(dto.isActive())
         );
-        return userRepository.findAll(spec, pageable).map(mapper::userToUserDTO);
     }
 
     /**
      * Удаляет пользователя по ID.
+     * <p>
+     * Без карт пользователь удаляется сразу. С картами (ограничение {@code fk_cards_user ... ON DELETE RESTRICT})
+     * пользователь деактивируется, его карты блокируются одним {@code UPDATE}, а в {@code purge_requested_at}
+     * ставится отметка: карты порциями архивирует и затем удаляет пользователя {@code UserPurgeJob}.
+     * Повторный вызов для ожидающего удаления пользователя ничего не меняет.
      *
      * @param userId идентификатор пользователя
+     * @return {@code true}, если пользователь удалён сразу; {@code false}, если удаление запланировано
      * @throws IllegalArgumentException если {@code userId} равен null
      * @throws UserNotFoundException    если пользователь не найден
      */
     @Override
     @Transactional
-    public void deleteUser(Long userId) {
+    public boolean deleteUser(Long userId) {
         if (userId == null) {
             log.warn("Validation failed: User id cannot be null");
             throw new IllegalArgumentException("User id cannot be null");
@@ -174,8 +258,53 @@ public class UserServiceImpl implements UserService {
         BaseUser user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User not found + " + userId));
 
-        userRepository.delete(user);
+        if (!cardRepository.existsByUserId(userId)) {
+            userRepository.delete(user);
+            return true;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        user.setActive(false);
+        if (user.getPurgeRequestedAt() == null) {
+            user.setPurgeRequestedAt(now);
+        }
+        int blocked = blockCards(userId, now);
+        log.info("User {} deactivated and scheduled for purge, {} cards blocked", userId, blocked);
+        return false;
+    }
+
+    /**
+     * Деактивирует пользователя и блокирует все его активные карты.
+     * <p>
+     * Два {@code UPDATE} в одной транзакции, без загрузки пользователя и карт; версия заблокированных карт
+     * увеличивается, кэш балансов получает новые версии после фиксации.
+     *
+     * @param userId идентификатор пользователя
+     * @return число заблокированных карт
+     * @throws IllegalArgumentException если {@code userId} равен null
+     * @throws UserNotFoundException    если пользователь не найден
+     */
+    @Override
+    @Transactional
+    public int deactivateUser(Long userId) {
+        if (userId == null) {
+            log.warn("Validation failed: User id cannot be null");
+            throw new IllegalArgumentException("User id cannot be null");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (userRepository.deactivate(userId, now) == 0) {
+            throw new UserNotFoundException("User not found + " + userId);
+        }
+        int blocked = blockCards(userId, now);
+        log.info("User {} deactivated, {} cards blocked", userId, blocked);
+        return blocked;
+    }
 
+    private int blockCards(Long userId, LocalDateTime now) {
+        List<CardVersionRow> blocked = cardRepository.blockByUserId(userId, now);
+        blocked.forEach(r -> balanceCache.invalidateAfterCommit(r.id(), r.version()));
+        return blocked.size();
     }
 
     /**
@@ -0,0 +1,127 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Адаптивный лимит одновременных запросов (градиентный алгоритм, как Gradient2 из Netflix concurrency-limits).
+ * <p>
+ * Лимит подстраивается под задержку:
+ * <ul>
+ *   <li>долгая задержка — медленное экспоненциальное среднее ({@code longWindow} выборок), «нормальная» задержка;</li>
+ *   <li>градиент {@code tolerance × long / sample} в пределах {@code [0.5, 1]}: пока задержка не выросла больше
+ *       чем в {@code tolerance} раз, лимит растёт на {@code √limit}, иначе уменьшается пропорционально росту;</li>
+ *   <li>сброс (таймаут блокировки, 5xx) уменьшает лимит в {@link #BACKOFF} раз;</li>
+ *   <li>пока занято меньше половины лимита, выборки лимит не меняют — при малой нагрузке он не раздувается.</li>
+ * </ul>
+ * Захват не блокирует: при исчерпании лимита {@link #tryAcquire()} сразу возвращает {@code false}.
+ * Пересчёт лимита выполняется под {@link ReentrantLock#tryLock()}: выборка, пришедшая во время чужого пересчёта,
+ * пропускается.
+ */
+public class AdaptiveLimiter {
+
+    static final double BACKOFF = 0.9;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final int longWindow;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRtt;
+    private int samples;
+
+    /**
+     * @param initialLimit лимит до первых выборок
+     * @param minLimit     нижняя граница
+     * @param maxLimit     верхняя граница
+     * @param tolerance    допустимый рост задержки относительно долгой средней, не меньше 1
+     * @param longWindow   окно долгой средней задержки в выборках
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, int longWindow) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = Math.max(1.0, tolerance);
+        this.longWindow = Math.max(1, longWindow);
+        this.estimatedLimit = clamp(initialLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * @return {@code true}, если запрос допущен; тогда обязателен {@link #release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Освобождает место и учитывает выборку.
+     *
+     * @param rttNanos время выполнения запроса
+     * @param dropped  запрос завершился перегрузкой (таймаут блокировки, 5xx)
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int inflightBefore = inflight.getAndDecrement();
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            if (dropped) {
+                update(estimatedLimit * BACKOFF);
+                return;
+            }
+            double sample = Math.max(1, rttNanos);
+            samples++;
+            longRtt = longRtt == 0 ? sample : longRtt + (sample - longRtt) / Math.min(samples, longWindow);
+            if (longRtt / sample > 2) {
+                // задержка вернулась к норме: долгая средняя догоняет быстрее, чем за окно
+                longRtt *= 0.95;
+            }
+            if (inflightBefore < estimatedLimit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / sample));
+            double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            update(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param ratio доля лимита
+     * @return занято не меньше {@code ratio} от текущего лимита
+     */
+    public boolean saturated(double ratio) {
+        return inflight.get() >= limit * ratio;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inflight() {
+        return inflight.get();
+    }
+
+    private void update(double value) {
+        estimatedLimit = clamp(value);
+        limit = (int) estimatedLimit;
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.BalanceCacheProps;
+import com.example.bankcards.config.props.ReplicaProps;
+import com.example.bankcards.entity.BaseCard;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Кэш балансов карт: ID карты → баланс, версия записи ({@code @Version}) и владелец.
+ * <p>
+ * Правила согласованности:
+ * <ul>
+ *   <li>После фиксации перевода или изменения карты запись обновляется (afterCommit) значением
+ *       с новой версией; откат кэш не трогает</li>
+ *   <li>Запись заменяется только значением с версией не ниже текущей, поэтому чтение, начатое до
+ *       фиксации и завершившееся после неё, не вернёт в кэш старый баланс</li>
+ *   <li>Удаление карты и сигнал другого узла оставляют «надгробие» с версией: оно не отдаётся
+ *       как баланс и блокирует запись более старых значений</li>
+ *   <li>Чужая карта — промах: ответ (404/403) формирует обычный путь через БД</li>
+ *   <li>При маршрутизации чтений на реплику кэш заполняется только после собственных записей:
+ *       реплика может вернуть устаревшую версию</li>
+ *   <li>Записи живут не дольше {@code balance.cache.ttl}. При переполнении сначала удаляются истёкшие записи,
+ *       затем — ограниченное число записей с ближайшим сроком истечения (превышение и ещё 10% {@code max-size}).
+ *       Версия вытесненной записи остаётся «нижней границей» до конца её TTL: старое значение
+ *       по-прежнему не попадёт в кэш</li>
+ * </ul>
+ * Изменения с других узлов приходят через {@link InvalidationChannel} (если он настроен). Версии, изменённые
+ * транзакцией, публикуются одним сообщением перед её фиксацией, через соединение самой транзакции:
+ * доставляются при фиксации, при откате отбрасываются.
+ */
+@Component
+public class BalanceCache {
+
+    /**
+     * Канал рассылки изменений балансов между экземплярами приложения.
+     */
+    public interface InvalidationChannel {
+
+        /**
+         * Сообщает другим узлам новые версии карт. Вызывается внутри транзакции перед фиксацией
+         * (вне транзакции — сразу); сообщение должно уходить через соединение текущей транзакции.
+         *
+         * @param versions ID карты → версия после изменения ({@link Long#MAX_VALUE} — карта удалена)
+         */
+        void publish(Map<Long, Long> versions);
+    }
+
+    /**
+     * Запись кэша; {@code balance == null} — надгробие.
+     */
+    private record Entry(BigDecimal balance, long version, long ownerId, long expiresAtNanos) {
+
+        boolean expired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    /**
+     * Нижние границы версий вытесненных записей (надгробия); не больше {@code maxSize}.
+     */
+    private final ConcurrentHashMap<Long, Entry> floors = new ConcurrentHashMap<>();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+    private final boolean enabled;
+    private final boolean populateOnRead;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final BankMetrics metrics;
+    private final ObjectProvider<InvalidationChannel> channel;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public BalanceCache(BalanceCacheProps props,
+                        ReplicaProps replicaProps,
+                        BankMetrics metrics,
+                        ObjectProvider<InvalidationChannel> channel,
+                        ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.enabled = props.enabled() && props.maxSize() > 0 && props.ttl() != null && !props.ttl().isZero();
+        this.populateOnRead = !replicaProps.enabled();
+        this.maxSize = props.maxSize();
+        this.ttlNanos = enabled ? props.ttl().toNanos() : 0L;
+        this.metrics = metrics;
+        this.channel = channel;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Возвращает закэшированный баланс карты, если она принадлежит пользователю.
+     *
+     * @param cardId  ID карты
+     * @param ownerId ID текущего пользователя
+     * @return баланс или пусто при промахе
+     */
+    public Optional<BigDecimal> find(Long cardId, Long ownerId) {
+        if (!enabled || cardId == null || ownerId == null) {
+            return Optional.empty();
+        }
+        Entry e = entries.get(cardId);
+        if (e != null && e.expired(System.nanoTime())) {
+            entries.remove(cardId, e);
+            e = null;
+        }
+        if (e == null || e.balance() == null || e.ownerId() != ownerId) {
+            metrics.balanceCache("miss");
+            return Optional.empty();
+        }
+        metrics.balanceCache("hit");
+        return Optional.of(e.balance());
+    }
+
+    /**
+     * Возвращает версию закэшированного баланса (для ETag), если карта принадлежит пользователю.
+     *
+     * @param cardId  ID карты
+     * @param ownerId ID текущего пользователя
+     * @return версия или пусто при промахе
+     */
+    public Optional<Long> findVersion(Long cardId, Long ownerId) {
+        if (!enabled || cardId == null || ownerId == null) {
+            return Optional.empty();
+        }
+        Entry e = entries.get(cardId);
+        if (e == null || e.balance() == null || e.ownerId() != ownerId || e.expired(System.nanoTime())) {
+            return Optional.empty();
+        }
+        return Optional.of(e.version());
+    }
+
+    /**
+     * Кэширует баланс, прочитанный из БД.
+     *
+     * @param card    загруженная карта
+     * @param ownerId ID владельца
+     */
+    public void cacheRead(BaseCard card, Long ownerId) {
+        if (enabled && populateOnRead) {
+            put(card, ownerId);
+        }
+    }
+
+    /**
+     * Обновляет запись после фиксации текущей транзакции и сообщает об изменении другим узлам.
+     * <p>
+     * Баланс и версия читаются из сущности после flush: версия для других узлов — перед фиксацией
+     * (после явного flush), запись локального кэша — в afterCommit. Вне транзакции запись обновляется сразу.
+     *
+     * @param card    изменённая карта (управляемая сущность)
+     * @param ownerId ID владельца после изменения
+     */
+    public void updateAfterCommit(BaseCard card, Long ownerId) {
+        if (!enabled) {
+            return;
+        }
+        Pending pending = pending();
+        if (pending == null) {
+            put(card, ownerId);
+            if (card.getId() != null && card.getVersion() != null) {
+                publish(Map.of(card.getId(), card.getVersion()));
+            }
+            return;
+        }
+        pending.cards.add(card);
+        pending.local.add(() -> put(card, ownerId));
+    }
+
+    /**
+     * Заменяет запись надгробием с новой версией после фиксации массового изменения карты в обход сущности
+     * (например, истечения срока).
+     *
+     * @param cardId  ID карты
+     * @param version версия карты после изменения
+     */
+    public void invalidateAfterCommit(long cardId, long version) {
+        if (!enabled) {
+            return;
+        }
+        Pending pending = pending();
+        if (pending == null) {
+            invalidate(cardId, version);
+            publish(Map.of(cardId, version));
+            return;
+        }
+        pending.versions.merge(cardId, version, Math::max);
+        pending.local.add(() -> invalidate(cardId, version));
+    }
+
+    /**
+     * Удаляет запись после фиксации удаления карты.
+     *
+     * @param cardId ID карты
+     */
+    public void evictAfterCommit(Long cardId) {
+        if (cardId != null) {
+            invalidateAfterCommit(cardId, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Применяет сигнал другого узла: запись с версией ниже {@code version} заменяется надгробием.
+     *
+     * @param cardId  ID карты
+     * @param version версия карты на другом узле
+     */
+    public void invalidate(long cardId, long version) {
+        if (!enabled) {
+            return;
+        }
+        boolean[] replaced = new boolean[1];
+        entries.compute(cardId, (id, old) -> {
+            if (old != null && old.version() >= version && !old.expired(System.nanoTime())) {
+                return old;
+            }
+            replaced[0] = old != null && old.balance() != null;
+            return new Entry(null, version, 0L, System.nanoTime() + ttlNanos);
+        });
+        if (replaced[0]) {
+            metrics.balanceCache("invalidated");
+        }
+        trim();
+    }
+
+    /**
+     * Перестаёт отдавать все балансы (например, после разрыва канала инвалидаций, когда сигналы могли быть потеряны).
+     * <p>
+     * Записи заменяются надгробиями с теми же версиями: значения старше уже виденных в кэш не вернутся.
+     */
+    public void clear() {
+        entries.replaceAll((id, e) -> e.balance() == null ? e : new Entry(null, e.version(), 0L, e.expiresAtNanos()));
+    }
+
+    private void put(BaseCard card, Long ownerId) {
+        if (card.getId() == null || card.getVersion() == null || card.getBalance() == null || ownerId == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        Entry fresh = new Entry(card.getBalance(), card.getVersion(), ownerId, now + ttlNanos);
+        entries.compute(card.getId(), (id, old) -> {
+            if (old != null && !old.expired(now) && old.version() > fresh.version()) {
+                return old;
+            }
+            // вытеснение переносит версию в floors под блокировкой того же ключа entries, поэтому проверка здесь не гонится с ним
+            Entry floor = floors.get(id);
+            if (floor != null && !floor.expired(now) && floor.version() > fresh.version()) {
+                return old;
+            }
+            return fresh;
+        });
+        trim();
+    }
+
+    private void publish(Map<Long, Long> versions) {
+        InvalidationChannel c = channel.getIfAvailable();
+        if (c != null) {
+            c.publish(versions);
+        }
+    }
+
+    private void trim() {
+        if (entries.size() <= maxSize || !trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            entries.values().removeIf(e -> e.expired(now));
+            floors.values().removeIf(e -> e.expired(now));
+            int excess = entries.size() - maxSize;
+            if (excess > 0) {
+                for (Long id : soonestExpiring(entries, excess + maxSize / 10, now)) {
+                    entries.computeIfPresent(id, (key, e) -> {
+                        floors.merge(key, new Entry(null, e.version(), 0L, e.expiresAtNanos()),
+                                (a, b) -> a.version() >= b.version() ? a : b);
+                        return null;
+                    });
+                    metrics.balanceCache("evicted");
+                }
+            }
+            int floorExcess = floors.size() - maxSize;
+            if (floorExcess > 0) {
+                soonestExpiring(floors, floorExcess + maxSize / 10, now).forEach(floors::remove);
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    /**
+     * Ключи {@code count} записей с ближайшим сроком истечения, за один проход без сортировки всей карты.
+     */
+    private static List<Long> soonestExpiring(Map<Long, Entry> map, int count, long now) {
+        Comparator<Map.Entry<Long, Entry>> byExpiry =
+                Comparator.comparingLong(e -> e.getValue().expiresAtNanos() - now);
+        PriorityQueue<Map.Entry<Long, Entry>> latestFirst = new PriorityQueue<>(count + 1, byExpiry.reversed());
+        for (Map.Entry<Long, Entry> e : map.entrySet()) {
+            latestFirst.add(Map.entry(e.getKey(), e.getValue()));
+            if (latestFirst.size() > count) {
+                latestFirst.poll();
+            }
+        }
+        return latestFirst.stream().map(Map.Entry::getKey).toList();
+    }
+
+    /**
+     * @return изменения текущей транзакции (создаются и регистрируются при первом обращении) или null вне транзакции
+     */
+    private Pending pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * Изменения карт одной транзакции: одно сообщение другим узлам перед фиксацией, обновление кэша после неё.
+     */
+    private final class Pending implements TransactionSynchronization {
+
+        private final List<BaseCard> cards = new ArrayList<>();
+        private final Map<Long, Long> versions = new LinkedHashMap<>();
+        private final List<Runnable> local = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (readOnly || channel.getIfAvailable() == null) {
+                return;
+            }
+            if (!cards.isEmpty()) {
+                flushEntities();
+            }
+            Map<Long, Long> all = new LinkedHashMap<>(versions);
+            for (BaseCard card : cards) {
+                if (card.getId() != null && card.getVersion() != null) {
+                    all.merge(card.getId(), card.getVersion(), Math::max);
+                }
+            }
+            if (!all.isEmpty()) {
+                publish(all);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            local.forEach(Runnable::run);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(BalanceCache.this);
+        }
+
+        /**
+         * Версия {@code @Version} увеличивается при flush, а JPA выполняет его только при фиксации.
+         */
+        private void flushEntities() {
+            EntityManagerFactory emf = entityManagerFactory.getIfAvailable();
+            EntityManager em = emf == null ? null : EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+            if (em != null) {
+                em.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.LedgerReconciliationProps;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сверяет балансы карт с суммой движений в журнале {@code card_movements} ({@link CardLedger}).
+ * <p>
+ * Устройство:
+ * <ul>
+ *   <li>Диапазон id карт {@code [min, max]} делится пополам до диапазонов не больше
+ *       {@code ledger.reconciliation.range-size}; половины проверяются параллельно (fork/join)
+ *       в пуле из {@code parallelism} потоков, создаваемом на один запуск</li>
+ *   <li>Каждый диапазон — один запрос в отдельной read-only транзакции со своим соединением
+ *       (при включённой реплике — на реплике); сумма движений считается по индексу
+ *       {@code ix_card_movements_card}, балансы читаются по первичному ключу</li>
+ *   <li>Запрос видит один снимок: карта и её движения согласованы, даже если перевод фиксируется
+ *       во время проверки. Строки {@code cards} не блокируются, переводы задачу не ждут</li>
+ *   <li>Расхождения записываются в {@code balance_mismatches} (на основной БД), их число за последний
+ *       запуск — gauge {@code bank.ledger.mismatches}</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ledger.reconciliation", name = "enabled", havingValue = "true")
+public class BalanceReconciliationJob {
+
+    static final String ID_BOUNDS_SQL = "select min(id), max(id) from cards";
+
+    static final String RANGE_SQL = """
+            select c.id, c.balance, coalesce(m.total, 0)
+              from cards c
+              left join (select card_id, sum(amount) as total
+                           from card_movements
+                          where card_id between ? and ?
+                          group by card_id) m on m.card_id = c.id
+             where c.id between ? and ?
+               and c.balance <> coalesce(m.total, 0)
+            """;
+
+    static final String INSERT_MISMATCH_SQL = """
+            insert into balance_mismatches (run_at, card_id, balance, ledger_balance)
+            values (?, ?, ?, ?)
+            """;
+
+    private static final int LOGGED_IDS = 20;
+
+    /**
+     * Карта, баланс которой не совпал с журналом.
+     */
+    record Mismatch(long cardId, BigDecimal balance, BigDecimal ledgerBalance) { }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate writeTx;
+    private final BankMetrics metrics;
+    private final long rangeSize;
+    private final int parallelism;
+    private final AtomicInteger lastMismatches = new AtomicInteger();
+
+    public BalanceReconciliationJob(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                                    BankMetrics metrics, LedgerReconciliationProps props) {
+        this.jdbc = jdbc;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.readTx.setTimeout(120);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setTimeout(30);
+        this.metrics = metrics;
+        this.rangeSize = Math.max(1, props.rangeSize());
+        this.parallelism = Math.max(1, props.parallelism());
+        metrics.ledgerMismatchesGauge(lastMismatches);
+    }
+
+    /**
+     * Плановый запуск.
+     */
+    @Scheduled(fixedDelayString = "${ledger.reconciliation.interval:24h}",
+            initialDelayString = "${ledger.reconciliation.initial-delay:1h}")
+    public void reconcile() {
+        List<Mismatch> mismatches = metrics.timed(BankMetrics.LEDGER_RECONCILIATION,
+                () -> reconcile(LocalDateTime.now()));
+        if (mismatches.isEmpty()) {
+            log.info("Ledger reconciliation: balances match");
+        } else {
+            log.warn("Ledger reconciliation: {} mismatches, cards {}", mismatches.size(),
+                    mismatches.stream().limit(LOGGED_IDS).map(Mismatch::cardId).toList());
+        }
+    }
+
+    /**
+     * Проверяет все карты и записывает расхождения с отметкой {@code runAt}.
+     *
+     * @param runAt момент запуска
+     * @return найденные расхождения
+     */
+    public List<Mismatch> reconcile(LocalDateTime runAt) {
+        long[] bounds = readTx.execute(status -> jdbc.queryForObject(ID_BOUNDS_SQL,
+                (rs, i) -> rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)}));
+        List<Mismatch> mismatches = List.of();
+        if (bounds != null) {
+            try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+                mismatches = pool.invoke(new RangeTask(bounds[0], bounds[1]));
+            }
+        }
+        if (!mismatches.isEmpty()) {
+            Timestamp ts = Timestamp.valueOf(runAt);
+            List<Mismatch> rows = mismatches;
+            writeTx.executeWithoutResult(status -> jdbc.batchUpdate(INSERT_MISMATCH_SQL, rows, 500, (ps, m) -> {
+                ps.setTimestamp(1, ts);
+                ps.setLong(2, m.cardId());
+                ps.setBigDecimal(3, m.balance());
+                ps.setBigDecimal(4, m.ledgerBalance());
+            }));
+        }
+        lastMismatches.set(mismatches.size());
+        return mismatches;
+    }
+
+    private List<Mismatch> checkRange(long fromId, long toId) {
+        return readTx.execute(status -> jdbc.query(RANGE_SQL,
+                (rs, i) -> new Mismatch(rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3)),
+                fromId, toId, fromId, toId));
+    }
+
+    /**
+     * Проверка диапазона id {@code [fromId, toId]}: крупный диапазон делится пополам.
+     */
+    private final class RangeTask extends RecursiveTask<List<Mismatch>> {
+
+        private final long fromId;
+        private final long toId;
+
+        RangeTask(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected List<Mismatch> compute() {
+            if (toId - fromId < rangeSize) {
+                return checkRange(fromId, toId);
+            }
+            long mid = fromId + (toId - fromId) / 2;
+            RangeTask left = new RangeTask(fromId, mid);
+            left.fork();
+            List<Mismatch> right = new RangeTask(mid + 1, toId).compute();
+            List<Mismatch> all = new ArrayList<>(left.join());
+            all.addAll(right);
+            return all;
+        }
+    }
+}
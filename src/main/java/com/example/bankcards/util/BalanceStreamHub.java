@@ -0,0 +1,294 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.BalanceStreamProps;
+import com.example.bankcards.dto.BalanceEventDto;
+import com.example.bankcards.entity.BaseCard;
+import com.example.bankcards.exception.StreamLimitException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Внутрипроцессная рассылка изменений баланса подписчикам SSE-потоков.
+ * <p>
+ * Устройство:
+ * <ul>
+ *   <li>На каждую карту — свой список подписчиков; не больше {@code balance.stream.max-per-card}</li>
+ *   <li>У подписчика ограниченный буфер событий и собственный виртуальный поток отправки:
+ *       медленный клиент не задерживает ни перевод, ни других подписчиков</li>
+ *   <li>Переполнение буфера — подписчик отключается; клиент переподключается и получает текущий баланс
+ *       первым событием</li>
+ *   <li>События публикуются после фиксации транзакции (afterCommit); откат ничего не отправляет</li>
+ *   <li>Событие с версией карты не выше уже отправленной пропускается, поэтому начальный баланс,
+ *       прочитанный параллельно с переводом, не перезапишет более новый</li>
+ *   <li>Смена владельца или удаление карты закрывает потоки</li>
+ * </ul>
+ * Рассылка только в пределах экземпляра: переводы, выполненные другими узлами, в поток не попадают.
+ */
+@Slf4j
+@Component
+public class BalanceStreamHub {
+
+    /**
+     * Получатель событий подписчика.
+     */
+    public interface Sink {
+
+        /**
+         * Отправляет событие баланса клиенту.
+         */
+        void send(BalanceEventDto event) throws IOException;
+
+        /**
+         * Отправляет пустое сообщение для проверки соединения.
+         */
+        void heartbeat() throws IOException;
+
+        /**
+         * Завершает поток со стороны сервера.
+         */
+        void complete();
+    }
+
+    private final ConcurrentHashMap<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final int bufferSize;
+    private final int maxPerCard;
+    private final long heartbeatNanos;
+    private final long timeoutMillis;
+    private final BankMetrics metrics;
+
+    public BalanceStreamHub(BalanceStreamProps props, BankMetrics metrics) {
+        this.bufferSize = Math.max(1, props.bufferSize());
+        this.maxPerCard = Math.max(1, props.maxPerCard());
+        this.heartbeatNanos = props.heartbeat().toNanos();
+        this.timeoutMillis = props.timeout().toMillis();
+        this.metrics = metrics;
+        metrics.balanceStreamsGauge(active);
+    }
+
+    /**
+     * Открывает SSE-поток баланса карты.
+     *
+     * @param cardId  ID карты
+     * @param ownerId ID текущего пользователя
+     * @param loader  загрузка карты с проверкой владельца; выполняется после регистрации подписчика
+     * @return поток событий {@code balance}
+     * @throws StreamLimitException если на карту уже открыто {@code max-per-card} потоков
+     */
+    public SseEmitter open(Long cardId, Long ownerId, Supplier<BaseCard> loader) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = subscribe(cardId, ownerId, loader, new Sink() {
+            @Override
+            public void send(BalanceEventDto event) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .name("balance")
+                        .id(String.valueOf(event.version()))
+                        .data(event, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void heartbeat() throws IOException {
+                emitter.send(SseEmitter.event().comment("ping"));
+            }
+
+            @Override
+            public void complete() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscriber::cancel);
+        emitter.onTimeout(subscriber::cancel);
+        emitter.onError(e -> subscriber.cancel());
+        return emitter;
+    }
+
+    /**
+     * Регистрирует подписчика, отправляет ему текущий баланс и запускает поток отправки.
+     *
+     * @return подписчик; {@link Subscriber#cancel()} отписывает его
+     */
+    Subscriber subscribe(Long cardId, Long ownerId, Supplier<BaseCard> loader, Sink sink) {
+        Subscriber subscriber = new Subscriber(cardId, ownerId, sink);
+        boolean[] rejected = new boolean[1];
+        subscribers.compute(cardId, (id, list) -> {
+            List<Subscriber> l = list == null ? new CopyOnWriteArrayList<>() : list;
+            if (l.size() >= maxPerCard) {
+                rejected[0] = true;
+            } else {
+                l.add(subscriber);
+            }
+            return l;
+        });
+        if (rejected[0]) {
+            log.warn("Balance stream rejected: too many streams for cardId={}", cardId);
+            metrics.balanceStream("rejected");
+            throw new StreamLimitException("Too many balance streams for card " + cardId);
+        }
+        active.incrementAndGet();
+
+        BaseCard card;
+        try {
+            card = loader.get();
+        } catch (RuntimeException e) {
+            subscriber.cancelled.set(true);
+            unregister(subscriber);
+            active.decrementAndGet();
+            throw e;
+        }
+        subscriber.queue.offer(event(card));
+        metrics.balanceStream("opened");
+        subscriber.thread = Thread.ofVirtual().name("balance-stream-" + cardId).start(subscriber::run);
+        return subscriber;
+    }
+
+    /**
+     * Рассылает баланс карты подписчикам после фиксации текущей транзакции.
+     * <p>
+     * Баланс и версия читаются из сущности в afterCommit, то есть уже после flush.
+     * Вне транзакции рассылка выполняется сразу.
+     *
+     * @param card    изменённая карта (управляемая сущность)
+     * @param ownerId ID владельца после изменения
+     */
+    public void publishAfterCommit(BaseCard card, Long ownerId) {
+        afterCommit(() -> publish(event(card), ownerId));
+    }
+
+    /**
+     * Закрывает все потоки карты после фиксации её удаления.
+     *
+     * @param cardId ID карты
+     */
+    public void closeAfterCommit(Long cardId) {
+        afterCommit(() -> subscribersOf(cardId).forEach(Subscriber::close));
+    }
+
+    /**
+     * Число открытых потоков (для метрик и тестов).
+     */
+    public int activeStreams() {
+        return active.get();
+    }
+
+    private void publish(BalanceEventDto event, Long ownerId) {
+        for (Subscriber s : subscribersOf(event.cardId())) {
+            if (!s.ownerId.equals(ownerId)) {
+                s.close();
+            } else if (!s.queue.offer(event)) {
+                log.warn("Balance stream dropped: slow consumer, cardId={}, buffer={}", event.cardId(), bufferSize);
+                metrics.balanceStream("dropped");
+                s.close();
+            }
+        }
+    }
+
+    private List<Subscriber> subscribersOf(Long cardId) {
+        return cardId == null ? List.of() : subscribers.getOrDefault(cardId, List.of());
+    }
+
+    private void unregister(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.cardId, (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static BalanceEventDto event(BaseCard card) {
+        return new BalanceEventDto(card.getId(), card.getBalance(), card.getVersion());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Подписчик одной карты: буфер событий и поток, отправляющий их клиенту.
+     */
+    final class Subscriber {
+
+        private final Long cardId;
+        private final Long ownerId;
+        private final Sink sink;
+        private final ArrayBlockingQueue<BalanceEventDto> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile Thread thread;
+        private long lastVersion = Long.MIN_VALUE;
+
+        private Subscriber(Long cardId, Long ownerId, Sink sink) {
+            this.cardId = cardId;
+            this.ownerId = ownerId;
+            this.sink = sink;
+        }
+
+        private void run() {
+            try {
+                while (!cancelled.get()) {
+                    BalanceEventDto event = queue.poll(heartbeatNanos, TimeUnit.NANOSECONDS);
+                    if (event == null) {
+                        sink.heartbeat();
+                    } else if (event.version() == null || event.version() > lastVersion) {
+                        sink.send(event);
+                        lastVersion = event.version() == null ? lastVersion : event.version();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Balance stream closed by client: cardId={}, reason={}", cardId, e.toString());
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Отписывает без завершения ответа (клиент ушёл, истёк таймаут).
+         *
+         * @return {@code false}, если подписчик уже был отписан
+         */
+        boolean cancel() {
+            if (!cancelled.compareAndSet(false, true)) {
+                return false;
+            }
+            unregister(this);
+            active.decrementAndGet();
+            metrics.balanceStream("closed");
+            Thread t = thread;
+            if (t != null && t != Thread.currentThread()) {
+                t.interrupt();
+            }
+            return true;
+        }
+
+        /**
+         * Отписывает и завершает ответ со стороны сервера.
+         */
+        void close() {
+            if (cancel()) {
+                sink.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.bankcards.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Метрики горячих путей приложения (Micrometer).
+ * <p>
+ * Теги ограничены по кардинальности: только исход операции, тип исключения и фиксированные
+ * перечни причин/операций. Идентификаторы пользователей и карт в теги не попадают.
+ * <ul>
+ *   <li>{@code outcome} — {@code success} или {@code failure}</li>
+ *   <li>{@code exception} — простое имя класса исключения или {@code none}</li>
+ * </ul>
+ * Перцентили и гистограммы для таймеров с префиксом {@code bank.} настраиваются
+ * в {@code management.metrics.distribution} (application.yml).
+ * <p>
+ * Каждый измеряемый вызов также открывает дочерний span с тем же именем и тегом {@code op},
+ * чтобы задержку запроса можно было разложить по операциям в трассировке.
+ */
+@Component
+@RequiredArgsConstructor
+public class BankMetrics {
+
+    public static final String TRANSFER = "bank.transfer";
+    public static final String BALANCE = "bank.balance";
+    public static final String CARDS_LIST = "bank.cards.list";
+    public static final String CARDS_EXPORT = "bank.cards.export";
+    public static final String USERS_EXPORT = "bank.users.export";
+    public static final String CARDS_EXPIRY = "bank.cards.expiry";
+    public static final String CARDS_EXPIRED = "bank.cards.expired";
+    public static final String CARDS_BULK_STATUS = "bank.cards.bulk.status";
+    public static final String USERS_PURGE = "bank.users.purge";
+    public static final String CARDS_ARCHIVED = "bank.cards.archived";
+    public static final String LEDGER_RECONCILIATION = "bank.ledger.reconciliation";
+    public static final String LEDGER_MISMATCHES = "bank.ledger.mismatches";
+    public static final String CARD_CREATE = "bank.card.create";
+    public static final String LOGIN = "bank.auth.login";
+    public static final String CRYPTO = "bank.crypto.pan";
+    public static final String POLICY_REJECTIONS = "bank.policy.rejections";
+    public static final String LOCK_TIMEOUTS = "bank.lock.timeouts";
+    public static final String DB_STATEMENTS = "bank.db.statements";
+    public static final String DB_TIME = "bank.db.time";
+    public static final String DB_SLOW_STATEMENTS = "bank.db.slow.statements";
+    public static final String BALANCE_CACHE = "bank.balance.cache";
+    public static final String BALANCE_STREAM = "bank.balance.stream";
+    public static final String BALANCE_STREAMS_ACTIVE = "bank.balance.stream.active";
+    public static final String OVERLOAD_LIMIT = "bank.overload.limit";
+    public static final String OVERLOAD_INFLIGHT = "bank.overload.inflight";
+    public static final String OVERLOAD_REJECTED = "bank.overload.rejected";
+    public static final String RATE_LIMIT = "bank.ratelimit.requests";
+    public static final String RATE_LIMIT_BUCKETS = "bank.ratelimit.buckets";
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+    private final Tracer tracer;
+
+    /**
+     * Вызов, время которого измеряется.
+     *
+     * @param <T> результат
+     * @param <E> проверяемое исключение вызова
+     */
+    @FunctionalInterface
+    public interface TimedCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Выполняет вызов в span'е {@code name} и записывает время в таймер {@code name} с тегами исхода.
+     * Исключение пробрасывается без изменений.
+     *
+     * @param name имя таймера (константа этого класса)
+     * @param call вызов
+     * @return результат вызова
+     */
+    public <T, E extends Exception> T timed(String name, TimedCall<T, E> call) throws E {
+        return timed(name, null, call);
+    }
+
+    /**
+     * То же, что {@link #timed(String, TimedCall)}, с дополнительным тегом {@code op}.
+     *
+     * @param name имя таймера
+     * @param op   операция из фиксированного перечня (например, {@code encrypt}); null — без тега
+     * @param call вызов
+     * @return результат вызова
+     */
+    public <T, E extends Exception> T timed(String name, String op, TimedCall<T, E> call) throws E {
+        Timer.Sample sample = Timer.start(registry);
+        Span span = tracer.nextSpan().name(name);
+        if (op != null) {
+            span.tag("op", op);
+        }
+        String exception = NONE;
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span.start())) {
+            return call.call();
+        } catch (Throwable t) {
+            exception = t.getClass().getSimpleName();
+            span.error(t);
+            throw t;
+        } finally {
+            span.end();
+            Timer.Builder timer = Timer.builder(name)
+                    .tag("outcome", NONE.equals(exception) ? "success" : "failure")
+                    .tag("exception", exception);
+            if (op != null) {
+                timer.tag("op", op);
+            }
+            sample.stop(timer.register(registry));
+        }
+    }
+
+    /**
+     * Учитывает отказ {@link CardsPolicy}.
+     *
+     * @param reason причина из фиксированного перечня (например, {@code not_active})
+     */
+    public void policyRejected(String reason) {
+        Counter.builder(POLICY_REJECTIONS).tag("reason", reason).register(registry).increment();
+    }
+
+    /**
+     * Учитывает ответ 423 из-за таймаута блокировки или транзакции.
+     *
+     * @param ex исключение, приведшее к ответу
+     */
+    public void lockTimeout(Throwable ex) {
+        Counter.builder(LOCK_TIMEOUTS).tag("exception", ex.getClass().getSimpleName()).register(registry).increment();
+    }
+
+    /**
+     * Публикует итог учёта SQL одного HTTP-запроса.
+     *
+     * @param method HTTP-метод
+     * @param uri    шаблон маршрута (например, {@code /api/v1/card/{cardId}}), не фактический путь
+     * @param stats  счётчики запроса
+     */
+    public void dbRequest(String method, String uri, DbStats stats) {
+        DistributionSummary.builder(DB_STATEMENTS)
+                .baseUnit("statements")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(registry)
+                .record(stats.statements());
+        Timer.builder(DB_TIME)
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(registry)
+                .record(stats.jdbcNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Учитывает SQL-выражение, превысившее {@code datasource.stats.slow-threshold}.
+     */
+    public void slowStatement() {
+        Counter.builder(DB_SLOW_STATEMENTS).register(registry).increment();
+    }
+
+    /**
+     * Учитывает карты, переведённые в {@code EXPIRED} одной порцией {@link CardExpirySweeper}.
+     *
+     * @param count число карт
+     */
+    public void cardsExpired(int count) {
+        Counter.builder(CARDS_EXPIRED).register(registry).increment(count);
+    }
+
+    /**
+     * Учитывает карты, перенесённые в архив одной порцией {@link UserPurgeJob}.
+     *
+     * @param count число карт
+     */
+    public void cardsArchived(int count) {
+        Counter.builder(CARDS_ARCHIVED).register(registry).increment(count);
+    }
+
+    /**
+     * Учитывает обращение к {@link BalanceCache}.
+     *
+     * @param result {@code hit}, {@code miss}, {@code invalidated} (запись удалена по сигналу другого узла)
+     *               или {@code evicted} (запись вытеснена при переполнении)
+     */
+    public void balanceCache(String result) {
+        Counter.builder(BALANCE_CACHE).tag("result", result).register(registry).increment();
+    }
+
+    /**
+     * Учитывает событие жизненного цикла SSE-потока баланса.
+     *
+     * @param event {@code opened}, {@code closed}, {@code rejected} (превышен лимит на карту)
+     *              или {@code dropped} (медленный клиент отключён)
+     */
+    public void balanceStream(String event) {
+        Counter.builder(BALANCE_STREAM).tag("event", event).register(registry).increment();
+    }
+
+    /**
+     * Регистрирует gauge числа открытых SSE-потоков баланса.
+     *
+     * @param active счётчик открытых потоков
+     */
+    public void balanceStreamsGauge(AtomicInteger active) {
+        registry.gauge(BALANCE_STREAMS_ACTIVE, active);
+    }
+
+    /**
+     * Регистрирует gauge числа расхождений балансов с журналом за последний запуск {@link BalanceReconciliationJob}.
+     *
+     * @param mismatches счётчик расхождений последнего запуска
+     */
+    public void ledgerMismatchesGauge(AtomicInteger mismatches) {
+        registry.gauge(LEDGER_MISMATCHES, mismatches);
+    }
+
+    /**
+     * Регистрирует gauge лимита и числа запросов в работе для класса эндпоинтов.
+     *
+     * @param endpoint класс эндпоинтов ({@code transfer}, {@code balance}, {@code login}, {@code search})
+     * @param limiter  адаптивный лимит класса
+     */
+    public void overloadGauges(String endpoint, AdaptiveLimiter limiter) {
+        Gauge.builder(OVERLOAD_LIMIT, limiter, AdaptiveLimiter::limit).tag("endpoint", endpoint).register(registry);
+        Gauge.builder(OVERLOAD_INFLIGHT, limiter, AdaptiveLimiter::inflight).tag("endpoint", endpoint).register(registry);
+    }
+
+    /**
+     * Учитывает запрос, отклонённый с 503 защитой от перегрузки.
+     *
+     * @param endpoint класс эндпоинтов
+     * @param reason   {@code limit} (исчерпан лимит класса) или {@code priority} (занят более приоритетный класс)
+     */
+    public void overloadRejected(String endpoint, String reason) {
+        Counter.builder(OVERLOAD_REJECTED).tag("endpoint", endpoint).tag("reason", reason).register(registry).increment();
+    }
+
+    /**
+     * Счётчик решений ограничителя частоты. Возвращается зарегистрированным, чтобы вызывающий
+     * держал его у себя и не искал в реестре на каждом запросе.
+     *
+     * @param rule   имя правила из {@code rate-limit.rules}
+     * @param result {@code allowed} или {@code rejected}
+     * @return счётчик
+     */
+    public Counter rateLimitCounter(String rule, String result) {
+        return Counter.builder(RATE_LIMIT).tag("rule", rule).tag("result", result).register(registry);
+    }
+
+    /**
+     * Регистрирует gauge числа корзин (активных ключей) правила.
+     *
+     * @param rule    имя правила
+     * @param limiter ограничитель правила
+     */
+    public void rateLimitBucketsGauge(String rule, TokenBucketRateLimiter limiter) {
+        Gauge.builder(RATE_LIMIT_BUCKETS, limiter, TokenBucketRateLimiter::size).tag("rule", rule).register(registry);
+    }
+}
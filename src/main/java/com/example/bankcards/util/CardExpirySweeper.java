@@ -0,0 +1,145 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.CardExpiryProps;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Переводит активные карты с истёкшим сроком в {@code EXPIRED}.
+ * <p>
+ * Устройство:
+ * <ul>
+ *   <li>Порции по {@code card.expiry.chunk-size} карт, каждая — отдельная короткая транзакция с одним
+ *       {@code UPDATE ... FROM (SELECT ... LIMIT n FOR UPDATE SKIP LOCKED)}</li>
+ *   <li>Обход по ключу {@code (expiration, id)} по частичному индексу {@code ix_cards_active_expiration}:
+ *       строки уже не активных карт в индекс не входят, курсор не возвращается к пропущенным</li>
+ *   <li>{@code SKIP LOCKED}: карта, заблокированная переводом, пропускается и истекает следующим запуском;
+ *       перевод не ждёт задачу, задача не ждёт перевод</li>
+ *   <li>Несколько узлов запускают задачу одновременно без координатора: строки, заблокированные одним узлом,
+ *       другой пропускает</li>
+ *   <li>Версия карты увеличивается (ETag, оптимистическая блокировка), кэш балансов получает новую версию
+ *       после фиксации порции</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "card.expiry", name = "enabled", havingValue = "true")
+public class CardExpirySweeper {
+
+    static final String EXPIRE_CHUNK_SQL = """
+            update cards c
+               set card_status = 'EXPIRED', version = c.version + 1, modified_at = ?
+              from (select id
+                      from cards
+                     where card_status = 'ACTIVE'
+                       and expiration < ?
+                       and (expiration, id) > (?, ?)
+                     order by expiration, id
+                     limit ?
+                       for update skip locked) due
+             where c.id = due.id
+            returning c.id, c.expiration, c.version
+            """;
+
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * Карта, переведённая в {@code EXPIRED}.
+     */
+    record Expired(long id, LocalDateTime expiration, long version) { }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final BalanceCache balanceCache;
+    private final BankMetrics metrics;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final int maxChunks;
+
+    public CardExpirySweeper(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                             BalanceCache balanceCache, BankMetrics metrics, CardExpiryProps props) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setTimeout(30);
+        this.balanceCache = balanceCache;
+        this.metrics = metrics;
+        this.chunkSize = Math.max(1, props.chunkSize());
+        this.pauseMillis = props.pause() == null ? 0 : props.pause().toMillis();
+        this.maxChunks = Math.max(1, props.maxChunks());
+    }
+
+    /**
+     * Плановый запуск.
+     */
+    @Scheduled(fixedDelayString = "${card.expiry.interval:1h}", initialDelayString = "${card.expiry.initial-delay:1m}")
+    public void sweep() {
+        int expired = metrics.timed(BankMetrics.CARDS_EXPIRY, () -> sweep(LocalDateTime.now()));
+        if (expired > 0) {
+            log.info("Card expiry: {} cards expired", expired);
+        }
+    }
+
+    /**
+     * Истекает карты со сроком раньше {@code now}, не больше {@code max-chunks} порций.
+     *
+     * @param now момент, на который проверяется срок
+     * @return сколько карт переведено в {@code EXPIRED}
+     */
+    public int sweep(LocalDateTime now) {
+        LocalDateTime afterExpiration = START;
+        long afterId = 0;
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            List<Expired> rows = expireChunk(now, afterExpiration, afterId);
+            total += rows.size();
+            metrics.cardsExpired(rows.size());
+            if (rows.size() < chunkSize) {
+                return total;
+            }
+            Expired last = rows.stream()
+                    .max(Comparator.comparing(Expired::expiration).thenComparingLong(Expired::id))
+                    .orElseThrow();
+            afterExpiration = last.expiration();
+            afterId = last.id();
+            if (!pause()) {
+                return total;
+            }
+        }
+        log.info("Card expiry: stopped after {} chunks, the rest is left for the next run", maxChunks);
+        return total;
+    }
+
+    private List<Expired> expireChunk(LocalDateTime now, LocalDateTime afterExpiration, long afterId) {
+        return tx.execute(status -> {
+            List<Expired> rows = jdbc.query(EXPIRE_CHUNK_SQL,
+                    (rs, i) -> new Expired(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(), rs.getLong(3)),
+                    Timestamp.valueOf(now), Timestamp.valueOf(now), Timestamp.valueOf(afterExpiration), afterId,
+                    chunkSize);
+            rows.forEach(r -> balanceCache.invalidateAfterCommit(r.id(), r.version()));
+            return rows;
+        });
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
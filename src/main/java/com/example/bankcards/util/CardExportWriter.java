@@ -0,0 +1,116 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.CardExportFormat;
+import com.example.bankcards.repository.CardExportRow;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Построчная запись выгрузки карт в NDJSON или CSV.
+ * <p>
+ * Строки пишутся по мере чтения курсора через буфер фиксированного размера; каждые
+ * {@code flushEvery} строк буфер сбрасывается клиенту. Память не зависит от числа строк.
+ */
+public final class CardExportWriter {
+
+    static final String CSV_HEADER = "id,last4,status,balance,expiration,userId,createdAt";
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .disable(StreamWriteFeature.FLUSH_PASSED_TO_STREAM)
+            .build();
+
+    private CardExportWriter() {
+    }
+
+    /**
+     * Записывает строки в поток ответа.
+     *
+     * @param rows       строки выгрузки (поток не закрывается)
+     * @param format     формат
+     * @param out        поток ответа (не закрывается)
+     * @param flushEvery через сколько строк сбрасывать буфер
+     * @return число записанных строк
+     * @throws IOException при ошибке записи (например, клиент закрыл соединение)
+     */
+    public static long write(Stream<CardExportRow> rows, CardExportFormat format, OutputStream out, int flushEvery)
+            throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator json = null;
+        if (format == CardExportFormat.CSV) {
+            w.write(CSV_HEADER);
+            w.write('\n');
+        } else {
+            json = JSON.createGenerator(w);
+            json.setRootValueSeparator(null);
+        }
+
+        long count = 0;
+        for (Iterator<CardExportRow> it = rows.iterator(); it.hasNext(); ) {
+            CardExportRow row = it.next();
+            if (json != null) {
+                writeJson(json, row);
+                json.writeRaw('\n');
+            } else {
+                writeCsv(w, row);
+            }
+            if (++count % Math.max(1, flushEvery) == 0) {
+                flush(json, w);
+            }
+        }
+        flush(json, w);
+        return count;
+    }
+
+    private static void flush(JsonGenerator json, Writer w) throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        w.flush();
+    }
+
+    private static void writeJson(JsonGenerator g, CardExportRow r) throws IOException {
+        g.writeStartObject();
+        g.writeNumberField("id", r.id());
+        g.writeStringField("last4", r.last4());
+        g.writeStringField("status", Objects.toString(r.status(), null));
+        g.writeNumberField("balance", r.balance());
+        g.writeStringField("expiration", Objects.toString(r.expiration(), null));
+        g.writeNumberField("userId", r.userId());
+        g.writeStringField("createdAt", Objects.toString(r.createdAt(), null));
+        g.writeEndObject();
+    }
+
+    private static void writeCsv(Writer w, CardExportRow r) throws IOException {
+        // значения — числа, даты ISO-8601, статус и 4 цифры: экранирование не требуется
+        w.write(string(r.id()));
+        w.write(',');
+        w.write(string(r.last4()));
+        w.write(',');
+        w.write(string(r.status()));
+        w.write(',');
+        w.write(r.balance() == null ? "" : r.balance().toPlainString());
+        w.write(',');
+        w.write(string(r.expiration()));
+        w.write(',');
+        w.write(string(r.userId()));
+        w.write(',');
+        w.write(string(r.createdAt()));
+        w.write('\n');
+    }
+
+    private static String string(Object value) {
+        return Objects.toString(value, "");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards.util;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Журнал движений по картам ({@code card_movements}).
+ * <p>
+ * Журнал только дополняется (изменение и удаление запрещены триггером): каждый перевод записывает две строки —
+ * списание с исходной карты и зачисление на целевую — в той же транзакции, что и изменение балансов.
+ * Сумма движений карты равна её балансу; это проверяет {@link BalanceReconciliationJob}.
+ * Баланс на момент появления журнала перенесён миграцией строкой {@code OPENING}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CardLedger {
+
+    static final String TRANSFER_SQL = """
+            insert into card_movements (card_id, counterparty_card_id, amount, kind, created_at)
+            values (?, ?, ?, 'TRANSFER', ?), (?, ?, ?, 'TRANSFER', ?)
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    /**
+     * Записывает перевод одним запросом. Вызывается внутри транзакции перевода.
+     *
+     * @param sourceCardId      исходная карта
+     * @param destinationCardId целевая карта
+     * @param amount            сумма перевода (положительная)
+     * @param at                момент перевода
+     */
+    public void recordTransfer(long sourceCardId, long destinationCardId, BigDecimal amount, LocalDateTime at) {
+        Timestamp ts = Timestamp.valueOf(at);
+        jdbc.update(TRANSFER_SQL,
+                sourceCardId, destinationCardId, amount.negate(), ts,
+                destinationCardId, sourceCardId, amount, ts);
+    }
+}
@@ -6,14 +6,12 @@ import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.exception.CardStatusException;
 import com.example.bankcards.exception.IdenticalCardsException;
 import com.example.bankcards.exception.InsufficientFundsException;
-import com.example.bankcards.exception.TransferAccessException;
-import com.example.bankcards.security.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * Утилита проверок для операций перевода средств.
@@ -21,17 +19,19 @@ import java.math.BigDecimal;
  * Назначение:
  * <ul>
  *   <li>Валидация, что источник и назначение перевода — разные карты</li>
- *   <li>Проверка активного статуса карт</li>
- *   <li>Проверка, что обе карты принадлежат текущему пользователю</li>
+ *   <li>Проверка активного статуса и срока действия карт</li>
  * </ul>
- * При нарушении правил записывает предупреждение в журнал и выбрасывает соответствующее исключение.
+ * Владелец карты проверяется не здесь, а в запросах с условием на владельца
+ * ({@code CardService#findOwnedCardByIdForUpdate}, {@code CardService#findOwnedByCardNumber}).
+ * При нарушении правил записывает предупреждение в журнал, увеличивает счётчик
+ * {@value BankMetrics#POLICY_REJECTIONS} с тегом причины и выбрасывает соответствующее исключение.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class CardsPolicy {
 
-    private  final SecurityUtils securityUtils;
+    private final BankMetrics metrics;
 
     /**
      * Проверяет, что источник и назначение перевода — разные карты.
@@ -48,6 +48,7 @@ public class CardsPolicy {
 
         if (transferDto.sourceCardId().equals(transferDto.destinationCardId())) {
             log.warn("Validation failed: same source and destination card: {}", transferDto.sourceCardId());
+            metrics.policyRejected("same_cards");
             throw new IdenticalCardsException("Source card and destination card must differ");
         }
     }
@@ -55,69 +56,42 @@ public class CardsPolicy {
     /**
      * Проверяет, что карта активна.
      *
-     * Правило: {@link BaseCard#getCardStatus()} должен быть равен {@link CardStatus#ACTIVE}.
+     * Правило: {@link BaseCard#getCardStatus()} должен быть равен {@link CardStatus#ACTIVE},
+     * а срок {@link BaseCard#getExpiration()} — ещё не наступить. Карта с истёкшим сроком считается
+     * неактивной, даже если {@link com.example.bankcards.util.CardExpirySweeper} ещё не перевёл её в
+     * {@link CardStatus#EXPIRED}: проверка идёт по уже загруженной (заблокированной) строке, без запросов к БД.
      *
-     * При нарушении логирует предупреждение и выбрасывает {@link IllegalStateException}.
+     * При нарушении логирует предупреждение, увеличивает {@value BankMetrics#POLICY_REJECTIONS}
+     * с причиной {@code not_active} или {@code expired} и выбрасывает {@link CardStatusException}.
      *
      * @param card карта для проверки
-     * @throws IllegalStateException если статус карты не ACTIVE
+     * @throws CardStatusException если статус карты не ACTIVE или срок карты истёк
      */
     public void assertActive(BaseCard card) {
-        if (card.getCardStatus() != CardStatus.ACTIVE) {
-            log.warn("Validation failed: some card is not active. sourceCard: {} ", card.getCardStatus());
-            throw new CardStatusException("Cards must be ACTIVE");
-        }
+        assertActive(card, LocalDateTime.now());
     }
 
     /**
-     * Проверяет, что обе карты принадлежат текущему аутентифицированному пользователю.
-     *
-     * Правило: идентификатор владельца у обеих карт должен совпадать с текущим пользователем,
-     * полученным из {@link SecurityUtils#currentUserId()}.
-     *
-     * При нарушении логирует предупреждение и выбрасывает {@link AccessDeniedException}.
+     * То же, что {@link #assertActive(BaseCard)}, на заданный момент.
      *
-     * @param sourceCard      карта-источник
-     * @param destinationCard карта-назначение
-     * @throws AccessDeniedException если хотя бы одна карта не принадлежит текущему пользователю
+     * @param card карта для проверки
+     * @param now  момент, на который проверяется срок
+     * @throws CardStatusException если статус карты не ACTIVE или срок на {@code now} истёк
      */
-    public void assertOwnedByUser(BaseCard sourceCard, BaseCard destinationCard ) {
-        Long currentUserId = securityUtils.currentUserId();
-
-        if (sourceCard.getUser().getId() != currentUserId) {
-            log.warn("Access denied: attempt to transfer to a third-party account. CardId {}", sourceCard.getId());
-            throw new TransferAccessException("Access denied: Transfers only on your own accounts");
-        }
-
-        if (destinationCard.getUser().getId() != currentUserId) {
-            log.warn("Access denied: attempt to transfer to a third-party account. CardId {}", destinationCard.getId());
-            throw new TransferAccessException("Access denied: Transfers only on your own accounts");
+    public void assertActive(BaseCard card, LocalDateTime now) {
+        if (card.getCardStatus() != CardStatus.ACTIVE) {
+            log.warn("Validation failed: some card is not active. sourceCard: {} ", card.getCardStatus());
+            metrics.policyRejected("not_active");
+            throw new CardStatusException("Cards must be ACTIVE");
         }
-
-    }
-
-    /**
-     * Проверяет, что обе карты принадлежат текущему аутентифицированному пользователю.
-     *
-     * Правило: идентификатор владельца у обеих карт должен совпадать с текущим пользователем,
-     * полученным из {@link SecurityUtils#currentUserId()}.
-     *
-     * При нарушении логирует предупреждение и выбрасывает {@link AccessDeniedException}.
-     *
-     * @param card     карта
-     * @throws AccessDeniedException если хотя бы одна карта не принадлежит текущему пользователю
-     */
-    public void assertOwnedByUser(BaseCard card) {
-        Long currentUserId = securityUtils.currentUserId();
-
-        if (card.getUser().getId() != currentUserId) {
-            log.warn("Access denied: attempt to transfer to a third-party account. CardId {}", card.getId());
-            throw new TransferAccessException("Access denied: Transfers only on your own accounts");
+        if (card.getExpiration() != null && card.getExpiration().isBefore(now)) {
+            log.warn("Validation failed: card {} is expired but still ACTIVE, expiration: {}",
+                    card.getId(), card.getExpiration());
+            metrics.policyRejected("expired");
+            throw new CardStatusException("Card is expired");
         }
     }
 
-
-
     /**
      * Проверяет достаточность средств на карте-источнике для списания.
      *
@@ -136,6 +110,7 @@ public class CardsPolicy {
      */
     public void assertInsufficientFunds(BigDecimal amount, BaseCard sourceCard) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            metrics.policyRejected("invalid_amount");
             throw new IllegalArgumentException("Amount must be positive");
         }
         BigDecimal balance = sourceCard.getBalance();
@@ -144,6 +119,7 @@ public class CardsPolicy {
         }
 
         if (balance.compareTo(amount) < 0) {
+            metrics.policyRejected("insufficient_funds");
             throw new InsufficientFundsException(
                     "Insufficient funds: balance=" + balance + ", amount=" + amount
             );
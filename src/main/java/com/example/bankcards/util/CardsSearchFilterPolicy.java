@@ -10,6 +10,24 @@ import java.math.BigDecimal;
 @Slf4j
 public class CardsSearchFilterPolicy {
 
+    /**
+     * Проверяет фильтр массового изменения: те же правила, что у списка, и хотя бы один фильтр,
+     * чтобы пустой фильтр не затронул все карты.
+     *
+     * @param dto фильтры
+     * @throws IllegalArgumentException при нарушении правил или если не задан ни один фильтр
+     */
+    public void checkBulkFilter(CardSearchRequestDto dto) {
+        checkFilter(dto);
+        if (dto.userId() == null && dto.last4() == null && dto.status() == null
+                && dto.expirationFrom() == null && dto.expirationTo() == null
+                && dto.balanceMin() == null && dto.balanceMax() == null
+                && dto.createdFrom() == null && dto.createdTo() == null) {
+            log.warn("Validation failed: bulk filter is empty");
+            throw new IllegalArgumentException("filter must contain at least one criterion");
+        }
+    }
+
     public void checkFilter(CardSearchRequestDto dto) {
 
         int page = (dto.page() == null || dto.page() < 0) ? 0 : dto.page();
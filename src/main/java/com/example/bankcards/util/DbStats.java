@@ -0,0 +1,77 @@
+package com.example.bankcards.util;
+
+/**
+ * Счётчики SQL-выражений текущего HTTP-запроса.
+ * <p>
+ * Хранятся в {@link ThreadLocal}: запрос и его JDBC-вызовы выполняются в одном потоке
+ * (в том числе виртуальном). Вне запроса ({@link #begin()} не вызывался) учёт не ведётся.
+ */
+public final class DbStats {
+
+    private static final ThreadLocal<DbStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long jdbcNanos;
+    private int slowStatements;
+
+    private DbStats() { }
+
+    /**
+     * Начинает учёт для текущего потока.
+     *
+     * @return счётчики запроса
+     */
+    public static DbStats begin() {
+        DbStats stats = new DbStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * Завершает учёт для текущего потока.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return счётчики текущего запроса или {@code null}, если учёт не начат
+     */
+    public static DbStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Учитывает одно выполнение выражения (пакет считается одним обращением к БД).
+     *
+     * @param nanos время выполнения
+     * @param slow  превышен ли порог медленного выражения
+     */
+    public void record(long nanos, boolean slow) {
+        statements++;
+        jdbcNanos += nanos;
+        if (slow) {
+            slowStatements++;
+        }
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long jdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public int slowStatements() {
+        return slowStatements;
+    }
+
+    /**
+     * @return значение заголовка {@code X-DB-Stats}: {@code statements=3;time=1.24ms;slow=0}
+     */
+    public String toHeaderValue() {
+        return String.format(java.util.Locale.ROOT, "statements=%d;time=%.2fms;slow=%d",
+                statements, jdbcNanos / 1_000_000.0, slowStatements);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.repository.UserVersionStamp;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Сильные ETag ресурсов, построенные из версии записи, а не из тела ответа.
+ * <p>
+ * Версия проверяется проекцией (без загрузки сущности и маппинга), поэтому ответ 304 обходится
+ * одним узким запросом к БД. Префикс различает представления одной записи: карта и её баланс
+ * имеют общую версию, но разные ETag.
+ */
+public final class ETags {
+
+    private ETags() { }
+
+    /**
+     * @return ETag представления карты ({@code CardDto})
+     */
+    public static String card(long cardId, long version) {
+        return quote("card-" + cardId + "-" + version);
+    }
+
+    /**
+     * @return ETag баланса карты
+     */
+    public static String balance(long cardId, long version) {
+        return quote("balance-" + cardId + "-" + version);
+    }
+
+    /**
+     * @return ETag пользователя вместе с картами ({@code UserDto})
+     */
+    public static String user(long userId, UserVersionStamp stamp) {
+        String raw = stamp.userModifiedAt() + "|" + stamp.cardCount() + "|"
+                + stamp.cardsModifiedAt() + "|" + stamp.cardsVersionSum();
+        return quote("user-" + userId + "-" + digest(raw));
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    private static String digest(String raw) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
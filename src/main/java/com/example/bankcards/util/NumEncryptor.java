@@ -38,6 +38,7 @@ public class NumEncryptor {
 
     private final SecretKey aesKey;
     private final SecretKey hmacKey;
+    private final BankMetrics metrics;
     private final SecureRandom rnd = new SecureRandom();
     
     private final String WARN_MSG = "Validation error: bad entry data {}";
@@ -57,17 +58,19 @@ public class NumEncryptor {
             throw new IllegalArgumentException("Bad pan");
         }
         
-        try {
-            byte[] iv = new byte[GCM_IV_LEN];
-            rnd.nextBytes(iv);
-            Cipher c = Cipher.getInstance(AES_ALG);
-            c.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
-            byte[] ct = c.doFinal(pan.getBytes(StandardCharsets.US_ASCII));
-            byte[] out = ByteBuffer.allocate(iv.length + ct.length).put(iv).put(ct).array();
-            return Base64.getEncoder().encodeToString(out);
-        } catch (GeneralSecurityException e) {
-            throw new IllegalStateException("PAN encryption failed", e);
-        }
+        return metrics.timed(BankMetrics.CRYPTO, "encrypt", () -> {
+            try {
+                byte[] iv = new byte[GCM_IV_LEN];
+                rnd.nextBytes(iv);
+                Cipher c = Cipher.getInstance(AES_ALG);
+                c.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+                byte[] ct = c.doFinal(pan.getBytes(StandardCharsets.US_ASCII));
+                byte[] out = ByteBuffer.allocate(iv.length + ct.length).put(iv).put(ct).array();
+                return Base64.getEncoder().encodeToString(out);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("PAN encryption failed", e);
+            }
+        });
     }
 
     /**
@@ -84,13 +87,15 @@ public class NumEncryptor {
             throw new IllegalArgumentException("Bad pan");
         }
         
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(hmacKey);
-            return Base64.getEncoder().encodeToString(mac.doFinal(pan.getBytes(StandardCharsets.US_ASCII)));
-        } catch (GeneralSecurityException e) {
-            throw new IllegalStateException("PAN HMAC failed", e);
-        }
+        return metrics.timed(BankMetrics.CRYPTO, "hmac", () -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(hmacKey);
+                return Base64.getEncoder().encodeToString(mac.doFinal(pan.getBytes(StandardCharsets.US_ASCII)));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("PAN HMAC failed", e);
+            }
+        });
 
     }
 
@@ -111,12 +116,14 @@ public class NumEncryptor {
         }
         
         
-        byte[] data = Base64.getDecoder().decode(packedBase64);
-        byte[] iv = Arrays.copyOfRange(data, 0, 12);
-        byte[] ct = Arrays.copyOfRange(data, 12, data.length);
-        Cipher c = Cipher.getInstance("AES/GCM/NoPadding");
-        c.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(128, iv));
-        byte[] panBytes = c.doFinal(ct);
-        return new String(panBytes, StandardCharsets.UTF_8);
+        return metrics.timed(BankMetrics.CRYPTO, "decrypt", () -> {
+            byte[] data = Base64.getDecoder().decode(packedBase64);
+            byte[] iv = Arrays.copyOfRange(data, 0, 12);
+            byte[] ct = Arrays.copyOfRange(data, 12, data.length);
+            Cipher c = Cipher.getInstance("AES/GCM/NoPadding");
+            c.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(128, iv));
+            byte[] panBytes = c.doFinal(ct);
+            return new String(panBytes, StandardCharsets.UTF_8);
+        });
     }
 }
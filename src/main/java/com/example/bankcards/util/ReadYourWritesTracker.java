@@ -0,0 +1,89 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.ReplicaProps;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Учёт недавних записей пользователей для гарантии read-your-writes при чтении с реплики.
+ * <p>
+ * После фиксации перевода пользователь на время {@code datasource.replica.read-your-writes}
+ * читает с основного пула, пока реплика догоняет изменения.
+ * <ul>
+ *   <li>Отметка ставится только после commit (afterCommit), откат её не оставляет</li>
+ *   <li>Просроченные отметки удаляются лениво при чтении и при разрастании карты</li>
+ *   <li>При выключенной маршрутизации или нулевом окне все методы — no-op</li>
+ * </ul>
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    /**
+     * Размер карты, после которого при записи удаляются все просроченные отметки.
+     */
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    private final ConcurrentHashMap<Long, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public ReadYourWritesTracker(ReplicaProps props) {
+        Duration window = props.readYourWrites();
+        this.windowNanos = (props.enabled() && window != null) ? window.toNanos() : 0L;
+    }
+
+    /**
+     * Отмечает запись пользователя после фиксации текущей транзакции.
+     * <p>
+     * Вне транзакции отметка ставится сразу.
+     *
+     * @param userId ID пользователя (null игнорируется)
+     */
+    public void markWriteAfterCommit(Long userId) {
+        if (windowNanos == 0L || userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markWrite(userId);
+                }
+            });
+        } else {
+            markWrite(userId);
+        }
+    }
+
+    /**
+     * Проверяет, писал ли пользователь в пределах окна read-your-writes.
+     *
+     * @param userId ID пользователя (null — не писал)
+     * @return {@code true}, если чтения пользователя нужно направить на основной пул
+     */
+    public boolean isRecentWriter(Long userId) {
+        if (windowNanos == 0L || userId == null) {
+            return false;
+        }
+        Long at = lastWriteNanos.get(userId);
+        if (at == null) {
+            return false;
+        }
+        if (System.nanoTime() - at < windowNanos) {
+            return true;
+        }
+        lastWriteNanos.remove(userId, at);
+        return false;
+    }
+
+    private void markWrite(Long userId) {
+        long now = System.nanoTime();
+        lastWriteNanos.put(userId, now);
+        if (lastWriteNanos.size() > SWEEP_THRESHOLD) {
+            lastWriteNanos.values().removeIf(at -> now - at >= windowNanos);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket на ключ (id пользователя, IP) без блокировок.
+ * <p>
+ * Корзина хранится одним {@link AtomicLong} — «теоретическим временем прихода» следующего запроса (GCRA):
+ * <ul>
+ *   <li>запрос сдвигает время на интервал одного токена ({@code 1 / perSecond});</li>
+ *   <li>запрос допускается, если время ушло вперёд от текущего не больше чем на {@code capacity} интервалов,
+ *       то есть в корзине был токен;</li>
+ *   <li>пополнение ленивое: токены «возвращаются» течением времени, без фоновых задач;</li>
+ *   <li>обновление — один CAS; при гонке повторяется.</li>
+ * </ul>
+ * Корзина, время которой не впереди текущего, полна; такие корзины удаляются {@link #evictIdle()} без изменения
+ * поведения. Запрос, совпавший с удалением своей корзины, может не списать токен — допустимая погрешность.
+ */
+public class TokenBucketRateLimiter {
+
+    private final ConcurrentHashMap<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+
+    /**
+     * @param capacity  размер корзины (допустимый всплеск)
+     * @param perSecond пополнение, токенов в секунду
+     */
+    public TokenBucketRateLimiter(int capacity, double perSecond) {
+        this(capacity, perSecond, System::nanoTime);
+    }
+
+    /**
+     * @param capacity  размер корзины (допустимый всплеск)
+     * @param perSecond пополнение, токенов в секунду
+     * @param clock     источник времени в наносекундах
+     */
+    public TokenBucketRateLimiter(int capacity, double perSecond, LongSupplier clock) {
+        if (capacity < 1 || perSecond <= 0) {
+            throw new IllegalArgumentException("capacity must be >= 1 and perSecond > 0");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.burstNanos = intervalNanos * capacity;
+        this.clock = clock;
+    }
+
+    /**
+     * Списывает токен из корзины ключа.
+     *
+     * @param key ключ корзины
+     * @return {@code 0}, если запрос допущен; иначе сколько наносекунд ждать следующего токена
+     */
+    public long tryAcquire(Object key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            AtomicLong created = new AtomicLong(now);
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        while (true) {
+            long tat = bucket.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Удаляет полные корзины: их ключи давно не обращались, и новая корзина ведёт себя так же.
+     *
+     * @return сколько корзин удалено
+     */
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(tat -> tat.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    /**
+     * @return число корзин (ключей, обращавшихся недавно)
+     */
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.repository.UserExportRow;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Построчная запись выгрузки пользователей в NDJSON.
+ * <p>
+ * Как и {@link CardExportWriter}: строки пишутся по мере чтения курсора, каждые {@code flushEvery}
+ * строк буфер сбрасывается клиенту.
+ */
+public final class UserExportWriter {
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .disable(StreamWriteFeature.FLUSH_PASSED_TO_STREAM)
+            .build();
+
+    private UserExportWriter() {
+    }
+
+    /**
+     * Записывает строки в поток ответа.
+     *
+     * @param rows       строки выгрузки (поток не закрывается)
+     * @param out        поток ответа (не закрывается)
+     * @param flushEvery через сколько строк сбрасывать буфер
+     * @return число записанных строк
+     * @throws IOException при ошибке записи (например, клиент закрыл соединение)
+     */
+    public static long write(Stream<UserExportRow> rows, OutputStream out, int flushEvery) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator g = JSON.createGenerator(w);
+        g.setRootValueSeparator(null);
+
+        long count = 0;
+        for (Iterator<UserExportRow> it = rows.iterator(); it.hasNext(); ) {
+            UserExportRow r = it.next();
+            g.writeStartObject();
+            g.writeNumberField("id", r.id());
+            g.writeStringField("name", r.name());
+            g.writeStringField("email", r.email());
+            g.writeStringField("role", Objects.toString(r.role(), null));
+            g.writeBooleanField("active", Boolean.TRUE.equals(r.active()));
+            g.writeStringField("createdAt", Objects.toString(r.createdAt(), null));
+            g.writeNumberField("cardCount", r.cardCount());
+            g.writeNumberField("totalBalance", r.totalBalance());
+            g.writeNumberField("activeCardCount", r.activeCardCount());
+            g.writeEndObject();
+            g.writeRaw('\n');
+            if (++count % Math.max(1, flushEvery) == 0) {
+                g.flush();
+                w.flush();
+            }
+        }
+        g.flush();
+        w.flush();
+        return count;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.UserPurgeProps;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Удаляет пользователей, для которых запрошено удаление ({@code users.purge_requested_at}).
+ * <p>
+ * Устройство:
+ * <ul>
+ *   <li>Карты пользователя переносятся в {@code cards_archive} порциями по {@code user.purge.chunk-size},
+ *       каждая порция — отдельная короткая транзакция с одним
+ *       {@code WITH moved AS (DELETE ... RETURNING) INSERT INTO cards_archive SELECT ... FROM moved}</li>
+ *   <li>Порция выбирается {@code FOR UPDATE SKIP LOCKED}: карта, заблокированная другой транзакцией,
+ *       переносится следующим запуском; несколько узлов работают без координатора</li>
+ *   <li>Пользователь удаляется, когда карт у него не осталось; иначе — следующим запуском</li>
+ *   <li>Перенесённые карты удаляются из кэша балансов, их SSE-потоки закрываются после фиксации порции</li>
+ * </ul>
+ * Пользователь к этому моменту уже деактивирован, а его карты заблокированы
+ * ({@link com.example.bankcards.service.UserService#deleteUser(Long)}).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "user.purge", name = "enabled", havingValue = "true")
+public class UserPurgeJob {
+
+    static final String PENDING_USERS_SQL = """
+            select id
+              from users
+             where purge_requested_at is not null
+             order by purge_requested_at, id
+             limit 100
+            """;
+
+    static final String ARCHIVE_CHUNK_SQL = """
+            with moved as (
+                delete from cards
+                 where id in (select id
+                                from cards
+                               where user_id = ?
+                               order by id
+                               limit ?
+                                 for update skip locked)
+                returning id, num_encrypted, num_last4, num_hmac, user_id, expiration, card_status, balance,
+                          created_at, modified_at, version, dtype)
+            insert into cards_archive (id, num_encrypted, num_last4, num_hmac, user_id, expiration, card_status,
+                                       balance, created_at, modified_at, version, dtype, archived_at)
+            select id, num_encrypted, num_last4, num_hmac, user_id, expiration, card_status,
+                   balance, created_at, modified_at, version, dtype, ?
+              from moved
+            returning id
+            """;
+
+    static final String DELETE_USER_SQL = """
+            delete from users u
+             where u.id = ?
+               and u.purge_requested_at is not null
+               and not exists (select 1 from cards c where c.user_id = u.id)
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final BalanceCache balanceCache;
+    private final BalanceStreamHub balanceStreams;
+    private final BankMetrics metrics;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final int maxChunks;
+
+    public UserPurgeJob(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                        BalanceCache balanceCache, BalanceStreamHub balanceStreams, BankMetrics metrics,
+                        UserPurgeProps props) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setTimeout(30);
+        this.balanceCache = balanceCache;
+        this.balanceStreams = balanceStreams;
+        this.metrics = metrics;
+        this.chunkSize = Math.max(1, props.chunkSize());
+        this.pauseMillis = props.pause() == null ? 0 : props.pause().toMillis();
+        this.maxChunks = Math.max(1, props.maxChunks());
+    }
+
+    /**
+     * Плановый запуск.
+     */
+    @Scheduled(fixedDelayString = "${user.purge.interval:5m}", initialDelayString = "${user.purge.initial-delay:1m}")
+    public void purge() {
+        int deleted = metrics.timed(BankMetrics.USERS_PURGE, () -> purge(LocalDateTime.now()));
+        if (deleted > 0) {
+            log.info("User purge: {} users deleted", deleted);
+        }
+    }
+
+    /**
+     * Архивирует карты пользователей, ожидающих удаления, и удаляет пользователей без карт;
+     * не больше {@code max-chunks} порций карт за запуск.
+     *
+     * @param now время архивации
+     * @return сколько пользователей удалено
+     */
+    public int purge(LocalDateTime now) {
+        int chunks = 0;
+        int deleted = 0;
+        for (long userId : jdbc.queryForList(PENDING_USERS_SQL, Long.class)) {
+            while (true) {
+                if (chunks == maxChunks) {
+                    log.info("User purge: stopped after {} chunks, the rest is left for the next run", maxChunks);
+                    return deleted;
+                }
+                if (chunks > 0 && !pause()) {
+                    return deleted;
+                }
+                List<Long> archived = archiveChunk(userId, now);
+                chunks++;
+                metrics.cardsArchived(archived.size());
+                if (archived.size() < chunkSize) {
+                    break;
+                }
+            }
+            if (tx.execute(status -> jdbc.update(DELETE_USER_SQL, userId)) > 0) {
+                deleted++;
+                log.info("User purge: user {} deleted", userId);
+            }
+        }
+        return deleted;
+    }
+
+    private List<Long> archiveChunk(long userId, LocalDateTime now) {
+        return tx.execute(status -> {
+            List<Long> ids = jdbc.queryForList(ARCHIVE_CHUNK_SQL, Long.class, userId, chunkSize, Timestamp.valueOf(now));
+            ids.forEach(id -> {
+                balanceCache.evictAfterCommit(id);
+                balanceStreams.closeAfterCommit(id);
+            });
+            return ids;
+        });
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
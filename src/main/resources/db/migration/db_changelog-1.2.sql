@@ -0,0 +1,8 @@
+--liquibase formatted sql
+
+--changeset ivikto:3 runInTransaction:false
+--comment: частичный индекс для истечения срока карт: только активные, в порядке обхода (expiration, id)
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_cards_active_expiration
+    ON cards (expiration, id)
+    WHERE card_status = 'ACTIVE';
@@ -0,0 +1,33 @@
+--liquibase formatted sql
+
+--changeset ivikto:4
+--comment: отложенное удаление пользователей: отметка запроса и архив карт
+
+ALTER TABLE users ADD COLUMN purge_requested_at TIMESTAMP WITHOUT TIME ZONE;
+
+CREATE TABLE cards_archive
+(
+    id            BIGINT         PRIMARY KEY,
+    num_encrypted TEXT           NOT NULL,
+    num_last4     CHAR(4)        NOT NULL,
+    num_hmac      VARCHAR(128)   NOT NULL,
+    user_id       BIGINT         NOT NULL,
+    expiration    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    card_status   VARCHAR(32)    NOT NULL,
+    balance       NUMERIC(19, 2) NOT NULL,
+    created_at    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    modified_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    version       BIGINT         NOT NULL,
+    dtype         VARCHAR(32)    NOT NULL,
+    archived_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+--changeset ivikto:5 runInTransaction:false
+--comment: карты пользователя: блокировка при деактивации, порции архивации, проверка fk_cards_user при удалении
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_cards_user_id
+    ON cards (user_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_users_purge_requested
+    ON users (purge_requested_at)
+    WHERE purge_requested_at IS NOT NULL;
@@ -0,0 +1,47 @@
+--liquibase formatted sql
+
+--changeset ivikto:6
+--comment: журнал движений по картам и расхождения сверки балансов
+
+CREATE TABLE card_movements
+(
+    id                   BIGSERIAL      PRIMARY KEY,
+    card_id              BIGINT         NOT NULL,
+    counterparty_card_id BIGINT,
+    amount               NUMERIC(19, 2) NOT NULL,
+    kind                 VARCHAR(16)    NOT NULL,
+    created_at           TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE INDEX ix_card_movements_card ON card_movements (card_id) INCLUDE (amount);
+
+CREATE TABLE balance_mismatches
+(
+    id             BIGSERIAL      PRIMARY KEY,
+    run_at         TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    card_id        BIGINT         NOT NULL,
+    balance        NUMERIC(19, 2) NOT NULL,
+    ledger_balance NUMERIC(19, 2) NOT NULL
+);
+
+CREATE INDEX ix_balance_mismatches_run ON balance_mismatches (run_at);
+
+INSERT INTO card_movements (card_id, amount, kind, created_at)
+SELECT id, balance, 'OPENING', now()
+FROM cards
+WHERE balance <> 0;
+
+--changeset ivikto:7 splitStatements:false
+--comment: журнал только дополняется
+
+CREATE FUNCTION card_movements_append_only() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'card_movements is append-only';
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset ivikto:8
+--comment: запрет изменения и удаления движений
+CREATE TRIGGER trg_card_movements_append_only
+    BEFORE UPDATE OR DELETE OR TRUNCATE ON card_movements
+    FOR EACH STATEMENT EXECUTE FUNCTION card_movements_append_only();
@@ -0,0 +1,56 @@
+package com.example.bankcards;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Основа интеграционных тестов: контекст приложения против PostgreSQL в Testcontainers,
+ * схема накатывается Liquibase.
+ * <p>
+ * Помечено тегом {@code integration} и по умолчанию исключено из {@code mvn test}; запуск —
+ * {@code mvn -Pintegration test}, в CI обязателен. Без Docker тесты падают, а не пропускаются:
+ * бюджеты SQL и запросы фоновых задач не должны молча оставаться непроверенными.
+ * <p>
+ * Контейнер один на JVM и запускается при загрузке класса; тесты разных классов делят одну БД,
+ * поэтому каждый тест сам готовит и чистит свои данные. Фоновые задачи по расписанию отложены
+ * на час, чтобы не трогать данные тестов.
+ */
+@Tag("integration")
+@SpringBootTest
+public abstract class AbstractIntegrationTest {
+
+    protected static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final String JWT_SECRET = randomKey();
+    private static final String AES_KEY = randomKey();
+    private static final String HMAC_KEY = randomKey();
+
+    static {
+        POSTGRES.start();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("security.jwt.secret-base64", () -> JWT_SECRET);
+        registry.add("crypto.number.aes-key-base64", () -> AES_KEY);
+        registry.add("crypto.number.hmac-key-base64", () -> HMAC_KEY);
+        registry.add("user.purge.initial-delay", () -> "1h");
+        registry.add("card.expiry.initial-delay", () -> "1h");
+        registry.add("ledger.reconciliation.initial-delay", () -> "1h");
+    }
+
+    private static String randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+}
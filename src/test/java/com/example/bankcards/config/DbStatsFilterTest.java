@@ -0,0 +1,80 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.BankMetrics;
+import com.example.bankcards.util.DbStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DbStatsFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BankMetrics metrics = new BankMetrics(registry, Tracer.NOOP);
+
+    @Test
+    void statementsCountedAndHeaderAddedTest() throws Exception {
+        DbStatsListener listener = new DbStatsListener(Long.MAX_VALUE, () -> metrics);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/card/7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new DbStatsFilter(metrics, true).doFilter(request, response, (req, res) -> {
+            execute(listener);
+            execute(listener);
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/card/{cardId}");
+            res.getWriter().write("{}");
+            res.flushBuffer();
+        });
+
+        assertThat(response.getHeader(DbStatsFilter.HEADER)).startsWith("statements=2;");
+        assertThat(registry.get(BankMetrics.DB_STATEMENTS).tag("uri", "/api/v1/card/{cardId}").summary().totalAmount())
+                .isEqualTo(2);
+        assertThat(DbStats.current()).isNull();
+    }
+
+    @Test
+    void headerDisabledByDefaultTest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new DbStatsFilter(metrics, false).doFilter(new MockHttpServletRequest("GET", "/x"), response,
+                (req, res) -> res.flushBuffer());
+
+        assertThat(response.getHeader(DbStatsFilter.HEADER)).isNull();
+        assertThat(registry.get(BankMetrics.DB_STATEMENTS).tag("uri", "UNKNOWN").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void slowStatementCountedTest() {
+        DbStatsListener listener = new DbStatsListener(0, () -> metrics);
+        DbStats stats = DbStats.begin();
+        try {
+            execute(listener);
+        } finally {
+            DbStats.end();
+        }
+
+        assertThat(stats.slowStatements()).isEqualTo(1);
+        assertThat(registry.get(BankMetrics.DB_SLOW_STATEMENTS).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void outsideRequestNotCountedTest() {
+        new DbStatsListener(Long.MAX_VALUE, () -> metrics).afterQuery(new ExecutionInfo(), List.of());
+        assertThat(DbStats.current()).isNull();
+    }
+
+    private static void execute(DbStatsListener listener) {
+        ExecutionInfo info = new ExecutionInfo();
+        List<QueryInfo> queries = List.of(new QueryInfo("select 1"));
+        listener.beforeQuery(info, queries);
+        listener.afterQuery(info, queries);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bankcards.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DroppingAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final BlockingAppender target = new BlockingAppender();
+    private final DroppingAsyncAppender async = new DroppingAsyncAppender();
+
+    @AfterEach
+    void stop() {
+        target.release.countDown();
+        async.stop();
+    }
+
+    @Test
+    void infoDroppedAndWarnKeptUnderPressureTest() throws Exception {
+        start(10);
+
+        async.doAppend(event(Level.INFO, "first"));
+        assertThat(target.busy.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < 20; i++) {
+            async.doAppend(event(Level.INFO, "info-" + i));
+        }
+        async.doAppend(event(Level.WARN, "warn"));
+        async.doAppend(event(Level.ERROR, "error"));
+
+        assertThat(async.getDroppedCount()).isPositive();
+
+        target.release.countDown();
+        async.stop();
+
+        List<String> received = target.received.stream().map(ILoggingEvent::getMessage).toList();
+        assertThat(received).contains("first", "warn", "error");
+        assertThat(received.size() + async.getDroppedCount()).isEqualTo(23);
+    }
+
+    @Test
+    void nothingDroppedBelowThresholdTest() {
+        start(100);
+        target.release.countDown();
+
+        for (int i = 0; i < 50; i++) {
+            async.doAppend(event(Level.INFO, "info-" + i));
+        }
+        async.stop();
+
+        assertThat(async.getDroppedCount()).isZero();
+        assertThat(target.received).hasSize(50);
+    }
+
+    private void start(int queueSize) {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        target.setContext(context);
+        target.start();
+        async.setContext(context);
+        async.setName("TEST_ASYNC");
+        async.setQueueSize(queueSize);
+        async.setNeverBlock(false);
+        async.addAppender(target);
+        async.start();
+    }
+
+    private LoggingEvent event(Level level, String message) {
+        return new LoggingEvent(getClass().getName(), context.getLogger("test"), level, message, null, null);
+    }
+
+    /**
+     * Дочерний аппендер, который держит поток-обработчик очереди до {@code release}.
+     */
+    private static class BlockingAppender extends AppenderBase<ILoggingEvent> {
+        final CountDownLatch busy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<ILoggingEvent> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            busy.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.props.Http2Props;
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.Http2;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Http2ConfigTest {
+
+    @Test
+    void http2ProtocolTunedAndCompressedTest() {
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        Http2 http2 = new Http2();
+        http2.setEnabled(true);
+        factory.setHttp2(http2);
+        Compression compression = new Compression();
+        compression.setEnabled(true);
+        compression.setMinResponseSize(DataSize.ofKilobytes(2));
+        factory.setCompression(compression);
+        factory.addConnectorCustomizers(new Http2Config()
+                .http2ConnectorCustomizer(new Http2Props(250, Duration.ofSeconds(45))));
+
+        TomcatWebServer server = (TomcatWebServer) factory.getWebServer();
+        try {
+            server.start();
+            Connector connector = server.getTomcat().getService().findConnectors()[0];
+            UpgradeProtocol[] upgrades = connector.findUpgradeProtocols();
+            Http2Protocol h2 = (Http2Protocol) Arrays.stream(upgrades)
+                    .filter(Http2Protocol.class::isInstance)
+                    .findFirst()
+                    .orElseThrow();
+
+            assertThat(h2.getMaxConcurrentStreams()).isEqualTo(250);
+            assertThat(h2.getKeepAliveTimeout()).isEqualTo(45_000);
+            // h2c наследует настройки сжатия коннектора HTTP/1.1
+            AbstractHttp11Protocol<?> http11 = (AbstractHttp11Protocol<?>) connector.getProtocolHandler();
+            assertThat(http11.getCompression()).isEqualTo("on");
+            assertThat(http11.getCompressionMinSize()).isEqualTo(2048);
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.AdaptiveLimiter;
+import com.example.bankcards.util.BankMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OverloadFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BankMetrics metrics = new BankMetrics(registry, Tracer.NOOP);
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final AdaptiveLimiter transfer = new AdaptiveLimiter(10, 1, 10, 2.0, 100);
+    private final AdaptiveLimiter search = new AdaptiveLimiter(1, 1, 10, 2.0, 100);
+    private final OverloadFilter filter = new OverloadFilter(endpoints(), 0.8, 2, metrics, mapper);
+
+    @Test
+    void rejectsAboveLimitWith503AndRetryAfterTest() throws Exception {
+        search.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicInteger calls = new AtomicInteger();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/card"), response,
+                (req, res) -> calls.incrementAndGet());
+
+        assertThat(calls).hasValue(0);
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(response.getContentAsString()).contains("\"status\":503").contains("\"path\":\"/api/v1/card\"");
+        assertThat(registry.get(BankMetrics.OVERLOAD_REJECTED).tag("endpoint", "search").tag("reason", "limit")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void searchShedWhileTransfersSaturatedTest() throws Exception {
+        for (int i = 0; i < 8; i++) {
+            transfer.tryAcquire();
+        }
+        MockHttpServletResponse searchResponse = new MockHttpServletResponse();
+        MockHttpServletResponse transferResponse = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/user"), searchResponse, (req, res) -> { });
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/transaction"), transferResponse,
+                (req, res) -> { });
+
+        assertThat(searchResponse.getStatus()).isEqualTo(503);
+        assertThat(transferResponse.getStatus()).isEqualTo(200);
+        assertThat(registry.get(BankMetrics.OVERLOAD_REJECTED).tag("endpoint", "search").tag("reason", "priority")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void lockTimeoutReducesLimitTest() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/transaction"), new MockHttpServletResponse(),
+                (req, res) -> ((HttpServletResponse) res).setStatus(423));
+
+        assertThat(transfer.limit()).isEqualTo(9);
+        assertThat(transfer.inflight()).isZero();
+    }
+
+    @Test
+    void unclassifiedRequestNotLimitedTest() throws Exception {
+        search.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/card/export"), response, (req, res) -> { });
+
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void classifyTest() {
+        assertThat(OverloadFilter.classify("POST", "/api/v1/transaction")).isEqualTo("transfer");
+        assertThat(OverloadFilter.classify("GET", "/api/v1/transaction/42")).isEqualTo("balance");
+        assertThat(OverloadFilter.classify("GET", "/api/v1/transaction/42/stream")).isNull();
+        assertThat(OverloadFilter.classify("POST", "/api/v1/auth/login")).isEqualTo("login");
+        assertThat(OverloadFilter.classify("GET", "/api/v1/card/")).isEqualTo("search");
+        assertThat(OverloadFilter.classify("GET", "/api/v1/user")).isEqualTo("search");
+        assertThat(OverloadFilter.classify("GET", "/api/v1/card/7")).isNull();
+        assertThat(OverloadFilter.classify("DELETE", "/api/v1/user")).isNull();
+    }
+
+    private Map<String, OverloadFilter.Endpoint> endpoints() {
+        Map<String, OverloadFilter.Endpoint> m = new LinkedHashMap<>();
+        m.put("transfer", new OverloadFilter.Endpoint("transfer", 0, transfer));
+        m.put("search", new OverloadFilter.Endpoint("search", 2, search));
+        return m;
+    }
+}
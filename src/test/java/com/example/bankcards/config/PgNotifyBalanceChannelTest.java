@@ -0,0 +1,60 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.BalanceCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class PgNotifyBalanceChannelTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final BalanceCache cache = mock(BalanceCache.class);
+    private final PgNotifyBalanceChannel channel = new PgNotifyBalanceChannel(jdbc, new DataSourceProperties(), cache);
+
+    @Test
+    void smallBatchIsOneMessageTest() {
+        Map<Long, Long> versions = new LinkedHashMap<>();
+        versions.put(1L, 5L);
+        versions.put(2L, Long.MAX_VALUE);
+
+        assertThat(PgNotifyBalanceChannel.payloads(versions)).containsExactly("1:5,2:" + Long.MAX_VALUE);
+    }
+
+    @Test
+    void largeBatchSplitUnderNotifyLimitTest() {
+        Map<Long, Long> versions = new LinkedHashMap<>();
+        for (long id = 1_000_000; id < 1_000_500; id++) {
+            versions.put(id, Long.MAX_VALUE);
+        }
+
+        List<String> payloads = PgNotifyBalanceChannel.payloads(versions);
+
+        assertThat(payloads).hasSizeGreaterThan(1);
+        assertThat(payloads).allSatisfy(p -> assertThat(p.length()).isLessThanOrEqualTo(PgNotifyBalanceChannel.MAX_PAYLOAD_BYTES));
+        assertThat(String.join(",", payloads).split(",")).hasSize(500);
+    }
+
+    @Test
+    void emptyBatchSkipsDatabaseTest() {
+        channel.publish(Map.of());
+
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void applyInvalidatesEveryCardAndSkipsBadItemsTest() {
+        channel.apply("1:5,bad,3:" + Long.MAX_VALUE);
+
+        verify(cache).invalidate(1L, 5L);
+        verify(cache).invalidate(3L, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.props.RateLimitProps;
+import com.example.bankcards.exception.RateLimitException;
+import com.example.bankcards.security.AppUserPrincipal;
+import com.example.bankcards.util.BankMetrics;
+import com.example.bankcards.util.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RateLimitInterceptorTest {
+
+    private static final String NUMBER = "/api/v1/transaction/number/{cardNumber}";
+    private static final String LOGIN = "/api/v1/auth/login";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BankMetrics metrics = new BankMetrics(registry, Tracer.NOOP);
+    private final RateLimitInterceptor interceptor = new RateLimitInterceptor(Map.of(
+            NUMBER, rule("card-number", RateLimitProps.Key.USER),
+            LOGIN, rule("login", RateLimitProps.Key.IP)));
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void userOverLimitGets429WithRetryAfterTest() {
+        authenticate(7L);
+        assertThat(interceptor.preHandle(request(NUMBER, "10.0.0.1"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(request(NUMBER, "10.0.0.1"), new MockHttpServletResponse(), null)).isTrue();
+
+        assertThatThrownBy(() -> interceptor.preHandle(request(NUMBER, "10.0.0.1"), new MockHttpServletResponse(), null))
+                .isInstanceOf(RateLimitException.class)
+                .extracting(ex -> ((RateLimitException) ex).getRetryAfterSeconds())
+                .isEqualTo(1L);
+        assertThat(registry.get(BankMetrics.RATE_LIMIT).tag("rule", "card-number").tag("result", "rejected")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get(BankMetrics.RATE_LIMIT).tag("rule", "card-number").tag("result", "allowed")
+                .counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void bucketKeyedByPrincipalNotAddressTest() {
+        authenticate(7L);
+        interceptor.preHandle(request(NUMBER, "10.0.0.1"), new MockHttpServletResponse(), null);
+        interceptor.preHandle(request(NUMBER, "10.0.0.1"), new MockHttpServletResponse(), null);
+
+        authenticate(8L);
+        assertThat(interceptor.preHandle(request(NUMBER, "10.0.0.1"), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    @Test
+    void loginKeyedByAddressTest() {
+        interceptor.preHandle(request(LOGIN, "10.0.0.1"), new MockHttpServletResponse(), null);
+        interceptor.preHandle(request(LOGIN, "10.0.0.1"), new MockHttpServletResponse(), null);
+
+        assertThat(interceptor.preHandle(request(LOGIN, "10.0.0.2"), new MockHttpServletResponse(), null)).isTrue();
+        assertThatThrownBy(() -> interceptor.preHandle(request(LOGIN, "10.0.0.1"), new MockHttpServletResponse(), null))
+                .isInstanceOf(RateLimitException.class);
+    }
+
+    @Test
+    void routesWithoutRuleNotLimitedTest() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(interceptor.preHandle(request("/api/v1/card/{cardId}", "10.0.0.1"),
+                    new MockHttpServletResponse(), null)).isTrue();
+        }
+    }
+
+    private RateLimitInterceptor.Rule rule(String name, RateLimitProps.Key key) {
+        return new RateLimitInterceptor.Rule(name, key, new TokenBucketRateLimiter(2, 1),
+                metrics.rateLimitCounter(name, "allowed"), metrics.rateLimitCounter(name, "rejected"));
+    }
+
+    private static MockHttpServletRequest request(String pattern, String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        request.setRemoteAddr(address);
+        return request;
+    }
+
+    private static void authenticate(long userId) {
+        AppUserPrincipal principal = new AppUserPrincipal(userId, "u" + userId + "@bank.local", "", true,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
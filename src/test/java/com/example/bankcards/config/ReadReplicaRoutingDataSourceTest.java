@@ -0,0 +1,86 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.props.ReplicaProps;
+import com.example.bankcards.security.AppUserPrincipal;
+import com.example.bankcards.util.ReadYourWritesTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadReplicaRoutingDataSourceTest {
+
+    private final ReadYourWritesTracker tracker =
+            new ReadYourWritesTracker(new ReplicaProps(true, "jdbc:test", null, null, Duration.ofMinutes(1)));
+
+    private final TestRoutingDataSource routing = new TestRoutingDataSource(tracker);
+
+    @AfterEach
+    void clear() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void noTransactionGoesToPrimaryTest() {
+        assertThat(routing.key()).isEqualTo(ReadReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void readWriteTransactionGoesToPrimaryTest() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        assertThat(routing.key()).isEqualTo(ReadReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplicaTest() {
+        readOnlyTransactionAs(7L);
+        assertThat(routing.key()).isEqualTo(ReadReplicaRoutingDataSource.REPLICA);
+    }
+
+    @Test
+    void recentWriterReadsFromPrimaryTest() {
+        readOnlyTransactionAs(7L);
+        tracker.markWriteAfterCommit(7L);
+
+        assertThat(routing.key()).isEqualTo(ReadReplicaRoutingDataSource.PRIMARY);
+
+        readOnlyTransactionAs(8L);
+        assertThat(routing.key()).isEqualTo(ReadReplicaRoutingDataSource.REPLICA);
+    }
+
+    @Test
+    void disabledWindowNeverPinsToPrimaryTest() {
+        ReadYourWritesTracker off = new ReadYourWritesTracker(new ReplicaProps(true, "jdbc:test", null, null, null));
+        TestRoutingDataSource r = new TestRoutingDataSource(off);
+        readOnlyTransactionAs(7L);
+        off.markWriteAfterCommit(7L);
+
+        assertThat(r.key()).isEqualTo(ReadReplicaRoutingDataSource.REPLICA);
+    }
+
+    private void readOnlyTransactionAs(long userId) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        var principal = new AppUserPrincipal(userId, "u" + userId + "@test", "x", true, List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    private static class TestRoutingDataSource extends ReadReplicaRoutingDataSource {
+        TestRoutingDataSource(ReadYourWritesTracker tracker) {
+            super(tracker);
+        }
+
+        Object key() {
+            return determineCurrentLookupKey();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.props.ReplicaProps;
+import com.example.bankcards.security.AppUserPrincipal;
+import com.example.bankcards.util.ReadYourWritesTracker;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ReplicaRoutingConfig} целиком: JPA и {@code JpaTransactionManager} поверх
+ * {@code LazyConnectionDataSourceProxy} и {@link ReadReplicaRoutingDataSource} с двумя пулами.
+ * <p>
+ * Основная БД и реплика — две разные in-memory H2 с одной таблицей {@code probe}; по строкам и по URL
+ * соединения видно, какой пул обслужил запрос. Проверяется порядок, ради которого нужен ленивый прокси:
+ * {@code JpaTransactionManager} начинает транзакцию раньше, чем выставляется флаг read-only.
+ */
+@SpringBootTest(classes = ReplicaRoutingConfigTest.TestApp.class,
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "spring.datasource.url=" + ReplicaRoutingConfigTest.PRIMARY_URL,
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "datasource.replica.enabled=true",
+                "datasource.replica.url=" + ReplicaRoutingConfigTest.REPLICA_URL,
+                "datasource.replica.read-your-writes=1m",
+                "spring.liquibase.enabled=false",
+                "spring.jpa.hibernate.ddl-auto=none",
+                "spring.jpa.open-in-view=false"
+        })
+public class ReplicaRoutingConfigTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EnableConfigurationProperties(ReplicaProps.class)
+    @EntityScan(basePackageClasses = Probe.class)
+    @Import({ReplicaRoutingConfig.class, ReadYourWritesTracker.class, ProbeService.class})
+    static class TestApp { }
+
+    @Entity(name = "Probe")
+    static class Probe {
+
+        @Id
+        Long id;
+
+        String source;
+
+        Probe() { }
+
+        Probe(Long id, String source) {
+            this.id = id;
+            this.source = source;
+        }
+    }
+
+    /**
+     * Что прочитано и через какое соединение.
+     */
+    record Served(List<String> sources, String url) { }
+
+    static class ProbeService {
+
+        @PersistenceContext
+        EntityManager em;
+
+        @Transactional(readOnly = true)
+        public Served read() {
+            List<String> sources = em.createQuery("select p.source from Probe p order by p.id", String.class)
+                    .getResultList();
+            return new Served(sources, connectionUrl());
+        }
+
+        @Transactional
+        public String write(long id) {
+            em.persist(new Probe(id, "written"));
+            em.flush();
+            return connectionUrl();
+        }
+
+        private String connectionUrl() {
+            return em.unwrap(Session.class).doReturningWork(c -> c.getMetaData().getURL());
+        }
+    }
+
+    @Autowired
+    ProbeService probes;
+
+    @Autowired
+    ReadYourWritesTracker readYourWrites;
+
+    @BeforeAll
+    static void schema() throws SQLException {
+        for (String url : List.of(PRIMARY_URL, REPLICA_URL)) {
+            execute(url, "create table if not exists probe (id bigint primary key, source varchar(32))");
+        }
+    }
+
+    @BeforeEach
+    void seed() throws SQLException {
+        execute(PRIMARY_URL, "delete from probe");
+        execute(PRIMARY_URL, "insert into probe (id, source) values (1, 'primary')");
+        execute(REPLICA_URL, "delete from probe");
+        execute(REPLICA_URL, "insert into probe (id, source) values (1, 'replica')");
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionIsServedByReplicaTest() {
+        Served served = probes.read();
+
+        assertThat(served.sources()).containsExactly("replica");
+        assertThat(served.url()).startsWith("jdbc:h2:mem:replica");
+    }
+
+    @Test
+    void writeTransactionIsServedByPrimaryTest() throws SQLException {
+        assertThat(probes.write(2)).startsWith("jdbc:h2:mem:primary");
+
+        assertThat(sources(PRIMARY_URL)).containsExactly("primary", "written");
+        assertThat(sources(REPLICA_URL)).containsExactly("replica");
+    }
+
+    @Test
+    void recentWriterReadsFromPrimaryTest() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AppUserPrincipal(7L, "writer@bank.local", "", true, List.of()), null, List.of()));
+        readYourWrites.markWriteAfterCommit(7L);
+
+        Served served = probes.read();
+
+        assertThat(served.sources()).containsExactly("primary");
+        assertThat(served.url()).startsWith("jdbc:h2:mem:primary");
+    }
+
+    private static void execute(String url, String sql) throws SQLException {
+        try (Connection c = DriverManager.getConnection(url, "sa", ""); Statement s = c.createStatement()) {
+            s.execute(sql);
+        }
+    }
+
+    private static List<String> sources(String url) throws SQLException {
+        List<String> result = new ArrayList<>();
+        try (Connection c = DriverManager.getConnection(url, "sa", "");
+             Statement s = c.createStatement();
+             ResultSet rs = s.executeQuery("select source from probe order by id")) {
+            while (rs.next()) {
+                result.add(rs.getString(1));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuntimeDefaultsEnvironmentPostProcessorTest {
+
+    private final RuntimeDefaultsEnvironmentPostProcessor processor = new RuntimeDefaultsEnvironmentPostProcessor();
+
+    @Test
+    void poolSizeDerivedFromCpuTest() {
+        MockEnvironment env = new MockEnvironment();
+        processor.postProcessEnvironment(env, null);
+
+        int cpu = Runtime.getRuntime().availableProcessors();
+        assertThat(env.getProperty("runtime.cpu-count", Integer.class)).isEqualTo(cpu);
+        assertThat(env.getProperty("runtime.db-pool-size", Integer.class))
+                .isEqualTo(Math.max(RuntimeDefaultsEnvironmentPostProcessor.MIN_POOL_SIZE, cpu * 2 + 1));
+        assertThat(env.containsProperty("spring.datasource.hikari.maximum-pool-size")).isFalse();
+    }
+
+    @Test
+    void virtualThreadsCapPoolTest() {
+        MockEnvironment env = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+        processor.postProcessEnvironment(env, null);
+
+        assertThat(env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class))
+                .isEqualTo(env.getProperty("runtime.db-pool-size", Integer.class));
+        assertThat(env.getProperty("spring.datasource.hikari.connection-timeout", Long.class))
+                .isEqualTo(RuntimeDefaultsEnvironmentPostProcessor.VIRTUAL_CONNECTION_TIMEOUT_MS);
+    }
+
+    @Test
+    void explicitSettingsWinTest() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("spring.threads.virtual.enabled", "true")
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "7");
+        processor.postProcessEnvironment(env, null);
+
+        assertThat(env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class)).isEqualTo(7);
+    }
+}
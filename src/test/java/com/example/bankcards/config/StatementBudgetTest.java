@@ -0,0 +1,102 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.security.AppUserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Бюджеты SQL-выражений на горячих эндпоинтах: число обращений к БД за запрос читается
+ * из заголовка {@code X-DB-Stats}. Рост числа выражений (N+1, лишние lookup'ы) ломает тест.
+ * <p>
+ * Интеграционный тест ({@link AbstractIntegrationTest}): запускается в {@code mvn -Pintegration test},
+ * без Docker падает.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {"datasource.stats.enabled=true", "datasource.stats.header=true"})
+public class StatementBudgetTest extends AbstractIntegrationTest {
+
+    private static final Pattern STATEMENTS = Pattern.compile("statements=(\\d+)");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    private AppUserPrincipal principal;
+    private List<Long> cardIds;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("delete from cards");
+        jdbc.update("delete from users where email = 'budget@bank.local'");
+        jdbc.update("""
+                insert into users (name, email, role, is_active, password_hash, created_at, modified_at, version, dtype)
+                values ('budget', 'budget@bank.local', 'USER', true, 'x', now(), now(), 0, 'STANDARD')
+                """);
+        Long userId = jdbc.queryForObject("select id from users where email = 'budget@bank.local'", Long.class);
+        jdbc.update("""
+                insert into cards (num_encrypted, num_last4, num_hmac, user_id, expiration, card_status, balance,
+                                   created_at, modified_at, version, dtype)
+                select 'seed', lpad(n::text, 4, '0'), 'budget-' || n, ?, now() + interval '4 years', 'ACTIVE', 1000,
+                       now(), now(), 0, 'STANDARD'
+                from generate_series(1, 5) n
+                """, userId);
+        cardIds = jdbc.queryForList("select id from cards where user_id = ? order by id", Long.class, userId);
+        principal = new AppUserPrincipal(userId, "budget@bank.local", "", true,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Test
+    void cardListBudgetTest() throws Exception {
+        // страница карт и count: страница меньше числа карт, поэтому Spring Data не пропускает count
+        assertThat(statements(get("/api/v1/card").param("size", "2"))).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void cardByIdBudgetTest() throws Exception {
+        assertThat(statements(get("/api/v1/card/{cardId}", cardIds.get(0)))).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void transferBudgetTest() throws Exception {
+        String body = """
+                {"sourceCardId": %d, "destinationCardId": %d, "amount": 10}
+                """.formatted(cardIds.get(0), cardIds.get(1));
+
+        // две блокировки карт, два обновления балансов и одна вставка в журнал движений
+        assertThat(statements(post("/api/v1/transaction").contentType(MediaType.APPLICATION_JSON).content(body)))
+                .isLessThanOrEqualTo(5);
+    }
+
+    private int statements(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request.with(user(principal)))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn();
+        String header = result.getResponse().getHeader(DbStatsFilter.HEADER);
+        assertThat(header).isNotNull();
+        Matcher m = STATEMENTS.matcher(header);
+        assertThat(m.find()).isTrue();
+        return Integer.parseInt(m.group(1));
+    }
+}
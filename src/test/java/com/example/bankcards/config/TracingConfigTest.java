@@ -0,0 +1,57 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.entity.StandardCard;
+import com.example.bankcards.mapper.BankMapper;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.test.simple.SimpleSpan;
+import io.micrometer.tracing.test.simple.SimpleTracer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TracingConfigTest {
+
+    private final SimpleTracer tracer = new SimpleTracer();
+
+    private final BeanPostProcessor postProcessor = TracingConfig.tracingBeanPostProcessor(
+            new StaticListableBeanFactory(Map.of("tracer", tracer)).getBeanProvider(Tracer.class));
+
+    @Test
+    void mapperCallsAreWrappedInSpanTest() {
+        BankMapper target = mock(BankMapper.class);
+        StandardCard card = new StandardCard();
+        when(target.cardToCardDto(card)).thenReturn(null);
+
+        BankMapper mapper = (BankMapper) postProcessor.postProcessAfterInitialization(target, "bankMapper");
+        mapper.cardToCardDto(card);
+
+        SimpleSpan span = tracer.onlySpan();
+        assertThat(span.getName()).isEqualTo("BankMapper.cardToCardDto");
+        assertThat(span.getTags()).containsEntry("bank.component", "mapper");
+        assertThat(span.getEndTimestamp()).isNotNull();
+    }
+
+    @Test
+    void failedCallMarksSpanErrorTest() {
+        BankMapper target = mock(BankMapper.class);
+        when(target.cardToCardDto(null)).thenThrow(new IllegalStateException("boom"));
+
+        BankMapper mapper = (BankMapper) postProcessor.postProcessAfterInitialization(target, "bankMapper");
+
+        assertThatThrownBy(() -> mapper.cardToCardDto(null)).isInstanceOf(IllegalStateException.class);
+        assertThat(tracer.onlySpan().getError()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void otherBeansAreNotProxiedTest() {
+        Object bean = new Object();
+        assertThat(postProcessor.postProcessAfterInitialization(bean, "other")).isSameAs(bean);
+    }
+}
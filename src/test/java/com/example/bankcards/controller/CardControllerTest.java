@@ -2,13 +2,18 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.TestUtils;
 import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.dto.CardBulkStatusDto;
+import com.example.bankcards.dto.CardBulkStatusResultDto;
 import com.example.bankcards.dto.CardCreateDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardExportFormat;
 import com.example.bankcards.dto.CardSearchRequestDto;
 import com.example.bankcards.dto.CardUpdateDto;
+import com.example.bankcards.dto.FieldSelection;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.security.JwtAuthFilter;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.BankMetrics;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletRequest;
@@ -22,14 +27,19 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -52,6 +62,9 @@ class CardControllerTest {
     @MockBean
     private JwtAuthFilter jwtAuthFilter;
 
+    @MockBean
+    private BankMetrics metrics;
+
     private final TestUtils testUtils = new TestUtils();
 
     @BeforeEach
@@ -112,7 +125,7 @@ class CardControllerTest {
         CardDto cardDto = testUtils.buildActiveCardDto();
         Page<CardDto> page = new PageImpl<>(List.of(cardDto));
 
-        when(cardService.getCards(any(CardSearchRequestDto.class))).thenReturn(page);
+        when(cardService.getCards(any(CardSearchRequestDto.class), any(FieldSelection.class))).thenReturn(page);
 
         mockMvc.perform(get("/api/v1/card")
                         .param("page", "0")
@@ -129,24 +142,130 @@ class CardControllerTest {
                 .andExpect(jsonPath("$.content[0].status").value("ACTIVE"));
 
         ArgumentCaptor<CardSearchRequestDto> captor = ArgumentCaptor.forClass(CardSearchRequestDto.class);
-        verify(cardService).getCards(captor.capture());
+        verify(cardService).getCards(captor.capture(), eq(FieldSelection.DEFAULT));
         assertThat(captor.getValue().userId()).isEqualTo(42L);
         assertThat(captor.getValue().last4()).isEqualTo("1234");
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void getAllCardsCompactPageWithFieldsTest() throws Exception {
+        Page<CardDto> page = new PageImpl<>(List.of(testUtils.buildActiveCardDto()), PageRequest.of(0, 10), 11);
+        when(cardService.getCards(any(CardSearchRequestDto.class), any(FieldSelection.class))).thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/card")
+                        .param("fields", "id, balance")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.size").value(10))
+                .andExpect(jsonPath("$.totalElements").value(11))
+                .andExpect(jsonPath("$.totalPages").value(2))
+                .andExpect(jsonPath("$.pageable").doesNotExist())
+                .andExpect(jsonPath("$.sort").doesNotExist())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[0].balance").exists())
+                .andExpect(jsonPath("$.content[0].status").doesNotExist())
+                .andExpect(jsonPath("$.content[0].cardNumber").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportCardsCsvTest() throws Exception {
+        when(cardService.exportCards(any(CardSearchRequestDto.class), eq(CardExportFormat.CSV)))
+                .thenReturn(out -> out.write("id\n1\n".getBytes(StandardCharsets.UTF_8)));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/card/export")
+                        .param("format", "csv")
+                        .param("status", "ACTIVE"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"cards.csv\""))
+                .andExpect(content().string("id\n1\n"));
+
+        ArgumentCaptor<CardSearchRequestDto> captor = ArgumentCaptor.forClass(CardSearchRequestDto.class);
+        verify(cardService).exportCards(captor.capture(), eq(CardExportFormat.CSV));
+        assertThat(captor.getValue().status()).isEqualTo(CardStatus.ACTIVE);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportCardsUnknownFormatTest() throws Exception {
+        mockMvc.perform(get("/api/v1/card/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void exportCardsForbiddenForUserTest() throws Exception {
+        mockMvc.perform(get("/api/v1/card/export"))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void prometheusForbiddenOnApiPortTest() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void prometheusOpenOnManagementPortTest() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+
+        // в срезе WebMvcTest actuator нет: важно только, что запрос на порт управления пропущен без аутентификации
+        MvcResult result = mockMvc.perform(get("/actuator/prometheus").with(r -> {
+                    r.setLocalPort(8081);
+                    return r;
+                }))
+                .andReturn();
+        assertThat(result.getResponse().getStatus()).isNotIn(401, 403);
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void getCardByIdSuccessTest() throws Exception {
         CardDto dto = testUtils.buildActiveCardDto();
 
-        when(cardService.getCard(7L)).thenReturn(dto);
+        when(cardService.getCard(7L, FieldSelection.DEFAULT)).thenReturn(dto);
 
         mockMvc.perform(get("/api/v1/card/{cardId}", 7L))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.cardNumber").value("**** **** **** 1234"));
 
-        verify(cardService).getCard(7L);
+        verify(cardService).getCard(7L, FieldSelection.DEFAULT);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getCardByIdReturnsETagTest() throws Exception {
+        when(cardService.findCardVersion(7L)).thenReturn(Optional.of(3L));
+        when(cardService.getCard(7L, FieldSelection.DEFAULT)).thenReturn(testUtils.buildActiveCardDto());
+
+        mockMvc.perform(get("/api/v1/card/{cardId}", 7L))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"card-7-3\""));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getCardByIdNotModifiedTest() throws Exception {
+        when(cardService.findCardVersion(7L)).thenReturn(Optional.of(3L));
+
+        mockMvc.perform(get("/api/v1/card/{cardId}", 7L)
+                        .header("If-None-Match", "\"card-7-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(cardService, never()).getCard(eq(7L), any());
     }
 
 
@@ -197,6 +316,37 @@ class CardControllerTest {
         verifyNoInteractions(cardService);
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void updateCardStatusesSuccessTest() throws Exception {
+        CardBulkStatusDto bulkDto = new CardBulkStatusDto(CardStatus.BLOCKED, List.of(1L, 2L), null);
+
+        when(cardService.updateCardStatuses(bulkDto))
+                .thenReturn(new CardBulkStatusResultDto(CardStatus.BLOCKED, 2, 1));
+
+        mockMvc.perform(patch("/api/v1/card/bulk-status")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bulkDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched").value(2))
+                .andExpect(jsonPath("$.updated").value(1));
+
+        verify(cardService).updateCardStatuses(bulkDto);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void updateCardStatusesForbiddenTest() throws Exception {
+        CardBulkStatusDto bulkDto = new CardBulkStatusDto(CardStatus.BLOCKED, List.of(1L), null);
+
+        mockMvc.perform(patch("/api/v1/card/bulk-status")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bulkDto)))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(cardService);
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void deleteCardNoContentTest() throws Exception {
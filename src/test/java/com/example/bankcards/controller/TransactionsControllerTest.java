@@ -3,8 +3,10 @@ package com.example.bankcards.controller;
 import com.example.bankcards.config.SecurityConfig;
 import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.dto.TransferResultDto;
+import com.example.bankcards.exception.StreamLimitException;
 import com.example.bankcards.security.JwtAuthFilter;
 import com.example.bankcards.service.TransferService;
+import com.example.bankcards.util.BankMetrics;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
@@ -17,12 +19,15 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -41,6 +46,9 @@ public class TransactionsControllerTest {
     @MockBean
     private JwtAuthFilter jwtAuthFilter;
 
+    @MockBean
+    private BankMetrics metrics;
+
     @BeforeEach
     void makeJwtFilterPassThrough() throws Exception {
         if (jwtAuthFilter != null) {
@@ -106,6 +114,31 @@ public class TransactionsControllerTest {
         verify(transferService).getBalance(1001L);
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void getBalanceByIdNotModifiedTest() throws Exception {
+        when(transferService.findBalanceVersion(1001L)).thenReturn(Optional.of(12L));
+
+        mockMvc.perform(get("/api/v1/transaction/{cardId}", 1001L)
+                        .header("If-None-Match", "\"balance-1001-12\""))
+                .andExpect(status().isNotModified());
+
+        verify(transferService, never()).getBalance(1001L);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getBalanceByIdChangedVersionTest() throws Exception {
+        when(transferService.findBalanceVersion(1001L)).thenReturn(Optional.of(13L));
+        when(transferService.getBalance(1001L)).thenReturn(new BigDecimal("10.00"));
+
+        mockMvc.perform(get("/api/v1/transaction/{cardId}", 1001L)
+                        .header("If-None-Match", "\"balance-1001-12\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"balance-1001-13\""))
+                .andExpect(content().string("10.00"));
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void getBalanceByIdValidationFailTest() throws Exception {
@@ -140,6 +173,28 @@ public class TransactionsControllerTest {
         verifyNoInteractions(transferService);
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void streamBalanceStartsEventStreamTest() throws Exception {
+        when(transferService.streamBalance(1001L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/v1/transaction/{cardId}/stream", 1001L)
+                        .accept(TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andExpect(handler().methodName("streamBalance"));
+        verify(transferService).streamBalance(1001L);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void streamBalanceLimitTest() throws Exception {
+        when(transferService.streamBalance(1001L)).thenThrow(new StreamLimitException("Too many balance streams"));
+
+        mockMvc.perform(get("/api/v1/transaction/{cardId}/stream", 1001L)
+                        .accept(TEXT_EVENT_STREAM, APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests());
+    }
+
     @Test
     void anyEndpointUnauthorizedTest() throws Exception {
         mockMvc.perform(get("/api/v1/transaction/1001")
@@ -2,14 +2,18 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.TestUtils;
 import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.dto.FieldSelection;
 import com.example.bankcards.dto.UserCreateDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.UserSearchRequestDto;
 import com.example.bankcards.dto.UserUpdateDto;
 import com.example.bankcards.entity.UserRole;
 import com.example.bankcards.entity.UserType;
+import com.example.bankcards.repository.UserVersionStamp;
 import com.example.bankcards.security.JwtAuthFilter;
 import com.example.bankcards.service.UserService;
+import com.example.bankcards.util.BankMetrics;
+import com.example.bankcards.util.ETags;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletRequest;
@@ -21,16 +25,26 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.handler;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
@@ -49,6 +63,9 @@ class UserControllerTest {
     @MockBean
     private JwtAuthFilter jwtAuthFilter;
 
+    @MockBean
+    private BankMetrics metrics;
+
 
     private final TestUtils testUtils = new TestUtils();
 
@@ -111,7 +128,7 @@ class UserControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void getUserSuccessTest() throws Exception {
-        when(userService.getUser(1001L)).thenReturn(null);
+        when(userService.getUser(1001L, FieldSelection.DEFAULT)).thenReturn(null);
 
         mockMvc.perform(get("/api/v1/user/{userId}", 1001L)
                         .accept(APPLICATION_JSON))
@@ -119,7 +136,21 @@ class UserControllerTest {
                 .andExpect(handler().handlerType(UserController.class))
                 .andExpect(handler().methodName("getUser"));
 
-        verify(userService).getUser(1001L);
+        verify(userService).getUser(1001L, FieldSelection.DEFAULT);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getUserNotModifiedTest() throws Exception {
+        UserVersionStamp stamp = new UserVersionStamp(LocalDateTime.of(2025, 1, 1, 10, 0), 2L,
+                LocalDateTime.of(2025, 1, 2, 10, 0), 9L);
+        when(userService.findUserVersion(1001L)).thenReturn(Optional.of(stamp));
+
+        mockMvc.perform(get("/api/v1/user/{userId}", 1001L)
+                        .header("If-None-Match", ETags.user(1001L, stamp)))
+                .andExpect(status().isNotModified());
+
+        verify(userService, never()).getUser(eq(1001L), any());
     }
 
     @Test
@@ -137,7 +168,7 @@ class UserControllerTest {
     void getAllUsersSuccessTest() throws Exception {
         // given
         Page<UserDto> page = Page.empty();
-        when(userService.getUsers(any(UserSearchRequestDto.class))).thenReturn(page);
+        when(userService.getUsers(any(UserSearchRequestDto.class), any(FieldSelection.class))).thenReturn(page);
 
         // when / then
         mockMvc.perform(get("/api/v1/user")
@@ -154,6 +185,54 @@ class UserControllerTest {
                 .andExpect(handler().methodName("getAllUsers"));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllUsersFieldsWithExpandedCardsTest() throws Exception {
+        UserDto user = UserDto.builder()
+                .id(7L).name("Иван").email("ivan@example.com").role(UserRole.USER).isActive(true)
+                .cards(List.of(testUtils.buildActiveCardDto()))
+                .build();
+        when(userService.getUsers(any(UserSearchRequestDto.class), any(FieldSelection.class)))
+                .thenReturn(new PageImpl<>(List.of(user)));
+
+        mockMvc.perform(get("/api/v1/user")
+                        .param("fields", "id")
+                        .param("expand", "cards")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(7))
+                .andExpect(jsonPath("$.content[0].email").doesNotExist())
+                .andExpect(jsonPath("$.content[0].cards[0].status").value("ACTIVE"));
+
+        verify(userService).getUsers(any(UserSearchRequestDto.class), eq(FieldSelection.of("id", "cards")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportUsersNdjsonTest() throws Exception {
+        when(userService.exportUsers(any(UserSearchRequestDto.class)))
+                .thenReturn(out -> out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8)));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/user/export").param("role", "USER"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+        verify(userService).exportUsers(argThat(r -> r.role() == UserRole.USER));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void exportUsersForbiddenTest() throws Exception {
+        mockMvc.perform(get("/api/v1/user/export"))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(userService);
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void getAllUsersForbiddenTest() throws Exception {
@@ -173,7 +252,7 @@ class UserControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void deleteUserNoContentTest() throws Exception {
-        doNothing().when(userService).deleteUser(777L);
+        when(userService.deleteUser(777L)).thenReturn(true);
 
         mockMvc.perform(delete("/api/v1/user/{userId}", 777L))
                 .andExpect(status().isNoContent())
@@ -183,6 +262,37 @@ class UserControllerTest {
         verify(userService).deleteUser(777L);
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void deleteUserWithCardsAcceptedTest() throws Exception {
+        when(userService.deleteUser(777L)).thenReturn(false);
+
+        mockMvc.perform(delete("/api/v1/user/{userId}", 777L))
+                .andExpect(status().isAccepted());
+
+        verify(userService).deleteUser(777L);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void deactivateUserNoContentTest() throws Exception {
+        when(userService.deactivateUser(777L)).thenReturn(3);
+
+        mockMvc.perform(post("/api/v1/user/{userId}/deactivate", 777L))
+                .andExpect(status().isNoContent());
+
+        verify(userService).deactivateUser(777L);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void deactivateUserForbiddenTest() throws Exception {
+        mockMvc.perform(post("/api/v1/user/{userId}/deactivate", 777L))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userService);
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void deleteUserForbiddenTest() throws Exception {
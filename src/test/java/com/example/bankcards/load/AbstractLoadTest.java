@@ -0,0 +1,189 @@
+package com.example.bankcards.load;
+
+import com.example.bankcards.security.AppUserPrincipal;
+import com.example.bankcards.service.JwtService;
+import org.junit.jupiter.api.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Основа нагрузочных тестов: приложение целиком на случайном порту, PostgreSQL в Testcontainers,
+ * профиль {@code performance}.
+ * <p>
+ * Помечено тегом {@code load} и по умолчанию исключено из {@code mvn test}; запуск — {@code mvn -Pload test}.
+ * Параметры прогона задаются системными свойствами {@code load.*} (см. {@link #intProp}, {@link #durationProp}).
+ */
+@Tag("load")
+@Testcontainers
+@ActiveProfiles("performance")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+abstract class AbstractLoadTest {
+
+    static final String PASSWORD = "load-password";
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final String JWT_SECRET = randomKey();
+    private static final String AES_KEY = randomKey();
+    private static final String HMAC_KEY = randomKey();
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("security.jwt.secret-base64", () -> JWT_SECRET);
+        registry.add("crypto.number.aes-key-base64", () -> AES_KEY);
+        registry.add("crypto.number.hmac-key-base64", () -> HMAC_KEY);
+        // все клиенты идут с одного адреса: лимит логина по IP исказил бы сценарии; -Dload.rate-limit=true включает
+        registry.add("rate-limit.enabled", () -> System.getProperty("load.rate-limit", "false"));
+        registry.add("management.server.port", () -> "0");
+    }
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    JwtService jwtService;
+
+    final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /**
+     * Засеянный пользователь.
+     *
+     * @param id      идентификатор
+     * @param email   логин (пароль у всех {@link #PASSWORD})
+     * @param token   готовый JWT
+     * @param cardIds идентификаторы его карт
+     */
+    record SeededUser(long id, String email, String token, long[] cardIds) { }
+
+    /**
+     * Массово создаёт пользователей с ролью USER и по {@code cardsPerUser} активных карт у каждого.
+     * <p>
+     * Вставка идёт двумя set-based запросами через {@code generate_series}, без обхода сервисного слоя:
+     * номера карт не шифруются ({@code num_encrypted = 'seed'}), {@code num_hmac} уникален, но не вычислен
+     * от номера — поэтому поиск по номеру на засеянных картах не работает, а по id и last4 работает.
+     *
+     * @param users        число пользователей
+     * @param cardsPerUser карт на пользователя (не меньше 2, чтобы были переводы между своими картами)
+     * @param balance      начальный баланс каждой карты
+     * @return пользователи с токенами и картами
+     */
+    List<SeededUser> seed(int users, int cardsPerUser, BigDecimal balance) {
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        jdbc.update("""
+                insert into users (name, email, role, is_active, password_hash, created_at, modified_at, version, dtype)
+                select 'load-' || g, 'load-' || g || '@bank.local', 'USER', true, ?, now(), now(), 0, 'STANDARD'
+                from generate_series(1, ?) g
+                """, hash, users);
+        jdbc.update("""
+                insert into cards (num_encrypted, num_last4, num_hmac, user_id, expiration, card_status, balance,
+                                   created_at, modified_at, version, dtype)
+                select 'seed', lpad(((u.id * 7 + c.n) % 10000)::text, 4, '0'), 'seed-' || u.id || '-' || c.n, u.id,
+                       now() + interval '4 years', 'ACTIVE', ?, now(), now(), 0, 'STANDARD'
+                from users u cross join generate_series(1, ?) c(n)
+                where u.email like 'load-%'
+                """, balance, cardsPerUser);
+        jdbc.execute("analyze users");
+        jdbc.execute("analyze cards");
+
+        Map<Long, String> emails = new LinkedHashMap<>();
+        jdbc.query("select id, email from users where email like 'load-%' order by id",
+                rs -> { emails.put(rs.getLong(1), rs.getString(2)); });
+        Map<Long, List<Long>> cards = new LinkedHashMap<>();
+        jdbc.query("select user_id, id from cards where num_hmac like 'seed-%' order by user_id, id",
+                rs -> { cards.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>()).add(rs.getLong(2)); });
+
+        List<SeededUser> result = new ArrayList<>(emails.size());
+        emails.forEach((id, email) -> result.add(new SeededUser(id, email, tokenFor(id, email),
+                cards.getOrDefault(id, List.of()).stream().mapToLong(Long::longValue).toArray())));
+        return result;
+    }
+
+    String tokenFor(long userId, String email) {
+        return jwtService.generateToken(new AppUserPrincipal(userId, email, "", true,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            b.header("Authorization", "Bearer " + token);
+        }
+        return b;
+    }
+
+    /**
+     * Отправляет запрос и классифицирует ответ. У ответа 400 по телу отличается нехватка средств
+     * ({@code insufficient_funds}) от прочих ошибок валидации.
+     */
+    LoadRunner.Outcome send(HttpRequest req) throws Exception {
+        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() == 400 && resp.body().contains("Insufficient funds")) {
+            return new LoadRunner.Outcome(400, "insufficient_funds");
+        }
+        return LoadRunner.Outcome.of(resp.statusCode());
+    }
+
+    LoadRunner runner() {
+        return runner(64);
+    }
+
+    LoadRunner runner(int defaultConcurrency) {
+        return new LoadRunner(intProp("load.concurrency", defaultConcurrency),
+                durationProp("load.warmup", Duration.ofSeconds(5)),
+                durationProp("load.duration", Duration.ofSeconds(30)));
+    }
+
+    static int intProp(String name, int def) {
+        return Integer.getInteger(name, def);
+    }
+
+    static double doubleProp(String name, double def) {
+        String v = System.getProperty(name);
+        return v == null || v.isBlank() ? def : Double.parseDouble(v);
+    }
+
+    static Duration durationProp(String name, Duration def) {
+        String v = System.getProperty(name);
+        return v == null || v.isBlank() ? def : Duration.parse(v);
+    }
+
+    private static String randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.bankcards.load;
+
+class AsyncLoggingTransferLoadTest extends TransferLoggingLoadTest {
+}
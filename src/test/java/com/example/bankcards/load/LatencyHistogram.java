@@ -0,0 +1,88 @@
+package com.example.bankcards.load;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасная гистограмма задержек с фиксированными корзинами.
+ * <p>
+ * Разрешение: 1 µs до 1 ms, 100 µs до 1 s, 10 ms до 60 s; всё, что дольше, попадает в последнюю корзину.
+ * Запись — один {@code incrementAndGet} без блокировок, поэтому гистограмма не искажает замер.
+ */
+class LatencyHistogram {
+
+    private static final long MICROS_FINE = 1_000;
+    private static final long MICROS_MEDIUM = 1_000_000;
+    private static final long MICROS_MAX = 60_000_000;
+
+    private static final int FINE_BUCKETS = (int) MICROS_FINE;
+    private static final int MEDIUM_BUCKETS = (int) ((MICROS_MEDIUM - MICROS_FINE) / 100);
+    private static final int COARSE_BUCKETS = (int) ((MICROS_MAX - MICROS_MEDIUM) / 10_000);
+    private static final int BUCKETS = FINE_BUCKETS + MEDIUM_BUCKETS + COARSE_BUCKETS + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        counts.incrementAndGet(bucket(micros));
+        total.increment();
+        sumMicros.add(micros);
+    }
+
+    long count() {
+        return total.sum();
+    }
+
+    double meanMillis() {
+        long n = total.sum();
+        return n == 0 ? 0 : sumMicros.sum() / 1_000.0 / n;
+    }
+
+    /**
+     * @param quantile квантиль в диапазоне (0, 1], например 0.99
+     * @return верхняя граница корзины квантиля в миллисекундах
+     */
+    double percentileMillis(double quantile) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return upperBoundMicros(i) / 1_000.0;
+            }
+        }
+        return MICROS_MAX / 1_000.0;
+    }
+
+    private static int bucket(long micros) {
+        if (micros < MICROS_FINE) {
+            return (int) micros;
+        }
+        if (micros < MICROS_MEDIUM) {
+            return FINE_BUCKETS + (int) ((micros - MICROS_FINE) / 100);
+        }
+        if (micros < MICROS_MAX) {
+            return FINE_BUCKETS + MEDIUM_BUCKETS + (int) ((micros - MICROS_MEDIUM) / 10_000);
+        }
+        return BUCKETS - 1;
+    }
+
+    private static long upperBoundMicros(int bucket) {
+        if (bucket < FINE_BUCKETS) {
+            return bucket + 1;
+        }
+        if (bucket < FINE_BUCKETS + MEDIUM_BUCKETS) {
+            return MICROS_FINE + (long) (bucket - FINE_BUCKETS + 1) * 100;
+        }
+        if (bucket < BUCKETS - 1) {
+            return MICROS_MEDIUM + (long) (bucket - FINE_BUCKETS - MEDIUM_BUCKETS + 1) * 10_000;
+        }
+        return MICROS_MAX;
+    }
+}
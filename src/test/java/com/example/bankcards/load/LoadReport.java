@@ -0,0 +1,210 @@
+package com.example.bankcards.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Результат нагрузочного прогона: пропускная способность, перцентили задержки, разбивка по HTTP-статусам
+ * и категориям ошибок ({@code lock_timeout}, {@code insufficient_funds}, ...) для каждой операции сценария.
+ * <p>
+ * Статус {@code -1} означает ошибку ввода-вывода (таймаут, разрыв соединения).
+ */
+public class LoadReport {
+
+    private final String scenario;
+    private final Map<String, Object> parameters;
+    private final Map<String, OperationStats> operations = new ConcurrentSkipListMap<>();
+    private final Map<String, Object> extras = new LinkedHashMap<>();
+    private volatile long elapsedNanos;
+
+    LoadReport(String scenario, Map<String, Object> parameters) {
+        this.scenario = scenario;
+        this.parameters = new LinkedHashMap<>(parameters);
+    }
+
+    void record(String operation, LoadRunner.Outcome outcome, long nanos) {
+        operations.computeIfAbsent(operation, k -> new OperationStats()).record(outcome, nanos);
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Добавляет в отчёт данные сценария, которых нет в общей статистике (например, размер ответов).
+     *
+     * @param key   ключ верхнего уровня JSON
+     * @param value значение
+     */
+    public void attach(String key, Object value) {
+        extras.put(key, value);
+    }
+
+    public String scenario() {
+        return scenario;
+    }
+
+    /**
+     * @param status HTTP-статус
+     * @return число ответов с этим статусом по всем операциям
+     */
+    public long count(int status) {
+        return operations.values().stream().mapToLong(s -> s.statusCount(status)).sum();
+    }
+
+    /**
+     * @param error категория ошибки
+     * @return число ошибок этой категории по всем операциям
+     */
+    public long errors(String error) {
+        return operations.values().stream().mapToLong(s -> s.errorCount(error)).sum();
+    }
+
+    /**
+     * @return число ответов 5xx (кроме 503 сброса нагрузки, категория {@code overloaded}) и ошибок ввода-вывода
+     * по всем операциям
+     */
+    public long serverErrors() {
+        return operations.values().stream().mapToLong(OperationStats::serverErrors).sum();
+    }
+
+    public long total() {
+        return operations.values().stream().mapToLong(s -> s.latency.count()).sum();
+    }
+
+    /**
+     * @return отчёт в виде дерева значений для JSON
+     */
+    public Map<String, Object> toMap() {
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Object> ops = new LinkedHashMap<>();
+        operations.forEach((name, stats) -> ops.put(name, stats.toMap(seconds)));
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("scenario", scenario);
+        root.put("timestamp", Instant.now().toString());
+        root.put("parameters", parameters);
+        root.put("durationSeconds", round(seconds));
+        root.put("throughputPerSecond", round(seconds == 0 ? 0 : total() / seconds));
+        root.put("errors", mergedErrors());
+        root.put("operations", ops);
+        root.putAll(extras);
+        return root;
+    }
+
+    /**
+     * Записывает отчёт в {@code <dir>/<scenario>.json}.
+     *
+     * @param dir каталог отчётов
+     * @return путь к файлу
+     */
+    public Path writeJson(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(scenario + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), toMap());
+        return file;
+    }
+
+    /**
+     * Дописывает отчёт одной строкой в JSON Lines файл — история прогонов для отслеживания трендов.
+     *
+     * @param file файл истории
+     */
+    public void appendJsonLine(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        String line = new ObjectMapper().writeValueAsString(toMap()) + System.lineSeparator();
+        Files.writeString(file, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%n=== %s: %d requests in %.1fs, %.1f req/s%n",
+                scenario, total(), seconds, seconds == 0 ? 0 : total() / seconds));
+        sb.append(String.format("%-12s %9s %9s %9s %9s %9s  %s  %s%n", "operation", "count", "rps", "p50 ms", "p99 ms", "p999 ms", "statuses", "errors"));
+        operations.forEach((name, s) -> sb.append(String.format("%-12s %9d %9.1f %9.2f %9.2f %9.2f  %s  %s%n",
+                name, s.latency.count(), seconds == 0 ? 0 : s.latency.count() / seconds,
+                s.latency.percentileMillis(0.50), s.latency.percentileMillis(0.99), s.latency.percentileMillis(0.999),
+                s.statuses(), s.errors())));
+        return sb.toString();
+    }
+
+    private Map<String, Long> mergedErrors() {
+        Map<String, Long> m = new TreeMap<>();
+        operations.values().forEach(s -> s.errors().forEach((k, v) -> m.merge(k, v, Long::sum)));
+        return m;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+
+    private static class OperationStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        void record(LoadRunner.Outcome outcome, long nanos) {
+            latency.record(nanos);
+            statuses.computeIfAbsent(outcome.status(), k -> new LongAdder()).increment();
+            if (outcome.error() != null) {
+                errors.computeIfAbsent(outcome.error(), k -> new LongAdder()).increment();
+            }
+        }
+
+        long errorCount(String error) {
+            LongAdder a = errors.get(error);
+            return a == null ? 0 : a.sum();
+        }
+
+        Map<String, Long> errors() {
+            Map<String, Long> m = new TreeMap<>();
+            errors.forEach((k, v) -> m.put(k, v.sum()));
+            return m;
+        }
+
+        long statusCount(int status) {
+            LongAdder a = statuses.get(status);
+            return a == null ? 0 : a.sum();
+        }
+
+        long serverErrors() {
+            return statuses.entrySet().stream()
+                    .filter(e -> e.getKey() < 0 || e.getKey() >= 500 && e.getKey() != 503)
+                    .mapToLong(e -> e.getValue().sum())
+                    .sum();
+        }
+
+        Map<Integer, Long> statuses() {
+            Map<Integer, Long> m = new TreeMap<>();
+            statuses.forEach((k, v) -> m.put(k, v.sum()));
+            return m;
+        }
+
+        Map<String, Object> toMap(double seconds) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("count", latency.count());
+            m.put("throughputPerSecond", round(seconds == 0 ? 0 : latency.count() / seconds));
+            m.put("meanMs", round(latency.meanMillis()));
+            m.put("p50Ms", round(latency.percentileMillis(0.50)));
+            m.put("p99Ms", round(latency.percentileMillis(0.99)));
+            m.put("p999Ms", round(latency.percentileMillis(0.999)));
+            m.put("statuses", statuses());
+            m.put("errors", errors());
+            return m;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.bankcards.load;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Замкнутая модель нагрузки: {@code concurrency} виртуальных потоков без пауз выполняют
+ * взвешенную смесь операций в течение заданного времени.
+ * <p>
+ * Первые {@code warmup} секунд результаты не записываются (прогрев JIT, пулов и кэшей).
+ */
+public class LoadRunner {
+
+    /**
+     * Один HTTP-вызов сценария.
+     */
+    @FunctionalInterface
+    public interface Call {
+        /**
+         * @return HTTP-статус ответа
+         */
+        int execute() throws Exception;
+    }
+
+    /**
+     * HTTP-вызов, который сам классифицирует ошибку (например, по телу ответа).
+     */
+    @FunctionalInterface
+    public interface ClassifiedCall {
+        Outcome execute() throws Exception;
+    }
+
+    /**
+     * Результат вызова.
+     *
+     * @param status HTTP-статус ({@code -1} — ошибка ввода-вывода)
+     * @param error  категория ошибки для отчёта или {@code null}, если вызов успешен
+     */
+    public record Outcome(int status, String error) {
+
+        /**
+         * Классифицирует ответ только по статусу.
+         */
+        public static Outcome of(int status) {
+            return new Outcome(status, categoryOf(status));
+        }
+
+        static String categoryOf(int status) {
+            if (status < 0) return "io_error";
+            if (status < 400) return null;
+            return switch (status) {
+                case 400 -> "bad_request";
+                case 401 -> "unauthorized";
+                case 403 -> "forbidden";
+                case 404 -> "not_found";
+                case 423 -> "lock_timeout";
+                case 429 -> "rate_limited";
+                case 503 -> "overloaded";
+                default -> status >= 500 ? "server_error" : "client_error";
+            };
+        }
+    }
+
+    /**
+     * Операция смеси с относительным весом.
+     *
+     * @param name   имя в отчёте
+     * @param weight относительная частота (&gt; 0)
+     * @param call   вызов
+     */
+    public record Operation(String name, int weight, ClassifiedCall call) {
+
+        /**
+         * Операция, ошибки которой классифицируются по HTTP-статусу.
+         */
+        public Operation(String name, int weight, Call call) {
+            this(name, weight, () -> Outcome.of(call.execute()));
+        }
+    }
+
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+
+    public LoadRunner(int concurrency, Duration warmup, Duration duration) {
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    /**
+     * Выполняет прогон.
+     *
+     * @param scenario имя сценария (имя файла отчёта)
+     * @param mix      смесь операций
+     * @return отчёт по измеренному интервалу (без прогрева)
+     */
+    public LoadReport run(String scenario, List<Operation> mix) throws InterruptedException {
+        int[] cumulative = new int[mix.size()];
+        int sum = 0;
+        for (int i = 0; i < mix.size(); i++) {
+            sum += mix.get(i).weight();
+            cumulative[i] = sum;
+        }
+        final int totalWeight = sum;
+
+        LoadReport report = new LoadReport(scenario, Map.of(
+                "concurrency", concurrency,
+                "warmupSeconds", warmup.toSeconds(),
+                "durationSeconds", duration.toSeconds(),
+                "mix", mix.stream().map(o -> o.name() + ":" + o.weight()).toList()));
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                workers.submit(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    long now;
+                    while ((now = System.nanoTime()) < deadline) {
+                        Operation op = pick(mix, cumulative, rnd.nextInt(totalWeight));
+                        Outcome outcome;
+                        try {
+                            outcome = op.call().execute();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        } catch (Exception e) {
+                            outcome = Outcome.of(-1);
+                        }
+                        long end = System.nanoTime();
+                        if (now >= measureFrom) {
+                            report.record(op.name(), outcome, end - now);
+                        }
+                    }
+                });
+            }
+        }
+        report.finish(System.nanoTime() - measureFrom);
+        return report;
+    }
+
+    private static Operation pick(List<Operation> mix, int[] cumulative, int roll) {
+        for (int i = 0; i < cumulative.length; i++) {
+            if (roll < cumulative[i]) {
+                return mix.get(i);
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.bankcards.load;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.math.BigDecimal;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение платформенных и виртуальных потоков под конкуренцией за блокировки строк.
+ * <p>
+ * Немного пользователей с двумя картами и много параллельных клиентов: переводы ждут
+ * {@code PESSIMISTIC_WRITE} на одних и тех же строках, логин нагружает CPU через BCrypt, чтения баланса
+ * должны проходить мимо очереди. Подклассы отличаются только {@code spring.threads.virtual.enabled};
+ * отчёты {@code lock-contention-platform.json} и {@code lock-contention-virtual.json} сравниваются
+ * по пропускной способности и p99.
+ */
+abstract class LockContentionLoadTest extends AbstractLoadTest {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    boolean virtualThreads;
+
+    @Test
+    void transferUnderLockContention() throws Exception {
+        List<SeededUser> users = seed(intProp("load.users", 16), 2, new BigDecimal("1000000.00"));
+
+        String scenario = "lock-contention-" + (virtualThreads ? "virtual" : "platform");
+        LoadReport report = runner(400).run(scenario, List.of(
+                new LoadRunner.Operation("transfer", 50, () -> transfer(pick(users))),
+                new LoadRunner.Operation("balance", 45, () -> balance(pick(users))),
+                new LoadRunner.Operation("login", 5, () -> login(pick(users)))));
+
+        System.out.println(report);
+        report.writeJson(Path.of("target", "load"));
+
+        assertThat(report.total()).isPositive();
+    }
+
+    private int transfer(SeededUser u) throws Exception {
+        long[] ids = u.cardIds();
+        boolean forward = ThreadLocalRandom.current().nextBoolean();
+        String body = """
+                {"sourceCardId":%d,"destinationCardId":%d,"amount":1.00}"""
+                .formatted(forward ? ids[0] : ids[1], forward ? ids[1] : ids[0]);
+        HttpRequest req = request("/api/v1/transaction", u.token())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int balance(SeededUser u) throws Exception {
+        HttpRequest req = request("/api/v1/transaction/" + u.cardIds()[0], u.token()).GET().build();
+        return http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int login(SeededUser u) throws Exception {
+        String body = """
+                {"email":"%s","password":"%s"}""".formatted(u.email(), PASSWORD);
+        HttpRequest req = request("/api/v1/auth/login", null)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static SeededUser pick(List<SeededUser> users) {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+}
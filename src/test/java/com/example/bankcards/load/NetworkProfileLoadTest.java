@@ -0,0 +1,98 @@
+package com.example.bankcards.load;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сетевой профиль ({@code performance,network}): байты в ответе и задержка для списка и точечного запроса,
+ * со сжатием ({@code Accept-Encoding: gzip}) и без.
+ * <p>
+ * Список — страница из {@code load.page-size} (по умолчанию 100) собственных карт, точечный запрос — баланс карты.
+ * Баланс меньше {@code server.compression.min-response-size} и должен уходить несжатым в обоих вариантах.
+ * Клиент по умолчанию работает по HTTP/2 (h2c через Upgrade); {@code -Dload.http-version=HTTP_1_1} — для сравнения.
+ * Средний размер тела и доля сжатых ответов по операциям — в {@code bytesPerResponse} отчёта
+ * {@code target/load/network-<версия>.json}.
+ */
+@ActiveProfiles("network")
+class NetworkProfileLoadTest extends AbstractLoadTest {
+
+    private final HttpClient.Version version =
+            HttpClient.Version.valueOf(System.getProperty("load.http-version", "HTTP_2"));
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(version)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Map<String, LongAdder[]> bodies = new ConcurrentHashMap<>();
+
+    @Test
+    void bytesAndLatencyWithAndWithoutCompression() throws Exception {
+        int pageSize = intProp("load.page-size", 100);
+        List<SeededUser> users = seed(intProp("load.users", 20), pageSize, new BigDecimal("1000.00"));
+
+        String list = "/api/v1/card?size=" + pageSize;
+        LoadReport report = runner().run("network-" + version.name().toLowerCase(), List.of(
+                new LoadRunner.Operation("list-gzip", 25, () -> get("list-gzip", list, pick(users), true)),
+                new LoadRunner.Operation("list-plain", 25, () -> get("list-plain", list, pick(users), false)),
+                new LoadRunner.Operation("balance-gzip", 25, () -> balance("balance-gzip", pick(users), true)),
+                new LoadRunner.Operation("balance-plain", 25, () -> balance("balance-plain", pick(users), false))));
+        report.attach("bytesPerResponse", bytesPerResponse());
+
+        System.out.println(report);
+        System.out.println(bytesPerResponse());
+        report.writeJson(Path.of("target", "load"));
+
+        assertThat(report.total()).isPositive();
+        assertThat(report.serverErrors()).isZero();
+    }
+
+    private int balance(String op, SeededUser u, boolean gzip) throws Exception {
+        return get(op, "/api/v1/transaction/" + u.cardIds()[0], u, gzip);
+    }
+
+    private int get(String op, String path, SeededUser u, boolean gzip) throws Exception {
+        HttpRequest.Builder b = request(path, u.token()).GET();
+        if (gzip) {
+            b.header("Accept-Encoding", "gzip");
+        }
+        HttpResponse<byte[]> resp = client.send(b.build(), HttpResponse.BodyHandlers.ofByteArray());
+        LongAdder[] stats = bodies.computeIfAbsent(op, k -> new LongAdder[]{new LongAdder(), new LongAdder(), new LongAdder()});
+        stats[0].increment();
+        stats[1].add(resp.body().length);
+        if (resp.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent()) {
+            stats[2].increment();
+        }
+        return resp.statusCode();
+    }
+
+    private Map<String, Object> bytesPerResponse() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        bodies.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(e -> {
+            long count = e.getValue()[0].sum();
+            m.put(e.getKey(), Map.of(
+                    "meanBytes", count == 0 ? 0 : e.getValue()[1].sum() / count,
+                    "compressedShare", count == 0 ? 0 : Math.round(e.getValue()[2].sum() * 100.0 / count) / 100.0));
+        });
+        return m;
+    }
+
+    private static SeededUser pick(List<SeededUser> users) {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+class PlatformThreadsLockContentionLoadTest extends LockContentionLoadTest {
+}
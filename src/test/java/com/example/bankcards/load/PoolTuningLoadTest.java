@@ -0,0 +1,66 @@
+package com.example.bankcards.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Смешанная нагрузка «перевод / баланс / список карт» для подбора размера пула и настроек pgjdbc.
+ * <p>
+ * Сравнение конфигураций: прогнать с разными {@code DB_POOL_MAX}, {@code DB_PREPARE_THRESHOLD} и сравнить
+ * JSON-отчёты в {@code target/load/}.
+ */
+class PoolTuningLoadTest extends AbstractLoadTest {
+
+    @Test
+    void transferBalanceSearchMix() throws Exception {
+        List<SeededUser> users = seed(intProp("load.users", 200), intProp("load.cards-per-user", 3),
+                new BigDecimal("1000000.00"));
+
+        LoadReport report = runner().run("pool-tuning-mix", List.of(
+                new LoadRunner.Operation("transfer", 20, () -> transfer(pick(users))),
+                new LoadRunner.Operation("balance", 60, () -> balance(pick(users))),
+                new LoadRunner.Operation("cards", 20, () -> cards(pick(users)))));
+
+        System.out.println(report);
+        report.writeJson(Path.of("target", "load"));
+
+        assertThat(report.total()).isPositive();
+        assertThat(report.serverErrors()).isZero();
+    }
+
+    private int transfer(SeededUser u) throws Exception {
+        long[] ids = u.cardIds();
+        int from = ThreadLocalRandom.current().nextInt(ids.length);
+        int to = (from + 1 + ThreadLocalRandom.current().nextInt(ids.length - 1)) % ids.length;
+        String body = """
+                {"sourceCardId":%d,"destinationCardId":%d,"amount":1.00}""".formatted(ids[from], ids[to]);
+        HttpRequest req = request("/api/v1/transaction", u.token())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int balance(SeededUser u) throws Exception {
+        long id = u.cardIds()[ThreadLocalRandom.current().nextInt(u.cardIds().length)];
+        HttpRequest req = request("/api/v1/transaction/" + id, u.token()).GET().build();
+        return http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int cards(SeededUser u) throws Exception {
+        HttpRequest req = request("/api/v1/card?size=20", u.token()).GET().build();
+        return http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static SeededUser pick(List<SeededUser> users) {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+}
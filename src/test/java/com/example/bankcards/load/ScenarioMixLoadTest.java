@@ -0,0 +1,114 @@
+package com.example.bankcards.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Настраиваемая смесь всех горячих эндпоинтов с перекосом нагрузки на «горячие» карты.
+ * <p>
+ * Параметры (системные свойства):
+ * <ul>
+ *   <li>{@code load.mix} — веса операций, по умолчанию {@code transfer:30,balance:40,cards:25,login:5};</li>
+ *   <li>{@code load.hot-users} — число «горячих» пользователей (по умолчанию 5);</li>
+ *   <li>{@code load.hot-share} — доля операций, попадающих на горячих пользователей (по умолчанию 0.5);</li>
+ *   <li>{@code load.balance}, {@code load.max-amount} — начальный баланс карты и верхняя граница суммы
+ *       перевода; при сумме, соизмеримой с балансом, в отчёте появляются {@code insufficient_funds}.</li>
+ * </ul>
+ * Отчёт пишется в {@code target/load/scenario-mix.json} и дописывается строкой
+ * в {@code target/load/history.jsonl} для сравнения прогонов во времени.
+ */
+class ScenarioMixLoadTest extends AbstractLoadTest {
+
+    private static final String DEFAULT_MIX = "transfer:30,balance:40,cards:25,login:5";
+
+    private List<SeededUser> users;
+    private int hotUsers;
+    private double hotShare;
+    private int maxAmount;
+
+    @Test
+    void scenarioMix() throws Exception {
+        users = seed(intProp("load.users", 500), intProp("load.cards-per-user", 3),
+                new BigDecimal(System.getProperty("load.balance", "1000.00")));
+        hotUsers = Math.min(intProp("load.hot-users", 5), users.size());
+        hotShare = doubleProp("load.hot-share", 0.5);
+        maxAmount = intProp("load.max-amount", 50);
+
+        Map<String, LoadRunner.ClassifiedCall> calls = Map.of(
+                "transfer", () -> transfer(pick()),
+                "balance", () -> balance(pick()),
+                "cards", () -> cards(pick()),
+                "login", () -> login(pick()));
+
+        List<LoadRunner.Operation> mix = new ArrayList<>();
+        for (String entry : System.getProperty("load.mix", DEFAULT_MIX).split(",")) {
+            String[] kv = entry.trim().split(":");
+            LoadRunner.ClassifiedCall call = calls.get(kv[0]);
+            if (call == null) {
+                throw new IllegalArgumentException("Unknown operation in load.mix: " + kv[0]);
+            }
+            mix.add(new LoadRunner.Operation(kv[0], Integer.parseInt(kv[1]), call));
+        }
+
+        LoadReport report = runner().run("scenario-mix", mix);
+
+        System.out.println(report);
+        report.writeJson(Path.of("target", "load"));
+        report.appendJsonLine(Path.of("target", "load", "history.jsonl"));
+
+        assertThat(report.total()).isPositive();
+        assertThat(report.serverErrors()).isZero();
+    }
+
+    private LoadRunner.Outcome transfer(SeededUser u) throws Exception {
+        long[] ids = u.cardIds();
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int from = rnd.nextInt(ids.length);
+        int to = (from + 1 + rnd.nextInt(ids.length - 1)) % ids.length;
+        String body = """
+                {"sourceCardId":%d,"destinationCardId":%d,"amount":%d.00}"""
+                .formatted(ids[from], ids[to], 1 + rnd.nextInt(maxAmount));
+        return send(request("/api/v1/transaction", u.token())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private LoadRunner.Outcome balance(SeededUser u) throws Exception {
+        long id = u.cardIds()[ThreadLocalRandom.current().nextInt(u.cardIds().length)];
+        return send(request("/api/v1/transaction/" + id, u.token()).GET().build());
+    }
+
+    private LoadRunner.Outcome cards(SeededUser u) throws Exception {
+        return send(request("/api/v1/card?size=20", u.token()).GET().build());
+    }
+
+    private LoadRunner.Outcome login(SeededUser u) throws Exception {
+        String body = """
+                {"email":"%s","password":"%s"}""".formatted(u.email(), PASSWORD);
+        return send(request("/api/v1/auth/login", null)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    /**
+     * С вероятностью {@code hotShare} выбирает одного из первых {@code hotUsers} пользователей,
+     * иначе — любого: так на небольшом наборе карт возникает конкуренция за блокировки.
+     */
+    private SeededUser pick() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        return rnd.nextDouble() < hotShare
+                ? users.get(rnd.nextInt(hotUsers))
+                : users.get(rnd.nextInt(users.size()));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.load;
+
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("sync-logs")
+class SyncLoggingTransferLoadTest extends TransferLoggingLoadTest {
+}
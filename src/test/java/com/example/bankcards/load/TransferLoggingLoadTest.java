@@ -0,0 +1,55 @@
+package com.example.bankcards.load;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+
+import java.math.BigDecimal;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Стоимость логирования на пути перевода: синхронные аппендеры против {@code DroppingAsyncAppender}.
+ * <p>
+ * Каждый перевод пишет INFO «Transfer started». Пользователей много, поэтому конкуренции за блокировки
+ * почти нет и разница в p99 приходится на запись логов. Отчёты — {@code transfer-logging-sync.json}
+ * и {@code transfer-logging-async.json}.
+ */
+abstract class TransferLoggingLoadTest extends AbstractLoadTest {
+
+    @Autowired
+    Environment environment;
+
+    @Test
+    void transfersWithRequestLogging() throws Exception {
+        List<SeededUser> users = seed(intProp("load.users", 500), 2, new BigDecimal("1000000.00"));
+
+        String scenario = "transfer-logging-" + (environment.matchesProfiles("sync-logs") ? "sync" : "async");
+        LoadReport report = runner(128).run(scenario, List.of(
+                new LoadRunner.Operation("transfer", 1, () -> transfer(users))));
+
+        System.out.println(report);
+        report.writeJson(Path.of("target", "load"));
+
+        assertThat(report.serverErrors()).isZero();
+    }
+
+    private int transfer(List<SeededUser> users) throws Exception {
+        SeededUser u = users.get(ThreadLocalRandom.current().nextInt(users.size()));
+        long[] ids = u.cardIds();
+        boolean forward = ThreadLocalRandom.current().nextBoolean();
+        String body = """
+                {"sourceCardId":%d,"destinationCardId":%d,"amount":1.00}"""
+                .formatted(forward ? ids[0] : ids[1], forward ? ids[1] : ids[0]);
+        HttpRequest req = request("/api/v1/transaction", u.token())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsLockContentionLoadTest extends LockContentionLoadTest {
+}
@@ -0,0 +1,87 @@
+package com.example.bankcards.mapper;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.FieldSelection;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.entity.BaseCard;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.StandardCard;
+import com.example.bankcards.entity.StandardUser;
+import com.example.bankcards.entity.UserRole;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class BankMapperTest {
+
+    private final BankMapper mapper = new BankMapperImpl();
+
+    @Test
+    void userWithoutExpandDoesNotTouchCardsTest() {
+        @SuppressWarnings("unchecked")
+        List<BaseCard> cards = mock(List.class);
+        StandardUser user = user(cards);
+
+        UserDto dto = mapper.userToUserDTO(user, FieldSelection.DEFAULT);
+
+        assertThat(dto.email).isEqualTo("ivan@example.com");
+        assertThat(dto.cards).isNull();
+        verifyNoInteractions(cards);
+    }
+
+    @Test
+    void userExpandCardsMapsCardsTest() {
+        StandardUser user = user(List.of(card()));
+
+        UserDto dto = mapper.userToUserDTO(user, FieldSelection.of("id", "cards"));
+
+        assertThat(dto.id).isEqualTo(7L);
+        assertThat(dto.email).isNull();
+        assertThat(dto.cards).singleElement()
+                .satisfies(c -> assertThat(c.cardNumber()).isEqualTo("**** **** **** 1234"));
+    }
+
+    @Test
+    void cardUnrequestedFieldsNotComputedTest() {
+        StandardCard card = spy(card());
+
+        CardDto dto = mapper.cardToCardDto(card, FieldSelection.of("id,balance", null));
+
+        assertThat(dto.id()).isEqualTo(1L);
+        assertThat(dto.balance()).isEqualByComparingTo("100.00");
+        assertThat(dto.cardNumber()).isNull();
+        assertThat(dto.expiration()).isNull();
+        verify(card, never()).getExpiration();
+        verify(card, never()).getCardNumberLast4();
+    }
+
+    private static StandardUser user(List<BaseCard> cards) {
+        StandardUser user = new StandardUser();
+        user.setId(7L);
+        user.setName("Иван");
+        user.setEmail("ivan@example.com");
+        user.setRole(UserRole.USER);
+        user.setActive(true);
+        user.setCards(cards);
+        return user;
+    }
+
+    private static StandardCard card() {
+        StandardCard card = new StandardCard();
+        card.setId(1L);
+        card.setCardNumberLast4("1234");
+        card.setCardStatus(CardStatus.ACTIVE);
+        card.setBalance(new BigDecimal("100.00"));
+        card.setExpiration(LocalDateTime.of(2028, 12, 31, 0, 0));
+        return card;
+    }
+}
@@ -1,13 +1,22 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.TestUtils;
+import com.example.bankcards.config.props.CardBulkProps;
+import com.example.bankcards.config.props.CardExportProps;
+import com.example.bankcards.dto.CardExportFormat;
+import com.example.bankcards.repository.CardExportRow;
+import com.example.bankcards.repository.CardVersionRow;
+import com.example.bankcards.dto.CardBulkStatusDto;
+import com.example.bankcards.dto.CardBulkStatusResultDto;
 import com.example.bankcards.dto.CardCreateDto;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.CardSearchRequestDto;
+import com.example.bankcards.dto.FieldSelection;
 import com.example.bankcards.entity.BaseCard;
 import com.example.bankcards.entity.BaseUser;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.TransferAccessException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.factory.CardFactory;
 import com.example.bankcards.mapper.BankMapper;
@@ -15,22 +24,35 @@ import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.SecurityUtils;
 import com.example.bankcards.service.impl.CardServiceImpl;
+import com.example.bankcards.util.BalanceCache;
+import com.example.bankcards.util.BalanceStreamHub;
+import com.example.bankcards.util.BankMetrics;
 import com.example.bankcards.util.CardNumberCheck;
 import com.example.bankcards.util.CardsSearchFilterPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
@@ -52,10 +74,23 @@ public class CardServiceTest {
     private CardNumberCheck cardNumberCheck;
     @Mock
     private CardsSearchFilterPolicy searchPolicy;
+    @Mock
+    private BalanceCache balanceCache;
+    @Mock
+    private BalanceStreamHub balanceStreams;
+    @Mock
+    private CardExportProps exportProps;
+    @Mock
+    private CardBulkProps bulkProps;
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
 
     private final TestUtils testUtils = new TestUtils();
 
+    @Spy
+    private BankMetrics metrics = new BankMetrics(new SimpleMeterRegistry(), Tracer.NOOP);
+
     @InjectMocks
     private CardServiceImpl service;
 
@@ -142,9 +177,9 @@ public class CardServiceTest {
 
         Page<BaseCard> page = new PageImpl<>(java.util.List.of(testUtils.getBaseCard(1L, testUtils.getBaseUser(777L), CardStatus.ACTIVE)));
         when(cardRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
-        when(mapper.cardToCardDto(any())).thenReturn(testUtils.getCardDto());
+        when(mapper.cardToCardDto(any(), eq(FieldSelection.DEFAULT))).thenReturn(testUtils.getCardDto());
 
-        Page<CardDto> result = service.getCards(req);
+        Page<CardDto> result = service.getCards(req, FieldSelection.DEFAULT);
 
         assertThat(result.getTotalElements()).isEqualTo(1);
         verify(cardRepository).findAll(any(Specification.class), any(Pageable.class));
@@ -162,12 +197,111 @@ public class CardServiceTest {
 
         when(cardRepository.findAll(any(Specification.class), any(Pageable.class)))
                 .thenReturn(Page.empty());
-        Page<CardDto> result = service.getCards(req);
+        Page<CardDto> result = service.getCards(req, FieldSelection.DEFAULT);
 
         assertThat(result).isNotNull();
         verify(securityUtils, never()).currentUserId();
     }
 
+    @Test
+    void exportCardsStreamsRowsInReadOnlyTransactionTest() throws Exception {
+        CardSearchRequestDto req = new CardSearchRequestDto(
+                null, null, null,
+                null, null, CardStatus.ACTIVE, null, null,
+                null, null, null, null);
+        LocalDateTime at = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        when(securityUtils.isAdmin()).thenReturn(true);
+        when(exportProps.fetchSize()).thenReturn(2);
+        when(cardRepository.streamForExport(any(), eq(2))).thenReturn(Stream.of(
+                new CardExportRow(1L, "1111", CardStatus.ACTIVE, new BigDecimal("10.00"), at, 7L, at),
+                new CardExportRow(2L, "2222", CardStatus.ACTIVE, new BigDecimal("20.00"), at, 8L, at)));
+
+        StreamingResponseBody body = service.exportCards(req, CardExportFormat.CSV);
+        verifyNoInteractions(cardRepository);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).lines())
+                .containsExactly("id,last4,status,balance,expiration,userId,createdAt",
+                        "1,1111,ACTIVE,10.00,2025-01-01T00:00,7,2025-01-01T00:00",
+                        "2,2222,ACTIVE,20.00,2025-01-01T00:00,8,2025-01-01T00:00");
+        verify(searchPolicy).checkFilter(req);
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    void exportCardsInvalidFilterFailsBeforeStreamingTest() {
+        CardSearchRequestDto req = new CardSearchRequestDto(
+                null, null, null,
+                null, "12", null, null, null,
+                null, null, null, null);
+        doThrow(new IllegalArgumentException("last4 must be 4 digits")).when(searchPolicy).checkFilter(req);
+
+        assertThatThrownBy(() -> service.exportCards(req, CardExportFormat.NDJSON))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(cardRepository, transactionManager);
+    }
+
+    @Test
+    void updateCardStatusesByIdsInSortedChunksTest() {
+        when(bulkProps.chunkSize()).thenReturn(2);
+        when(cardRepository.lockIdsAfter(any(), eq(0L), eq(2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(cardRepository.updateStatus(eq(List.of(1L, 2L)), eq(CardStatus.BLOCKED), any()))
+                .thenReturn(List.of(new CardVersionRow(2L, 5L)));
+        when(cardRepository.updateStatus(eq(List.of(3L)), eq(CardStatus.BLOCKED), any()))
+                .thenReturn(List.of(new CardVersionRow(3L, 8L)));
+
+        CardBulkStatusResultDto result = service.updateCardStatuses(
+                new CardBulkStatusDto(CardStatus.BLOCKED, List.of(3L, 1L, 2L, 1L), null));
+
+        assertThat(result).isEqualTo(new CardBulkStatusResultDto(CardStatus.BLOCKED, 3, 2));
+        verify(cardRepository, times(2)).lockIdsAfter(any(), eq(0L), eq(2));
+        verify(balanceCache).invalidateAfterCommit(2L, 5L);
+        verify(balanceCache).invalidateAfterCommit(3L, 8L);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void updateCardStatusesByFilterWalksIdsTest() {
+        CardSearchRequestDto filter = new CardSearchRequestDto(
+                null, null, null,
+                42L, null, null, null, null,
+                null, null, null, null);
+        when(securityUtils.isAdmin()).thenReturn(true);
+        when(bulkProps.chunkSize()).thenReturn(2);
+        when(cardRepository.lockIdsAfter(any(), eq(0L), eq(2))).thenReturn(List.of(10L, 11L));
+        when(cardRepository.lockIdsAfter(any(), eq(11L), eq(2))).thenReturn(List.of());
+        when(cardRepository.updateStatus(eq(List.of(10L, 11L)), eq(CardStatus.ACTIVE), any()))
+                .thenReturn(List.of(new CardVersionRow(10L, 2L), new CardVersionRow(11L, 4L)));
+
+        CardBulkStatusResultDto result = service.updateCardStatuses(
+                new CardBulkStatusDto(CardStatus.ACTIVE, null, filter));
+
+        assertThat(result).isEqualTo(new CardBulkStatusResultDto(CardStatus.ACTIVE, 2, 2));
+        verify(searchPolicy).checkBulkFilter(filter);
+        verify(balanceCache).invalidateAfterCommit(10L, 2L);
+        verify(balanceCache).invalidateAfterCommit(11L, 4L);
+    }
+
+    @Test
+    void updateCardStatusesRequiresExactlyOneSelectorTest() {
+        CardSearchRequestDto filter = new CardSearchRequestDto(
+                null, null, null,
+                42L, null, null, null, null,
+                null, null, null, null);
+
+        assertThatThrownBy(() -> service.updateCardStatuses(
+                new CardBulkStatusDto(CardStatus.BLOCKED, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.updateCardStatuses(
+                new CardBulkStatusDto(CardStatus.BLOCKED, List.of(1L), filter)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(cardRepository, transactionManager);
+    }
+
     @Test
     void cardDeleteSuccessTest() {
         BaseCard c = testUtils.getBaseCard(1L, testUtils.getBaseUser(12L), CardStatus.ACTIVE );
@@ -193,6 +327,43 @@ public class CardServiceTest {
         assertThat(r).isSameAs(c);
     }
 
+    @Test
+    void findOwnedCardForUpdateForeignTest() {
+        when(cardRepository.findByIdAndUserIdForUpdate(3L, 12L)).thenReturn(Optional.empty());
+        when(cardRepository.existsById(3L)).thenReturn(true);
+        assertThatThrownBy(() -> service.findOwnedCardByIdForUpdate(3L, 12L))
+                .isInstanceOf(TransferAccessException.class);
+        verify(cardRepository, never()).findById(any());
+        verify(metrics).policyRejected("not_owner");
+    }
+
+    @Test
+    void getBaseCardOwnedTest() {
+        BaseCard c = testUtils.getBaseCard(5L, testUtils.getBaseUser(12L), CardStatus.ACTIVE);
+        when(securityUtils.currentUserId()).thenReturn(12L);
+        when(cardRepository.findByIdAndUserId(5L, 12L)).thenReturn(Optional.of(c));
+        assertThat(service.getBaseCard(5L)).isSameAs(c);
+        verify(cardRepository, never()).existsById(any());
+    }
+
+    @Test
+    void getBaseCardNotFoundTest() {
+        when(securityUtils.currentUserId()).thenReturn(12L);
+        when(cardRepository.findByIdAndUserId(5L, 12L)).thenReturn(Optional.empty());
+        when(cardRepository.existsById(5L)).thenReturn(false);
+        assertThatThrownBy(() -> service.getBaseCard(5L))
+                .isInstanceOf(CardNotFoundException.class);
+        verify(metrics, never()).policyRejected(any());
+    }
+
+    @Test
+    void findOwnedByCardNumberForeignTest() {
+        when(cardRepository.findByNumHmacAndUserId("HMAC", 12L)).thenReturn(Optional.empty());
+        when(cardRepository.existsByNumHmac("HMAC")).thenReturn(true);
+        assertThatThrownBy(() -> service.findOwnedByCardNumber("HMAC", 12L))
+                .isInstanceOf(TransferAccessException.class);
+    }
+
     @Test
     void findByCardNumberSuccessTest() {
         BaseCard c = testUtils.getBaseCard(4L, testUtils.getBaseUser(12L), CardStatus.ACTIVE );
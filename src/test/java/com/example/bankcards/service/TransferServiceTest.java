@@ -10,18 +10,31 @@ import com.example.bankcards.exception.TransferAccessException;
 import com.example.bankcards.mapper.BankMapper;
 import com.example.bankcards.security.SecurityUtils;
 import com.example.bankcards.service.impl.TransferServiceImpl;
+import com.example.bankcards.util.BalanceCache;
+import com.example.bankcards.util.BalanceStreamHub;
+import com.example.bankcards.util.BankMetrics;
+import com.example.bankcards.util.CardLedger;
 import com.example.bankcards.util.CardNumberCheck;
 import com.example.bankcards.util.CardsPolicy;
+import com.example.bankcards.util.ReadYourWritesTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
-import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -38,16 +51,32 @@ public class TransferServiceTest {
     CardsPolicy cardsPolicy;
     @Mock
     SecurityUtils securityUtils;
+    @Mock
+    ReadYourWritesTracker readYourWrites;
+    @Mock
+    BalanceCache balanceCache;
+    @Mock
+    BalanceStreamHub balanceStreams;
+    @Mock
+    CardLedger ledger;
 
     private final TestUtils testUtils = new TestUtils();
 
+    @Spy
+    private BankMetrics metrics = new BankMetrics(new SimpleMeterRegistry(), Tracer.NOOP);
+
     @InjectMocks
     private TransferServiceImpl  transferService;
 
+    @BeforeEach
+    void wirePolicyMetrics() {
+        // doCallRealMethod() на моке CardsPolicy выполняет настоящий код, которому нужны метрики
+        ReflectionTestUtils.setField(cardsPolicy, "metrics", metrics);
+    }
+
 
     @Test
     void transferSomeSourceAndDestTest() {
-        when(securityUtils.currentUserId()).thenReturn(1L);
         TransferDto dto = testUtils.getTransferDto(1L, 1L, new BigDecimal("1000"));
 
         doThrow(new IdenticalCardsException("same"))
@@ -64,7 +93,8 @@ public class TransferServiceTest {
     void transferCardNotFoundOneTest() {
         TransferDto dto = testUtils.getTransferDto(1L, 2L, new BigDecimal("1000"));
 
-        when(cardService.findCardByIdForUpdate(dto.sourceCardId())).thenThrow(new CardNotFoundException("some"));
+        when(securityUtils.currentUserId()).thenReturn(1L);
+        when(cardService.findOwnedCardByIdForUpdate(dto.sourceCardId(), 1L)).thenThrow(new CardNotFoundException("some"));
 
         assertThrows(CardNotFoundException.class,
                 () -> transferService.balanceTransfer(dto));
@@ -78,8 +108,9 @@ public class TransferServiceTest {
         TransferDto dto = testUtils.getTransferDto(1L, 2L, new BigDecimal("1000"));
         BaseCard sourceCard = testUtils.getBaseCard(dto.sourceCardId());
 
-        when(cardService.findCardByIdForUpdate(dto.sourceCardId())).thenReturn(sourceCard);
-        when(cardService.findCardByIdForUpdate(dto.destinationCardId())).thenThrow(new CardNotFoundException("some"));
+        when(securityUtils.currentUserId()).thenReturn(1L);
+        when(cardService.findOwnedCardByIdForUpdate(dto.sourceCardId(), 1L)).thenReturn(sourceCard);
+        when(cardService.findOwnedCardByIdForUpdate(dto.destinationCardId(), 1L)).thenThrow(new CardNotFoundException("some"));
 
         assertThrows(CardNotFoundException.class,
                 () -> transferService.balanceTransfer(dto));
@@ -94,17 +125,13 @@ public class TransferServiceTest {
         BaseCard dst = testUtils.getBaseCard(dto.destinationCardId());
 
         when(securityUtils.currentUserId()).thenReturn(1L);
-        when(cardService.findCardByIdForUpdate(dto.sourceCardId())).thenReturn(src);
-        when(cardService.findCardByIdForUpdate(dto.destinationCardId())).thenReturn(dst);
-
-        doThrow(new TransferAccessException("come"))
-                .when(cardsPolicy)
-                .assertOwnedByUser(
-                        argThat(c -> Objects.equals(c.getId(), dto.sourceCardId())),
-                        argThat(c -> Objects.equals(c.getId(), dto.destinationCardId()))
-                );
+        when(cardService.findOwnedCardByIdForUpdate(dto.sourceCardId(), 1L)).thenReturn(src);
+        when(cardService.findOwnedCardByIdForUpdate(dto.destinationCardId(), 1L))
+                .thenThrow(new TransferAccessException("come"));
 
         assertThrows(TransferAccessException.class, () -> transferService.balanceTransfer(dto));
+        verify(cardsPolicy, never()).assertActive(any(), any());
+        verifyNoInteractions(mapper);
     }
 
     @Test
@@ -114,11 +141,11 @@ public class TransferServiceTest {
         BaseCard dst = testUtils.getBaseCard(dto.destinationCardId());
 
         when(securityUtils.currentUserId()).thenReturn(1L);
-        when(cardService.findCardByIdForUpdate(dto.sourceCardId())).thenReturn(src);
-        when(cardService.findCardByIdForUpdate(dto.destinationCardId())).thenReturn(dst);
+        when(cardService.findOwnedCardByIdForUpdate(dto.sourceCardId(), 1L)).thenReturn(src);
+        when(cardService.findOwnedCardByIdForUpdate(dto.destinationCardId(), 1L)).thenReturn(dst);
         doThrow(new TransferAccessException("come"))
                 .when(cardsPolicy)
-                .assertActive(argThat(c -> c.getId().equals(dto.sourceCardId())));
+                .assertActive(argThat(c -> c.getId().equals(dto.sourceCardId())), any());
 
 
         assertThrows(TransferAccessException.class, () -> transferService.balanceTransfer(dto));
@@ -133,11 +160,11 @@ public class TransferServiceTest {
         dst.setBalance(new BigDecimal("0"));
 
         when(securityUtils.currentUserId()).thenReturn(1L);
-        when(cardService.findCardByIdForUpdate(dto.sourceCardId())).thenReturn(src);
-        when(cardService.findCardByIdForUpdate(dto.destinationCardId())).thenReturn(dst);
+        when(cardService.findOwnedCardByIdForUpdate(dto.sourceCardId(), 1L)).thenReturn(src);
+        when(cardService.findOwnedCardByIdForUpdate(dto.destinationCardId(), 1L)).thenReturn(dst);
         doThrow(new InsufficientFundsException("come"))
                 .when(cardsPolicy)
-                .assertInsufficientFunds(dto.amount(), src);
+                .assertInsufficientFunds(dto.amount().setScale(2), src);
 
         assertThrows(InsufficientFundsException.class, () -> transferService.balanceTransfer(dto));
     }
@@ -151,12 +178,14 @@ public class TransferServiceTest {
         dst.setBalance(BigDecimal.ZERO);
 
         when(securityUtils.currentUserId()).thenReturn(1L);
-        when(cardService.findCardByIdForUpdate(dto.sourceCardId())).thenReturn(src);
-        when(cardService.findCardByIdForUpdate(dto.destinationCardId())).thenReturn(dst);
+        when(cardService.findOwnedCardByIdForUpdate(dto.sourceCardId(), 1L)).thenReturn(src);
+        when(cardService.findOwnedCardByIdForUpdate(dto.destinationCardId(), 1L)).thenReturn(dst);
 
         doCallRealMethod().when(cardsPolicy).assertInsufficientFunds(any(), any());
 
         assertThrows(InsufficientFundsException.class, () -> transferService.balanceTransfer(dto));
+        verify(metrics).policyRejected("insufficient_funds");
+        verifyNoInteractions(ledger);
     }
 
     @Test
@@ -168,15 +197,53 @@ public class TransferServiceTest {
         dst.setBalance(BigDecimal.ZERO);
 
         when(securityUtils.currentUserId()).thenReturn(1L);
-        when(cardService.findCardByIdForUpdate(dto.sourceCardId())).thenReturn(src);
-        when(cardService.findCardByIdForUpdate(dto.destinationCardId())).thenReturn(dst);
+        when(cardService.findOwnedCardByIdForUpdate(dto.sourceCardId(), 1L)).thenReturn(src);
+        when(cardService.findOwnedCardByIdForUpdate(dto.destinationCardId(), 1L)).thenReturn(dst);
 
         doCallRealMethod().when(cardsPolicy).assertInsufficientFunds(any(), any());
 
         assertDoesNotThrow(() -> transferService.balanceTransfer(dto));
+        verify(readYourWrites).markWriteAfterCommit(1L);
+        verify(ledger).recordTransfer(eq(1L), eq(2L), eq(new BigDecimal("1.00")), any());
+        verify(balanceStreams).publishAfterCommit(src, 1L);
+        verify(balanceStreams).publishAfterCommit(dst, 1L);
     }
 
+    @Test
+    void balanceFromCacheSkipsDatabaseTest() {
+        when(securityUtils.currentUserId()).thenReturn(7L);
+        when(balanceCache.find(1L, 7L)).thenReturn(Optional.of(new BigDecimal("150.00")));
+
+        assertEquals(new BigDecimal("150.00"), transferService.getBalance(1L));
 
+        verifyNoInteractions(cardService);
+    }
 
+    @Test
+    void balanceCacheMissLoadsAndCachesTest() {
+        BaseCard card = testUtils.getBaseCard(1L);
+        when(securityUtils.currentUserId()).thenReturn(7L);
+        when(balanceCache.find(1L, 7L)).thenReturn(Optional.empty());
+        when(cardService.getBaseCard(1L)).thenReturn(card);
 
+        assertEquals(new BigDecimal("1000"), transferService.getBalance(1L));
+
+        verify(balanceCache).cacheRead(card, 7L);
+    }
+
+    @Test
+    void streamBalanceLoadsCardThroughOwnerCheckTest() {
+        BaseCard card = testUtils.getBaseCard(1L);
+        when(securityUtils.currentUserId()).thenReturn(7L);
+        when(cardService.getBaseCard(1L)).thenReturn(card);
+        when(balanceStreams.open(eq(1L), eq(7L), any())).thenAnswer(inv -> {
+            Supplier<BaseCard> loader = inv.getArgument(2);
+            assertEquals(card, loader.get());
+            return new SseEmitter();
+        });
+
+        assertDoesNotThrow(() -> transferService.streamBalance(1L));
+
+        verify(cardService).getBaseCard(1L);
+    }
 }
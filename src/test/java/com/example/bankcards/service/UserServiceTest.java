@@ -1,6 +1,8 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.TestUtils;
+import com.example.bankcards.config.props.UserExportProps;
+import com.example.bankcards.dto.FieldSelection;
 import com.example.bankcards.dto.UserCreateDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.UserUpdateDto;
@@ -10,22 +12,39 @@ import com.example.bankcards.entity.UserType;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.factory.UserFactory;
 import com.example.bankcards.mapper.BankMapper;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardVersionRow;
+import com.example.bankcards.repository.UserExportRow;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.impl.UserServiceImpl;
+import com.example.bankcards.util.BalanceCache;
+import com.example.bankcards.util.BankMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -36,9 +55,19 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private BalanceCache balanceCache;
+    @Mock
     private UserFactory userFactory;
     @Mock
     private BankMapper mapper;
+    @Mock
+    private UserExportProps exportProps;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private BankMetrics metrics = new BankMetrics(new SimpleMeterRegistry(), Tracer.NOOP);
 
     private final TestUtils testUtils = new TestUtils();
 
@@ -94,7 +123,7 @@ public class UserServiceTest {
     @Test
     void getUserNullTest() {
         assertThrows(IllegalArgumentException.class,
-                () -> userService.getUser(null));
+                () -> userService.getUser(null, FieldSelection.DEFAULT));
 
         verifyNoInteractions(userRepository, mapper);
     }
@@ -107,22 +136,37 @@ public class UserServiceTest {
         user.setId(userId);
         UserDto userDto = testUtils.getUserDto(user);
 
+        FieldSelection expandCards = FieldSelection.of(null, "cards");
         when(userRepository.findByIdWithCards(userId)).thenReturn(Optional.of(user));
-        when(mapper.userToUserDTO(user)).thenReturn(userDto);
+        when(mapper.userToUserDTO(user, expandCards)).thenReturn(userDto);
 
-        UserDto result = userService.getUser(userId);
+        UserDto result = userService.getUser(userId, expandCards);
 
         assertEquals(userId, result.id);
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void getUserWithoutExpandSkipsCardsTest() {
+        BaseUser user = testUtils.getBaseUser();
+        user.setId(1L);
+        UserDto userDto = testUtils.getUserDto(user);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(mapper.userToUserDTO(user, FieldSelection.DEFAULT)).thenReturn(userDto);
+
+        assertSame(userDto, userService.getUser(1L, FieldSelection.DEFAULT));
+        verify(userRepository, never()).findByIdWithCards(any());
     }
 
     @Test
     void getUserUnSuccessTest() {
         Long userId = 9999L;
 
-        when(userRepository.findByIdWithCards(userId)).thenReturn(Optional.empty());
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class,
-                () -> userService.getUser(userId));
+                () -> userService.getUser(userId, FieldSelection.DEFAULT));
 
         verifyNoInteractions(mapper);
     }
@@ -142,20 +186,45 @@ public class UserServiceTest {
 
         UserDto dto1 = testUtils.getUserDto(user1);
         UserDto dto2 = testUtils.getUserDto(user2);
-        when(mapper.userToUserDTO(user1)).thenReturn(dto1);
-        when(mapper.userToUserDTO(user2)).thenReturn(dto2);
+        when(mapper.userToUserDTO(user1, FieldSelection.DEFAULT)).thenReturn(dto1);
+        when(mapper.userToUserDTO(user2, FieldSelection.DEFAULT)).thenReturn(dto2);
 
         Page<UserDto> result = userService.getUsers(testUtils.getUserSearchRequestDto(page, size, sort,
-                "Al", "ex.com", UserRole.USER, true));
+                "Al", "ex.com", UserRole.USER, true), FieldSelection.DEFAULT);
 
         assertEquals(2, result.getTotalElements());
         assertEquals(List.of(dto1, dto2), result.getContent());
 
-        verify(mapper).userToUserDTO(user1);
-        verify(mapper).userToUserDTO(user2);
+        verify(mapper).userToUserDTO(user1, FieldSelection.DEFAULT);
+        verify(mapper).userToUserDTO(user2, FieldSelection.DEFAULT);
         verifyNoMoreInteractions(mapper);
     }
 
+    @Test
+    void exportUsersWritesAggregatedRowsTest() throws Exception {
+        LocalDateTime at = LocalDateTime.of(2025, 3, 1, 12, 0);
+        when(exportProps.fetchSize()).thenReturn(500);
+        when(userRepository.streamForExport(any(), eq(500))).thenReturn(Stream.of(
+                new UserExportRow(1L, "Alice", "a@ex.com", UserRole.USER, true, at, 3L, new BigDecimal("150.00"), 2L),
+                new UserExportRow(2L, "Bob", "b@ex.com", UserRole.ADMIN, false, at, 0L, BigDecimal.ZERO, 0L)));
+
+        StreamingResponseBody body = userService.exportUsers(testUtils.getUserSearchRequestDto(0, 20, null,
+                null, null, null, null));
+        verifyNoInteractions(userRepository);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("{\"id\":1,\"name\":\"Alice\",\"email\":\"a@ex.com\",\"role\":\"USER\",\"active\":true,"
+                + "\"createdAt\":\"2025-03-01T12:00\",\"cardCount\":3,\"totalBalance\":150.00,\"activeCardCount\":2}",
+                lines.get(0));
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        verify(userRepository, never()).findAll(any(org.springframework.data.jpa.domain.Specification.class),
+                any(Pageable.class));
+    }
+
     @Test
     void deleteUserNullTest() {
         assertThrows(IllegalArgumentException.class,
@@ -189,6 +258,48 @@ public class UserServiceTest {
         verify(userRepository).delete(user);
     }
 
+    @Test
+    void deleteUserWithCardsSchedulesPurgeTest() {
+        Long userId = 2L;
+        BaseUser user = testUtils.getBaseUser(userId, "Bob", "b@ex.com", UserRole.USER, true);
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(cardRepository.existsByUserId(userId)).thenReturn(true);
+        when(cardRepository.blockByUserId(eq(userId), any()))
+                .thenReturn(List.of(new CardVersionRow(10L, 3L)));
+
+        assertThat(userService.deleteUser(userId)).isFalse();
+
+        assertThat(user.isActive()).isFalse();
+        assertThat(user.getPurgeRequestedAt()).isNotNull();
+        verify(userRepository, never()).delete(any(BaseUser.class));
+        verify(balanceCache).invalidateAfterCommit(10L, 3L);
+    }
+
+    @Test
+    void deactivateUserBlocksCardsTest() {
+        Long userId = 2L;
+
+        when(userRepository.deactivate(eq(userId), any())).thenReturn(1);
+        when(cardRepository.blockByUserId(eq(userId), any()))
+                .thenReturn(List.of(new CardVersionRow(10L, 3L), new CardVersionRow(11L, 1L)));
+
+        assertThat(userService.deactivateUser(userId)).isEqualTo(2);
+
+        verify(balanceCache).invalidateAfterCommit(10L, 3L);
+        verify(balanceCache).invalidateAfterCommit(11L, 1L);
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void deactivateUserNotFoundTest() {
+        when(userRepository.deactivate(eq(9L), any())).thenReturn(0);
+
+        assertThrows(UserNotFoundException.class, () -> userService.deactivateUser(9L));
+
+        verifyNoInteractions(cardRepository);
+    }
+
     @Test
     void updateUserNullTest() {
         assertThrows(IllegalArgumentException.class,
@@ -0,0 +1,97 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveLimiterTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void rejectsAboveLimitTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, 2.0, 100);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.inflight()).isEqualTo(2);
+
+        limiter.release(MS, false);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void limitGrowsWhileLatencyStableTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 100, 2.0, 100);
+
+        for (int i = 0; i < 50; i++) {
+            round(limiter, 10 * MS);
+        }
+
+        assertThat(limiter.limit()).isGreaterThan(10);
+        assertThat(limiter.limit()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRisesTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(50, 5, 100, 1.5, 600);
+        for (int i = 0; i < 20; i++) {
+            round(limiter, 10 * MS);
+        }
+        int before = limiter.limit();
+
+        for (int i = 0; i < 20; i++) {
+            round(limiter, 200 * MS);
+        }
+
+        assertThat(limiter.limit()).isLessThan(before);
+        assertThat(limiter.limit()).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void dropBacksOffTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(40, 4, 100, 2.0, 100);
+
+        limiter.tryAcquire();
+        limiter.release(MS, true);
+
+        assertThat(limiter.limit()).isEqualTo((int) (40 * AdaptiveLimiter.BACKOFF));
+    }
+
+    @Test
+    void underusedLimitDoesNotGrowTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 2, 100, 2.0, 100);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(MS, false);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(20);
+    }
+
+    @Test
+    void saturatedAtShareOfLimitTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 10, 2.0, 100);
+        for (int i = 0; i < 7; i++) {
+            limiter.tryAcquire();
+        }
+        assertThat(limiter.saturated(0.8)).isFalse();
+
+        limiter.tryAcquire();
+        assertThat(limiter.saturated(0.8)).isTrue();
+    }
+
+    /**
+     * Занимает весь лимит и завершает все запросы с одной задержкой.
+     */
+    private static void round(AdaptiveLimiter limiter, long rttNanos) {
+        while (limiter.tryAcquire()) {
+            // занимаем лимит целиком, чтобы выборки учитывались
+        }
+        while (limiter.inflight() > 0) {
+            limiter.release(rttNanos, false);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.BalanceCacheProps;
+import com.example.bankcards.config.props.ReplicaProps;
+import com.example.bankcards.entity.BaseCard;
+import com.example.bankcards.entity.StandardCard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BalanceCacheTest {
+
+    private final List<String> published = new ArrayList<>();
+    private final StaticListableBeanFactory beans = new StaticListableBeanFactory();
+    private final BankMetrics metrics = new BankMetrics(new SimpleMeterRegistry(), Tracer.NOOP);
+
+    private BalanceCache cache(boolean replica) {
+        return cache(replica, 100);
+    }
+
+    private BalanceCache cache(boolean replica, int maxSize) {
+        beans.addBean("channel", (BalanceCache.InvalidationChannel) versions ->
+                versions.forEach((id, v) -> published.add(id + ":" + v)));
+        return new BalanceCache(new BalanceCacheProps(true, maxSize, Duration.ofMinutes(1), false),
+                new ReplicaProps(replica, null, null, null, null), metrics,
+                beans.getBeanProvider(BalanceCache.InvalidationChannel.class),
+                beans.getBeanProvider(EntityManagerFactory.class));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void readPopulatesAndHitsOnlyForOwnerTest() {
+        BalanceCache cache = cache(false);
+        cache.cacheRead(card(1L, "100.00", 3L), 7L);
+
+        assertThat(cache.find(1L, 7L)).contains(new BigDecimal("100.00"));
+        assertThat(cache.find(1L, 8L)).isEmpty();
+    }
+
+    @Test
+    void olderVersionNeverReplacesNewerTest() {
+        BalanceCache cache = cache(false);
+        cache.updateAfterCommit(card(1L, "50.00", 5L), 7L);
+
+        // чтение, начатое до фиксации перевода, завершилось после неё
+        cache.cacheRead(card(1L, "100.00", 4L), 7L);
+
+        assertThat(cache.find(1L, 7L)).contains(new BigDecimal("50.00"));
+        assertThat(published).containsExactly("1:5");
+    }
+
+    @Test
+    void updateAppliedOnlyAfterCommitTest() {
+        BalanceCache cache = cache(false);
+        cache.cacheRead(card(1L, "100.00", 4L), 7L);
+        BaseCard changed = card(1L, "100.00", 4L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.updateAfterCommit(changed, 7L);
+        changed.setBalance(new BigDecimal("60.00"));
+        ReflectionTestUtils.setField(changed, "version", 5L);
+        assertThat(cache.find(1L, 7L)).contains(new BigDecimal("100.00"));
+
+        commit();
+
+        assertThat(cache.find(1L, 7L)).contains(new BigDecimal("60.00"));
+        assertThat(published).containsExactly("1:5");
+    }
+
+    @Test
+    void remoteInvalidationBlocksStaleReadsTest() {
+        BalanceCache cache = cache(false);
+        cache.cacheRead(card(1L, "100.00", 4L), 7L);
+
+        cache.invalidate(1L, 5L);
+        cache.cacheRead(card(1L, "100.00", 4L), 7L);
+        assertThat(cache.find(1L, 7L)).isEmpty();
+
+        cache.cacheRead(card(1L, "40.00", 5L), 7L);
+        assertThat(cache.find(1L, 7L)).contains(new BigDecimal("40.00"));
+    }
+
+    @Test
+    void deletedCardNotServedTest() {
+        BalanceCache cache = cache(false);
+        cache.cacheRead(card(1L, "100.00", 4L), 7L);
+
+        cache.evictAfterCommit(1L);
+        cache.cacheRead(card(1L, "100.00", 4L), 7L);
+
+        assertThat(cache.find(1L, 7L)).isEmpty();
+        assertThat(published).containsExactly("1:" + Long.MAX_VALUE);
+    }
+
+    @Test
+    void replicaReadsNotCachedTest() {
+        BalanceCache cache = cache(true);
+        cache.cacheRead(card(1L, "100.00", 4L), 7L);
+        assertThat(cache.find(1L, 7L)).isEmpty();
+
+        cache.updateAfterCommit(card(1L, "90.00", 5L), 7L);
+        assertThat(cache.find(1L, 7L)).contains(new BigDecimal("90.00"));
+    }
+
+    @Test
+    void overflowEvictsOldestEntriesOnlyTest() throws InterruptedException {
+        BalanceCache cache = cache(false, 10);
+        cache.cacheRead(card(1L, "100.00", 1L), 7L);
+        Thread.sleep(5);
+        for (long id = 2; id <= 10; id++) {
+            cache.cacheRead(card(id, "100.00", 1L), 7L);
+        }
+        Thread.sleep(5);
+        cache.cacheRead(card(11L, "100.00", 1L), 7L);
+
+        assertThat(cache.find(1L, 7L)).isEmpty();
+        assertThat(cache.find(11L, 7L)).contains(new BigDecimal("100.00"));
+        long kept = LongStream.rangeClosed(2, 10).filter(id -> cache.find(id, 7L).isPresent()).count();
+        assertThat(kept).isGreaterThanOrEqualTo(8);
+    }
+
+    @Test
+    void evictedVersionStillBlocksStaleReadTest() throws InterruptedException {
+        BalanceCache cache = cache(false, 10);
+        cache.updateAfterCommit(card(1L, "50.00", 5L), 7L);
+        Thread.sleep(5);
+        for (long id = 2; id <= 11; id++) {
+            cache.cacheRead(card(id, "100.00", 1L), 7L);
+        }
+        assertThat(cache.find(1L, 7L)).isEmpty();
+
+        // чтение, начатое до фиксации версии 5, завершилось после вытеснения
+        cache.cacheRead(card(1L, "100.00", 4L), 7L);
+        assertThat(cache.find(1L, 7L)).isEmpty();
+
+        cache.cacheRead(card(1L, "50.00", 5L), 7L);
+        assertThat(cache.find(1L, 7L)).contains(new BigDecimal("50.00"));
+    }
+
+    @Test
+    void clearKeepsVersionFloorsTest() {
+        BalanceCache cache = cache(false);
+        cache.updateAfterCommit(card(1L, "50.00", 5L), 7L);
+
+        cache.clear();
+        assertThat(cache.find(1L, 7L)).isEmpty();
+
+        cache.cacheRead(card(1L, "100.00", 4L), 7L);
+        assertThat(cache.find(1L, 7L)).isEmpty();
+
+        cache.cacheRead(card(1L, "40.00", 6L), 7L);
+        assertThat(cache.find(1L, 7L)).contains(new BigDecimal("40.00"));
+    }
+
+    @Test
+    void oneMessagePerTransactionBeforeCommitTest() {
+        BalanceCache cache = cache(false);
+        List<Map<Long, Long>> messages = new ArrayList<>();
+        beans.addBean("channel", (BalanceCache.InvalidationChannel) messages::add);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidateAfterCommit(1L, 5L);
+        cache.invalidateAfterCommit(2L, 7L);
+        cache.evictAfterCommit(3L);
+        assertThat(messages).isEmpty();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.beforeCommit(false));
+        assertThat(messages).containsExactly(Map.of(1L, 5L, 2L, 7L, 3L, Long.MAX_VALUE));
+    }
+
+    @Test
+    void rollbackPublishesNothingTest() {
+        BalanceCache cache = cache(false);
+        cache.cacheRead(card(1L, "100.00", 4L), 7L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.updateAfterCommit(card(1L, "60.00", 5L), 7L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(published).isEmpty();
+        assertThat(cache.find(1L, 7L)).contains(new BigDecimal("100.00"));
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        syncs.forEach(s -> s.beforeCommit(false));
+        syncs.forEach(TransactionSynchronization::afterCommit);
+        syncs.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static BaseCard card(long id, String balance, long version) {
+        StandardCard card = new StandardCard();
+        card.setId(id);
+        card.setBalance(new BigDecimal(balance));
+        ReflectionTestUtils.setField(card, "version", version);
+        return card;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.security.AppUserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@link BalanceReconciliationJob} и журнал {@code card_movements} против PostgreSQL: переводы через API
+ * пишут движения, сверка находит только испорченный вручную баланс, триггер миграции 1.4
+ * запрещает изменять журнал.
+ */
+@AutoConfigureMockMvc
+public class BalanceReconciliationJobIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    BalanceReconciliationJob job;
+
+    private AppUserPrincipal principal;
+    private List<Long> cardIds;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("delete from cards");
+        jdbc.update("delete from users where email = 'ledger@bank.local'");
+        jdbc.update("""
+                insert into users (name, email, role, is_active, password_hash, created_at, modified_at, version, dtype)
+                values ('ledger', 'ledger@bank.local', 'USER', true, 'x', now(), now(), 0, 'STANDARD')
+                """);
+        Long userId = jdbc.queryForObject("select id from users where email = 'ledger@bank.local'", Long.class);
+        jdbc.update("""
+                insert into cards (num_encrypted, num_last4, num_hmac, user_id, expiration, card_status, balance,
+                                   created_at, modified_at, version, dtype)
+                select 'seed', lpad(n::text, 4, '0'), 'ledger-' || ? || '-' || n, ?, now() + interval '4 years',
+                       'ACTIVE', 1000, now(), now(), 0, 'STANDARD'
+                from generate_series(1, 3) n
+                """, userId, userId);
+        cardIds = jdbc.queryForList("select id from cards where user_id = ? order by id", Long.class, userId);
+        // как миграция 1.4 для существующих карт: открывающее движение на начальный баланс
+        jdbc.update("""
+                insert into card_movements (card_id, amount, kind, created_at)
+                select id, balance, 'OPENING', now() from cards where user_id = ?
+                """, userId);
+        principal = new AppUserPrincipal(userId, "ledger@bank.local", "", true,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    private void transfer(long from, long to, String amount) throws Exception {
+        mockMvc.perform(post("/api/v1/transaction").with(user(principal))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"sourceCardId": %d, "destinationCardId": %d, "amount": %s}
+                                """.formatted(from, to, amount)))
+                .andExpect(status().is2xxSuccessful());
+    }
+
+    private LocalDateTime runAt() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    @Test
+    void transfersKeepLedgerInSyncAndCorruptedBalanceIsRecordedTest() throws Exception {
+        transfer(cardIds.get(0), cardIds.get(1), "150.25");
+        transfer(cardIds.get(1), cardIds.get(2), "300");
+        transfer(cardIds.get(2), cardIds.get(0), "0.75");
+
+        assertThat(jdbc.queryForObject("select count(*) from card_movements where kind = 'TRANSFER' and card_id in (?, ?, ?)",
+                Integer.class, cardIds.get(0), cardIds.get(1), cardIds.get(2))).isEqualTo(6);
+        assertThat(jdbc.queryForObject("select balance from cards where id = ?", BigDecimal.class, cardIds.get(0)))
+                .isEqualByComparingTo("850.50");
+
+        LocalDateTime clean = runAt();
+        assertThat(job.reconcile(clean)).isEmpty();
+        assertThat(jdbc.queryForObject("select count(*) from balance_mismatches where run_at = ?", Integer.class, clean))
+                .isZero();
+
+        long corrupted = cardIds.get(1);
+        jdbc.update("update cards set balance = balance + 1 where id = ?", corrupted);
+
+        LocalDateTime dirty = runAt().plusSeconds(1);
+        assertThat(job.reconcile(dirty)).extracting(BalanceReconciliationJob.Mismatch::cardId).containsExactly(corrupted);
+        assertThat(jdbc.queryForList("""
+                        select card_id, balance, ledger_balance from balance_mismatches where run_at = ?
+                        """, dirty))
+                .singleElement()
+                .satisfies(row -> {
+                    assertThat(row.get("card_id")).isEqualTo(corrupted);
+                    assertThat((BigDecimal) row.get("balance")).isEqualByComparingTo("851.25");
+                    assertThat((BigDecimal) row.get("ledger_balance")).isEqualByComparingTo("850.25");
+                });
+    }
+
+    @Test
+    void movementsCannotBeUpdatedOrDeletedTest() {
+        long cardId = cardIds.get(0);
+
+        assertThatThrownBy(() -> jdbc.update("update card_movements set amount = 0 where card_id = ?", cardId))
+                .isInstanceOf(DataAccessException.class)
+                .hasMessageContaining("append-only");
+        assertThatThrownBy(() -> jdbc.update("delete from card_movements where card_id = ?", cardId))
+                .isInstanceOf(DataAccessException.class)
+                .hasMessageContaining("append-only");
+        assertThatThrownBy(() -> jdbc.execute("truncate card_movements"))
+                .isInstanceOf(DataAccessException.class)
+                .hasMessageContaining("append-only");
+
+        assertThat(jdbc.queryForObject("select amount from card_movements where card_id = ?", BigDecimal.class, cardId))
+                .isEqualByComparingTo("1000");
+    }
+}
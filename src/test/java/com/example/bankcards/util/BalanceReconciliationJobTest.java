@@ -0,0 +1,111 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.LedgerReconciliationProps;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BalanceReconciliationJobTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 1, 3, 0);
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BankMetrics metrics = new BankMetrics(registry, Tracer.NOOP);
+
+    private BalanceReconciliationJob job(long rangeSize) {
+        return new BalanceReconciliationJob(jdbc, transactionManager, metrics,
+                new LedgerReconciliationProps(true, Duration.ofHours(24), rangeSize, 4));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void idBounds(long[] bounds) {
+        when(jdbc.queryForObject(eq(BalanceReconciliationJob.ID_BOUNDS_SQL), any(RowMapper.class))).thenReturn(bounds);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rangesCoverAllIdsAndMismatchesAreRecordedTest() {
+        idBounds(new long[]{1, 1000});
+        Queue<long[]> ranges = new ConcurrentLinkedQueue<>();
+        when(jdbc.query(eq(BalanceReconciliationJob.RANGE_SQL), any(RowMapper.class),
+                anyLong(), anyLong(), anyLong(), anyLong())).thenAnswer(inv -> {
+            long from = inv.getArgument(2);
+            long to = inv.getArgument(3);
+            ranges.add(new long[]{from, to});
+            return from <= 42 && 42 <= to
+                    ? List.of(new BalanceReconciliationJob.Mismatch(42, new BigDecimal("10.00"), BigDecimal.ZERO))
+                    : List.of();
+        });
+
+        List<BalanceReconciliationJob.Mismatch> mismatches = job(100).reconcile(NOW);
+
+        assertThat(mismatches).extracting(BalanceReconciliationJob.Mismatch::cardId).containsExactly(42L);
+        List<long[]> sorted = ranges.stream().sorted(Comparator.comparingLong(r -> r[0])).toList();
+        assertThat(sorted.get(0)[0]).isEqualTo(1);
+        assertThat(sorted.get(sorted.size() - 1)[1]).isEqualTo(1000);
+        for (int i = 0; i < sorted.size(); i++) {
+            assertThat(sorted.get(i)[1] - sorted.get(i)[0]).isLessThan(100);
+            if (i > 0) {
+                assertThat(sorted.get(i)[0]).isEqualTo(sorted.get(i - 1)[1] + 1);
+            }
+        }
+
+        ArgumentCaptor<Collection<BalanceReconciliationJob.Mismatch>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbc).batchUpdate(eq(BalanceReconciliationJob.INSERT_MISMATCH_SQL), rows.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(rows.getValue()).hasSize(1);
+        assertThat(registry.get(BankMetrics.LEDGER_MISMATCHES).gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void matchingBalancesWriteNothingTest() {
+        idBounds(new long[]{5, 5});
+        when(jdbc.query(eq(BalanceReconciliationJob.RANGE_SQL), any(RowMapper.class),
+                anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(List.of());
+
+        assertThat(job(100).reconcile(NOW)).isEmpty();
+
+        verify(jdbc).query(eq(BalanceReconciliationJob.RANGE_SQL), any(RowMapper.class), eq(5L), eq(5L), eq(5L), eq(5L));
+        verify(jdbc, never()).batchUpdate(eq(BalanceReconciliationJob.INSERT_MISMATCH_SQL), any(Collection.class),
+                anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(registry.get(BankMetrics.LEDGER_MISMATCHES).gauge().value()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void noCardsSkipsRangesTest() {
+        idBounds(null);
+
+        assertThat(job(100).reconcile(NOW)).isEmpty();
+
+        verify(jdbc, never()).query(eq(BalanceReconciliationJob.RANGE_SQL), any(RowMapper.class),
+                anyLong(), anyLong(), anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.BalanceStreamProps;
+import com.example.bankcards.dto.BalanceEventDto;
+import com.example.bankcards.entity.BaseCard;
+import com.example.bankcards.entity.StandardCard;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.StreamLimitException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BalanceStreamHubTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BankMetrics metrics = new BankMetrics(registry, Tracer.NOOP);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void initialBalanceThenPublishedChangesTest() throws Exception {
+        BalanceStreamHub hub = hub(4, 2);
+        RecordingSink sink = new RecordingSink();
+
+        hub.subscribe(1L, 7L, () -> card(1L, "100.00", 4L), sink);
+        hub.publishAfterCommit(card(1L, "90.00", 5L), 7L);
+
+        assertThat(sink.next().balance()).isEqualByComparingTo("100.00");
+        assertThat(sink.next().balance()).isEqualByComparingTo("90.00");
+        assertThat(hub.activeStreams()).isEqualTo(1);
+    }
+
+    @Test
+    void staleInitialBalanceSkippedTest() throws Exception {
+        BalanceStreamHub hub = hub(4, 2);
+        RecordingSink sink = new RecordingSink();
+
+        // перевод зафиксирован между регистрацией подписчика и возвратом начального баланса
+        hub.subscribe(1L, 7L, () -> {
+            hub.publishAfterCommit(card(1L, "60.00", 6L), 7L);
+            return card(1L, "100.00", 5L);
+        }, sink);
+
+        assertThat(sink.next().version()).isEqualTo(6L);
+        assertThat(sink.events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void publishedOnlyAfterCommitTest() throws Exception {
+        BalanceStreamHub hub = hub(4, 2);
+        RecordingSink sink = new RecordingSink();
+        hub.subscribe(1L, 7L, () -> card(1L, "100.00", 4L), sink);
+        sink.next();
+
+        TransactionSynchronizationManager.initSynchronization();
+        hub.publishAfterCommit(card(1L, "90.00", 5L), 7L);
+        assertThat(sink.events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(sink.next().version()).isEqualTo(5L);
+    }
+
+    @Test
+    void slowConsumerDroppedTest() throws Exception {
+        BalanceStreamHub hub = hub(1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void send(BalanceEventDto event) {
+                super.send(event);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        hub.subscribe(1L, 7L, () -> card(1L, "100.00", 4L), sink);
+        sink.next();
+
+        hub.publishAfterCommit(card(1L, "90.00", 5L), 7L);
+        hub.publishAfterCommit(card(1L, "80.00", 6L), 7L);
+
+        assertThat(sink.completed.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(hub.activeStreams()).isZero();
+        assertThat(registry.get(BankMetrics.BALANCE_STREAM).tag("event", "dropped").counter().count()).isEqualTo(1.0);
+        release.countDown();
+    }
+
+    @Test
+    void streamsPerCardLimitedTest() {
+        BalanceStreamHub hub = hub(4, 1);
+        hub.subscribe(1L, 7L, () -> card(1L, "100.00", 4L), new RecordingSink());
+
+        assertThatThrownBy(() -> hub.subscribe(1L, 7L, () -> card(1L, "100.00", 4L), new RecordingSink()))
+                .isInstanceOf(StreamLimitException.class);
+        assertThat(hub.activeStreams()).isEqualTo(1);
+    }
+
+    @Test
+    void failedLoadReleasesSlotTest() {
+        BalanceStreamHub hub = hub(4, 1);
+
+        assertThatThrownBy(() -> hub.subscribe(1L, 7L, () -> {
+            throw new CardNotFoundException("Card not found");
+        }, new RecordingSink())).isInstanceOf(CardNotFoundException.class);
+
+        assertThat(hub.activeStreams()).isZero();
+        hub.subscribe(1L, 7L, () -> card(1L, "100.00", 4L), new RecordingSink());
+        assertThat(hub.activeStreams()).isEqualTo(1);
+    }
+
+    @Test
+    void ownerChangeClosesStreamTest() throws Exception {
+        BalanceStreamHub hub = hub(4, 2);
+        RecordingSink sink = new RecordingSink();
+        hub.subscribe(1L, 7L, () -> card(1L, "100.00", 4L), sink);
+
+        hub.publishAfterCommit(card(1L, "100.00", 5L), 8L);
+
+        assertThat(sink.completed.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(hub.activeStreams()).isZero();
+    }
+
+    private BalanceStreamHub hub(int bufferSize, int maxPerCard) {
+        return new BalanceStreamHub(
+                new BalanceStreamProps(bufferSize, maxPerCard, Duration.ofMinutes(1), Duration.ofMinutes(5)), metrics);
+    }
+
+    private static BaseCard card(long id, String balance, long version) {
+        StandardCard card = new StandardCard();
+        card.setId(id);
+        card.setBalance(new BigDecimal(balance));
+        ReflectionTestUtils.setField(card, "version", version);
+        return card;
+    }
+
+    private static class RecordingSink implements BalanceStreamHub.Sink {
+
+        final BlockingQueue<BalanceEventDto> events = new LinkedBlockingQueue<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(BalanceEventDto event) {
+            events.add(event);
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        BalanceEventDto next() throws InterruptedException {
+            BalanceEventDto event = events.poll(1, TimeUnit.SECONDS);
+            assertThat(event).isNotNull();
+            return event;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.bankcards.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BankMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BankMetrics metrics = new BankMetrics(registry, Tracer.NOOP);
+
+    @Test
+    void timedSuccessTest() {
+        String result = metrics.timed(BankMetrics.TRANSFER, () -> "ok");
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(registry.get(BankMetrics.TRANSFER)
+                .tag("outcome", "success").tag("exception", "none")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void timedFailureRethrowsAndTagsExceptionTest() {
+        assertThatThrownBy(() -> metrics.timed(BankMetrics.CRYPTO, "decrypt", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(registry.get(BankMetrics.CRYPTO)
+                .tag("outcome", "failure").tag("exception", "IllegalStateException").tag("op", "decrypt")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void policyRejectionCountedByReasonTest() {
+        metrics.policyRejected("not_active");
+        metrics.policyRejected("not_active");
+
+        assertThat(registry.get(BankMetrics.POLICY_REJECTIONS).tag("reason", "not_active").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void overloadGaugesFollowLimiterTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 10, 2.0, 100);
+        metrics.overloadGauges("transfer", limiter);
+        limiter.tryAcquire();
+
+        assertThat(registry.get(BankMetrics.OVERLOAD_LIMIT).tag("endpoint", "transfer").gauge().value()).isEqualTo(8);
+        assertThat(registry.get(BankMetrics.OVERLOAD_INFLIGHT).tag("endpoint", "transfer").gauge().value()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.config.props.CardExpiryProps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link CardExpirySweeper} против PostgreSQL: {@code EXPIRE_CHUNK_SQL} и обход по ключу {@code (expiration, id)}.
+ */
+public class CardExpirySweeperIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int CHUNK_SIZE = 3;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    BalanceCache balanceCache;
+
+    @Autowired
+    BankMetrics metrics;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    private CardExpirySweeper sweeper;
+    private long userId;
+
+    @BeforeEach
+    void seed() {
+        sweeper = new CardExpirySweeper(jdbc, transactionManager, balanceCache, metrics,
+                new CardExpiryProps(true, Duration.ofHours(1), CHUNK_SIZE, Duration.ZERO, 200));
+
+        jdbc.update("delete from cards where num_hmac like 'expiry-%'");
+        jdbc.update("delete from users where email = 'expiry@bank.local'");
+        jdbc.update("""
+                insert into users (name, email, role, is_active, password_hash, created_at, modified_at, version, dtype)
+                values ('expiry', 'expiry@bank.local', 'USER', true, 'x', now(), now(), 0, 'STANDARD')
+                """);
+        userId = jdbc.queryForObject("select id from users where email = 'expiry@bank.local'", Long.class);
+    }
+
+    private long card(String key, LocalDateTime expiration, String status) {
+        jdbc.update("""
+                insert into cards (num_encrypted, num_last4, num_hmac, user_id, expiration, card_status, balance,
+                                   created_at, modified_at, version, dtype)
+                values ('seed', '0000', ?, ?, ?, ?, 0, now(), now(), 0, 'STANDARD')
+                """, "expiry-" + userId + "-" + key, userId, Timestamp.valueOf(expiration), status);
+        return jdbc.queryForObject("select id from cards where num_hmac = ?", Long.class, "expiry-" + userId + "-" + key);
+    }
+
+    private Map<String, Object> row(long id) {
+        return jdbc.queryForMap("select card_status, version, modified_at from cards where id = ?", id);
+    }
+
+    @Test
+    void dueCardsExpireAcrossChunksAndLockedCardIsSkippedTest() throws Exception {
+        // восемь просроченных карт, по две с одинаковым сроком: граница порции проходит внутри одного expiration
+        List<Long> due = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            due.add(card("due-" + i, now.minusDays(10 - i / 2), "ACTIVE"));
+        }
+        long future = card("future", now.plusDays(1), "ACTIVE");
+        long blocked = card("blocked", now.minusDays(20), "BLOCKED");
+        long locked = due.get(4);
+
+        int expired;
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            try (PreparedStatement ps = other.prepareStatement("select id from cards where id = ? for update")) {
+                ps.setLong(1, locked);
+                ps.executeQuery().close();
+            }
+            expired = sweeper.sweep(now);
+            other.rollback();
+        }
+
+        assertThat(expired).isEqualTo(7);
+        for (long id : due) {
+            Map<String, Object> row = row(id);
+            if (id == locked) {
+                assertThat(row.get("card_status")).isEqualTo("ACTIVE");
+                assertThat(row.get("version")).isEqualTo(0L);
+            } else {
+                assertThat(row.get("card_status")).isEqualTo("EXPIRED");
+                assertThat(row.get("version")).isEqualTo(1L);
+                assertThat(row.get("modified_at")).isEqualTo(Timestamp.valueOf(now));
+            }
+        }
+        assertThat(row(future).get("card_status")).isEqualTo("ACTIVE");
+        assertThat(row(blocked).get("card_status")).isEqualTo("BLOCKED");
+
+        // следующий запуск добирает карту, заблокированную в прошлый раз
+        assertThat(sweeper.sweep(now)).isOne();
+        assertThat(row(locked).get("card_status")).isEqualTo("EXPIRED");
+    }
+}
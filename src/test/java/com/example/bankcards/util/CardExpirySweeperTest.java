@@ -0,0 +1,90 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.CardExpiryProps;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CardExpirySweeperTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 1, 12, 0);
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final BalanceCache balanceCache = mock(BalanceCache.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BankMetrics metrics = new BankMetrics(registry, Tracer.NOOP);
+
+    private CardExpirySweeper sweeper(int chunkSize, int maxChunks) {
+        return new CardExpirySweeper(jdbc, transactionManager, balanceCache, metrics,
+                new CardExpiryProps(true, Duration.ofHours(1), chunkSize, Duration.ZERO, maxChunks));
+    }
+
+    @Test
+    void stopsOnPartialChunkAndInvalidatesCacheTest() {
+        chunks(List.of(expired(5, 1, 3)));
+
+        int expired = sweeper(2, 10).sweep(NOW);
+
+        assertThat(expired).isEqualTo(1);
+        verify(balanceCache).invalidateAfterCommit(5L, 3L);
+        verify(transactionManager).commit(any());
+        assertThat(registry.get(BankMetrics.CARDS_EXPIRED).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void keysetCursorAdvancesPastLastExpiredCardTest() {
+        // RETURNING не упорядочен: курсор — максимум (expiration, id) порции
+        chunks(List.of(expired(9, 2, 1), expired(4, 3, 1)), List.of());
+
+        int expired = sweeper(2, 10).sweep(NOW);
+
+        assertThat(expired).isEqualTo(2);
+        ArgumentCaptor<Object> afterExpiration = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<Object> afterId = ArgumentCaptor.forClass(Object.class);
+        verify(jdbc, times(2)).query(eq(CardExpirySweeper.EXPIRE_CHUNK_SQL), any(RowMapper.class),
+                any(), any(), afterExpiration.capture(), afterId.capture(), eq(2));
+        assertThat(afterExpiration.getAllValues().get(1)).isEqualTo(Timestamp.valueOf(NOW.minusDays(2)));
+        assertThat(afterId.getAllValues().get(1)).isEqualTo(9L);
+    }
+
+    @Test
+    void boundedByMaxChunksPerRunTest() {
+        List<CardExpirySweeper.Expired> full = List.of(expired(1, 2, 1), expired(2, 1, 1));
+        chunks(full, full, full);
+
+        int expired = sweeper(2, 2).sweep(NOW);
+
+        assertThat(expired).isEqualTo(4);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private void chunks(List<CardExpirySweeper.Expired> first, List<CardExpirySweeper.Expired>... rest) {
+        when(jdbc.query(eq(CardExpirySweeper.EXPIRE_CHUNK_SQL), any(RowMapper.class),
+                any(), any(), any(), any(), any()))
+                .thenReturn((List) first, (List[]) rest);
+    }
+
+    private static CardExpirySweeper.Expired expired(long id, int daysAgo, long version) {
+        return new CardExpirySweeper.Expired(id, NOW.minusDays(daysAgo), version);
+    }
+}
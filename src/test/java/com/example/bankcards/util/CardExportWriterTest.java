@@ -0,0 +1,77 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.CardExportFormat;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.CardExportRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CardExportWriterTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2027, 5, 31, 0, 0);
+
+    @Test
+    void ndjsonOneObjectPerLineTest() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = CardExportWriter.write(Stream.of(row(1L), row(2L)), CardExportFormat.NDJSON, out, 100);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        JsonNode first = new ObjectMapper().readTree(lines.get(0));
+        assertThat(first.get("id").asLong()).isEqualTo(1L);
+        assertThat(first.get("last4").asText()).isEqualTo("0001");
+        assertThat(first.get("status").asText()).isEqualTo("ACTIVE");
+        assertThat(first.get("balance").decimalValue()).isEqualByComparingTo("100.50");
+        assertThat(first.get("expiration").asText()).isEqualTo("2027-05-31T00:00");
+        assertThat(first.get("userId").asLong()).isEqualTo(9L);
+    }
+
+    @Test
+    void csvHeaderAndPlainBalanceTest() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        CardExportWriter.write(Stream.of(row(1L)), CardExportFormat.CSV, out, 100);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).lines())
+                .containsExactly(CardExportWriter.CSV_HEADER,
+                        "1,0001,ACTIVE,100.50,2027-05-31T00:00,9,2027-05-31T00:00");
+    }
+
+    @Test
+    void flushedEveryBatchTest() throws Exception {
+        int[] flushes = new int[1];
+        OutputStream out = new FilterOutputStream(OutputStream.nullOutputStream()) {
+            @Override
+            public void flush() throws IOException {
+                flushes[0]++;
+            }
+        };
+
+        long count = CardExportWriter.write(LongStream.rangeClosed(1, 10).mapToObj(CardExportWriterTest::row),
+                CardExportFormat.NDJSON, out, 3);
+
+        assertThat(count).isEqualTo(10);
+        // 3 полных порции + финальный сброс
+        assertThat(flushes[0]).isEqualTo(4);
+    }
+
+    private static CardExportRow row(long id) {
+        return new CardExportRow(id, "%04d".formatted(id), CardStatus.ACTIVE, new BigDecimal("100.50"), AT, 9L, AT);
+    }
+}
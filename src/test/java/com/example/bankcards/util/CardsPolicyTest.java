@@ -0,0 +1,55 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.entity.BaseCard;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.StandardCard;
+import com.example.bankcards.exception.CardStatusException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CardsPolicyTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 1, 12, 0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CardsPolicy policy = new CardsPolicy(new BankMetrics(registry, Tracer.NOOP));
+
+    private static BaseCard card(CardStatus status, LocalDateTime expiration) {
+        return StandardCard.builder().id(1L).cardStatus(status).expiration(expiration).build();
+    }
+
+    private double rejections(String reason) {
+        var counter = registry.find(BankMetrics.POLICY_REJECTIONS).tag("reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void activeNotExpiredPassesTest() {
+        assertThatCode(() -> policy.assertActive(card(CardStatus.ACTIVE, NOW.plusDays(1)), NOW))
+                .doesNotThrowAnyException();
+        assertThat(rejections("expired")).isZero();
+    }
+
+    @Test
+    void expiredButActiveRejectedTest() {
+        assertThatThrownBy(() -> policy.assertActive(card(CardStatus.ACTIVE, NOW.minusSeconds(1)), NOW))
+                .isInstanceOf(CardStatusException.class);
+        assertThat(rejections("expired")).isEqualTo(1);
+        assertThat(rejections("not_active")).isZero();
+    }
+
+    @Test
+    void notActiveRejectedBeforeExpiryCheckTest() {
+        assertThatThrownBy(() -> policy.assertActive(card(CardStatus.EXPIRED, NOW.minusDays(1)), NOW))
+                .isInstanceOf(CardStatusException.class);
+        assertThat(rejections("not_active")).isEqualTo(1);
+        assertThat(rejections("expired")).isZero();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TokenBucketRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+    private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 2, clock::get);
+
+    @Test
+    void burstUpToCapacityThenRejectTest() {
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isZero();
+
+        assertThat(limiter.tryAcquire(1L)).isEqualTo(SECOND / 2);
+    }
+
+    @Test
+    void refillsLazilyWithTimeTest() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1L);
+        }
+        clock.addAndGet(SECOND / 2);
+
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+    }
+
+    @Test
+    void keysHaveSeparateBucketsTest() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1L);
+        }
+
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        assertThat(limiter.size()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsOnlyFullBucketsTest() {
+        limiter.tryAcquire(1L);
+        clock.addAndGet(SECOND);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(2L);
+        }
+
+        assertThat(limiter.evictIdle()).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(limiter.tryAcquire(2L)).isPositive();
+    }
+
+    @Test
+    void invalidLimitsRejectedTest() {
+        assertThatThrownBy(() -> new TokenBucketRateLimiter(0, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
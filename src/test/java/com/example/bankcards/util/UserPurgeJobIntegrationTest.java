@@ -0,0 +1,120 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.config.props.UserPurgeProps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link UserPurgeJob} против PostgreSQL: {@code ARCHIVE_CHUNK_SQL}, {@code DELETE_USER_SQL}
+ * и схема {@code cards_archive} из миграции 1.3.
+ */
+public class UserPurgeJobIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int CHUNK_SIZE = 3;
+    private static final int CARDS = 7;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    BalanceCache balanceCache;
+
+    @Autowired
+    BalanceStreamHub balanceStreams;
+
+    @Autowired
+    BankMetrics metrics;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    private UserPurgeJob job;
+    private long userId;
+    private List<Long> cardIds;
+
+    @BeforeEach
+    void seed() {
+        job = new UserPurgeJob(jdbc, transactionManager, balanceCache, balanceStreams, metrics,
+                new UserPurgeProps(true, Duration.ofMinutes(5), CHUNK_SIZE, Duration.ZERO, 200));
+
+        jdbc.update("delete from cards where num_hmac like 'purge-%'");
+        jdbc.update("delete from users where email = 'purge@bank.local'");
+        jdbc.update("""
+                insert into users (name, email, role, is_active, password_hash, created_at, modified_at, version, dtype,
+                                   purge_requested_at)
+                values ('purge', 'purge@bank.local', 'USER', false, 'x', now(), now(), 0, 'STANDARD', now())
+                """);
+        userId = jdbc.queryForObject("select id from users where email = 'purge@bank.local'", Long.class);
+        jdbc.update("""
+                insert into cards (num_encrypted, num_last4, num_hmac, user_id, expiration, card_status, balance,
+                                   created_at, modified_at, version, dtype)
+                select 'seed', lpad(n::text, 4, '0'), 'purge-' || ? || '-' || n, ?, now() + interval '4 years',
+                       'BLOCKED', 100, now(), now(), 0, 'STANDARD'
+                from generate_series(1, ?) n
+                """, userId, userId, CARDS);
+        cardIds = jdbc.queryForList("select id from cards where user_id = ? order by id", Long.class, userId);
+    }
+
+    @Test
+    void cardsAreArchivedInChunksAndUserIsDeletedTest() {
+        job.purge(now);
+
+        assertThat(jdbc.queryForObject("select count(*) from cards where user_id = ?", Integer.class, userId))
+                .isZero();
+        assertThat(jdbc.queryForObject("select count(*) from users where id = ?", Integer.class, userId)).isZero();
+        assertThat(jdbc.queryForList("select id from cards_archive where user_id = ? order by id", Long.class, userId))
+                .containsExactlyElementsOf(cardIds);
+        assertThat(jdbc.queryForList("select distinct archived_at from cards_archive where user_id = ?",
+                Timestamp.class, userId)).containsExactly(Timestamp.valueOf(now));
+        assertThat(jdbc.queryForObject("select sum(balance) from cards_archive where user_id = ?", Integer.class, userId))
+                .isEqualTo(100 * CARDS);
+    }
+
+    @Test
+    void lockedCardIsSkippedAndUserIsKeptTest() throws Exception {
+        long locked = cardIds.get(1);
+
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            try (PreparedStatement ps = other.prepareStatement("select id from cards where id = ? for update")) {
+                ps.setLong(1, locked);
+                ps.executeQuery().close();
+            }
+
+            assertThat(job.purge(now)).isZero();
+
+            assertThat(jdbc.queryForList("select id from cards where user_id = ?", Long.class, userId))
+                    .containsExactly(locked);
+            assertThat(jdbc.queryForObject("select count(*) from cards_archive where user_id = ?", Integer.class, userId))
+                    .isEqualTo(CARDS - 1);
+            assertThat(jdbc.queryForObject("select count(*) from users where id = ?", Integer.class, userId)).isOne();
+            other.rollback();
+        }
+
+        assertThat(job.purge(now)).isOne();
+
+        assertThat(jdbc.queryForList("select id from cards_archive where user_id = ? order by id", Long.class, userId))
+                .containsExactlyElementsOf(cardIds);
+        assertThat(jdbc.queryForObject("select count(*) from users where id = ?", Integer.class, userId)).isZero();
+    }
+}
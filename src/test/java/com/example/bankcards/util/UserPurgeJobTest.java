@@ -0,0 +1,77 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.props.UserPurgeProps;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserPurgeJobTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 1, 12, 0);
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final BalanceCache balanceCache = mock(BalanceCache.class);
+    private final BalanceStreamHub balanceStreams = mock(BalanceStreamHub.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BankMetrics metrics = new BankMetrics(registry, Tracer.NOOP);
+
+    private UserPurgeJob job(int chunkSize, int maxChunks) {
+        return new UserPurgeJob(jdbc, transactionManager, balanceCache, balanceStreams, metrics,
+                new UserPurgeProps(true, Duration.ofMinutes(5), chunkSize, Duration.ZERO, maxChunks));
+    }
+
+    @Test
+    void archivesCardsInChunksThenDeletesUserTest() {
+        when(jdbc.queryForList(UserPurgeJob.PENDING_USERS_SQL, Long.class)).thenReturn(List.of(7L));
+        when(jdbc.queryForList(eq(UserPurgeJob.ARCHIVE_CHUNK_SQL), eq(Long.class), eq(7L), eq(2), any()))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(jdbc.update(UserPurgeJob.DELETE_USER_SQL, 7L)).thenReturn(1);
+
+        int deleted = job(2, 10).purge(NOW);
+
+        assertThat(deleted).isEqualTo(1);
+        verify(balanceCache).evictAfterCommit(3L);
+        verify(balanceStreams).closeAfterCommit(1L);
+        verify(transactionManager, times(3)).commit(any());
+        assertThat(registry.get(BankMetrics.CARDS_ARCHIVED).counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void userKeptWhileLockedCardsRemainTest() {
+        when(jdbc.queryForList(UserPurgeJob.PENDING_USERS_SQL, Long.class)).thenReturn(List.of(7L));
+        when(jdbc.queryForList(eq(UserPurgeJob.ARCHIVE_CHUNK_SQL), eq(Long.class), eq(7L), eq(2), any()))
+                .thenReturn(List.of());
+        when(jdbc.update(UserPurgeJob.DELETE_USER_SQL, 7L)).thenReturn(0);
+
+        assertThat(job(2, 10).purge(NOW)).isZero();
+    }
+
+    @Test
+    void boundedByMaxChunksPerRunTest() {
+        when(jdbc.queryForList(UserPurgeJob.PENDING_USERS_SQL, Long.class)).thenReturn(List.of(7L, 8L));
+        when(jdbc.queryForList(eq(UserPurgeJob.ARCHIVE_CHUNK_SQL), eq(Long.class), eq(7L), eq(2), any()))
+                .thenReturn(List.of(1L, 2L));
+
+        int deleted = job(2, 2).purge(NOW);
+
+        assertThat(deleted).isZero();
+        verify(jdbc, times(2)).queryForList(eq(UserPurgeJob.ARCHIVE_CHUNK_SQL), eq(Long.class), eq(7L), eq(2), any());
+        verify(jdbc, never()).update(eq(UserPurgeJob.DELETE_USER_SQL), any(Object[].class));
+    }
+}